@@ -0,0 +1,53 @@
+package com.deepmodi.app.bench;
+
+import com.deepmodi.app.dao.UserDao;
+import com.deepmodi.app.model.User;
+import com.deepmodi.app.util.AppLogger;
+import com.deepmodi.app.util.DatabaseUtil;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.stream.LongStream;
+
+/**
+ * Prepares the PostgreSQL database the DAO benchmarks run against.
+ *
+ * The benchmarks use the normal application.properties, so point them at a local, throwaway database
+ * (e.g. {@code docker run -p 5432:5432 -e POSTGRES_PASSWORD=bench postgres:16}). Because setup
+ * truncates the users table, it refuses to run unless -Dbench.confirmTruncate=true is passed.
+ */
+final class BenchmarkDatabase {
+    static final String CONFIRM_PROPERTY = "bench.confirmTruncate";
+
+    private BenchmarkDatabase() {
+    }
+
+    /**
+     * Silences DAO logging, creates the schema and empties the users table.
+     */
+    static void reset() throws SQLException {
+        if(!Boolean.getBoolean(CONFIRM_PROPERTY)){
+            throw new IllegalStateException("DAO benchmarks truncate the users table; pass -D"
+                    + CONFIRM_PROPERTY + "=true to run them against a throwaway database");
+        }
+        AppLogger.setMode(AppLogger.Mode.OFF);
+        DatabaseUtil.createUserTableIfNotExists();
+
+        try(Connection connection = DatabaseUtil.getConnection();
+            Statement statement = connection.createStatement()){
+            statement.executeUpdate("TRUNCATE users RESTART IDENTITY");
+            connection.commit();
+        }
+    }
+
+    /**
+     * Inserts rowCount users with ids 1..rowCount (the identity is restarted by {@link #reset()}).
+     */
+    static void seed(int rowCount){
+        UserDao dao = new UserDao(null);
+        dao.bulkLoadUsers(LongStream.rangeClosed(1, rowCount)
+                .mapToObj(i -> new User("First" + i, "Last" + i, "seed" + i + "@example.com"))
+                .iterator(), 50_000);
+    }
+}
@@ -0,0 +1,33 @@
+package com.deepmodi.app.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of target/benchmarks.jar. Runs the benchmarks matching the first argument
+ * (a regex, default: all) with the GC profiler, so results include bytes allocated per operation.
+ * <pre>
+ * mvn -Pbench package
+ * java -Dbench.confirmTruncate=true -jar target/benchmarks.jar                 # everything
+ * java -jar target/benchmarks.jar RowMapperBenchmark                           # no database needed
+ * </pre>
+ * For the full JMH command line use {@code java -cp target/benchmarks.jar org.openjdk.jmh.Main}.
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException {
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .include(args.length > 0 ? args[0] : ".*")
+                .addProfiler(GCProfiler.class);
+
+        // Forked benchmark JVMs do not inherit system properties
+        if(Boolean.getBoolean(BenchmarkDatabase.CONFIRM_PROPERTY)){
+            options.jvmArgsAppend("-D" + BenchmarkDatabase.CONFIRM_PROPERTY + "=true");
+        }
+
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,60 @@
+package com.deepmodi.app.bench;
+
+import com.deepmodi.app.config.DatabaseConfig;
+import com.deepmodi.app.util.AppLogger;
+import com.deepmodi.app.util.DatabaseUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of DatabaseUtil.getConnection() (pooled borrow + return) against opening a physical connection.
+ * Does not modify any data.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConnectionBenchmark {
+
+    @Setup
+    public void setUp() throws SQLException {
+        AppLogger.setMode(AppLogger.Mode.OFF);
+        DatabaseUtil.getDataSource().fillToMinimumIdle();
+    }
+
+    @TearDown
+    public void tearDown() {
+        DatabaseUtil.shutdown();
+    }
+
+    @Benchmark
+    public boolean getConnection() throws SQLException {
+        try(Connection connection = DatabaseUtil.getConnection()){
+            return connection.getAutoCommit();
+        }
+    }
+
+    @Benchmark
+    public boolean openPhysicalConnection() throws SQLException {
+        DatabaseConfig config = DatabaseConfig.getInstance();
+        try(Connection connection = DriverManager.getConnection(config.getUrl(), config.getUsername(), config.getPassword())){
+            return connection.getAutoCommit();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.deepmodi.app.bench;
+
+import com.deepmodi.app.dao.UserDao;
+import com.deepmodi.app.model.User;
+import com.deepmodi.app.util.DatabaseUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Insert paths of UserDao. Every inserted user gets a fresh email so no call hits the unique constraint.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserWriteBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int batchSize;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private UserDao userDao;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        BenchmarkDatabase.reset();
+        userDao = new UserDao(null);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        DatabaseUtil.shutdown();
+    }
+
+    private User nextUser() {
+        long n = sequence.incrementAndGet();
+        return new User("Bench", "User" + n, "bench" + n + "@example.com");
+    }
+
+    /**
+     * Independent of batchSize; reported once per batchSize value.
+     */
+    @Benchmark
+    public User createUser() {
+        return userDao.createUser(nextUser());
+    }
+
+    @Benchmark
+    public boolean createUsersInTransaction() {
+        List<User> users = new ArrayList<>(batchSize);
+        for(int i = 0; i < batchSize; i++){
+            users.add(nextUser());
+        }
+        return userDao.createUsersInTransaction(users);
+    }
+}
@@ -0,0 +1,146 @@
+package com.deepmodi.app.dao;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Embedded stand-in for a users ResultSet, so the row mapper can be benchmarked without a database.
+ * Values are kept the way the driver receives them in text mode (UTF-8 bytes and timestamp text)
+ * and decoded on every access, so per-row allocation resembles the real driver.
+ */
+final class InMemoryUsersResultSet extends ResultSetStub {
+    private static final String[] COLUMNS = {"id", "first_name", "last_name", "email", "created_at", "updated_at"};
+
+    private final Map<String, Integer> columnIndexes = new HashMap<>();
+    private final byte[][][] rows;
+    private int cursor = -1;
+    private boolean lastWasNull;
+
+    InMemoryUsersResultSet(int rowCount) {
+        for(int i = 0; i < COLUMNS.length; i++){
+            columnIndexes.put(COLUMNS[i], i + 1);
+        }
+        rows = new byte[rowCount][][];
+        for(int i = 0; i < rowCount; i++){
+            String timestamp = "2024-03-" + String.format("%02d", 1 + i % 28) + " 10:15:30.123456";
+            rows[i] = new byte[][]{
+                    bytes(String.valueOf(i + 1)),
+                    bytes("First" + (i % 500)),
+                    bytes("Last" + (i % 1000)),
+                    bytes("user" + i + "@example.com"),
+                    bytes(timestamp),
+                    i % 3 == 0 ? null : bytes(timestamp)
+            };
+        }
+    }
+
+    @Override
+    public void beforeFirst(){
+        cursor = -1;
+    }
+
+    int size(){
+        return rows.length;
+    }
+
+    private static byte[] bytes(String value){
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private String text(int columnIndex){
+        byte[] value = rows[cursor][columnIndex - 1];
+        lastWasNull = value == null;
+        return value == null ? null : new String(value, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public boolean next() {
+        return ++cursor < rows.length;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public boolean wasNull() {
+        return lastWasNull;
+    }
+
+    @Override
+    public int findColumn(String columnLabel) throws SQLException {
+        Integer index = columnIndexes.get(columnLabel);
+        if(index == null){
+            throw new SQLException("Unknown column " + columnLabel);
+        }
+        return index;
+    }
+
+    @Override
+    public long getLong(int columnIndex) {
+        String value = text(columnIndex);
+        return value == null ? 0 : Long.parseLong(value);
+    }
+
+    @Override
+    public long getLong(String columnLabel) throws SQLException {
+        return getLong(findColumn(columnLabel));
+    }
+
+    @Override
+    public String getString(int columnIndex) {
+        return text(columnIndex);
+    }
+
+    @Override
+    public String getString(String columnLabel) throws SQLException {
+        return getString(findColumn(columnLabel));
+    }
+
+    /**
+     * Hand-rolled "yyyy-MM-dd HH:mm:ss.SSSSSS" parser, like the driver's own timestamp parsing.
+     */
+    private static LocalDateTime parseTimestamp(String value){
+        int nanos = 0;
+        if(value.length() > 20){
+            nanos = Integer.parseInt(value, 20, value.length(), 10) * 1_000;
+        }
+        return LocalDateTime.of(
+                Integer.parseInt(value, 0, 4, 10),
+                Integer.parseInt(value, 5, 7, 10),
+                Integer.parseInt(value, 8, 10, 10),
+                Integer.parseInt(value, 11, 13, 10),
+                Integer.parseInt(value, 14, 16, 10),
+                Integer.parseInt(value, 17, 19, 10),
+                nanos);
+    }
+
+    @Override
+    public Timestamp getTimestamp(int columnIndex) {
+        String value = text(columnIndex);
+        return value == null ? null : Timestamp.valueOf(parseTimestamp(value));
+    }
+
+    @Override
+    public Timestamp getTimestamp(String columnLabel) throws SQLException {
+        return getTimestamp(findColumn(columnLabel));
+    }
+
+    @Override
+    public <T> T getObject(int columnIndex, Class<T> type) throws SQLException {
+        if(type != LocalDateTime.class){
+            throw unsupported("getObject(" + type.getSimpleName() + ")");
+        }
+        String value = text(columnIndex);
+        return value == null ? null : type.cast(parseTimestamp(value));
+    }
+
+    @Override
+    public <T> T getObject(String columnLabel, Class<T> type) throws SQLException {
+        return getObject(findColumn(columnLabel), type);
+    }
+}
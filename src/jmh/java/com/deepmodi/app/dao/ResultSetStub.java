@@ -0,0 +1,229 @@
+package com.deepmodi.app.dao;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Date;
+import java.sql.NClob;
+import java.sql.Ref;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.RowId;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLWarning;
+import java.sql.SQLXML;
+import java.sql.Statement;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Calendar;
+import java.util.Map;
+
+/**
+ * Base for in-memory ResultSet stand-ins used by the benchmarks: every method throws,
+ * subclasses override the handful they serve. A real class (rather than a dynamic proxy)
+ * keeps reflection and argument arrays out of the measured allocation rate.
+ */
+@SuppressWarnings("deprecation")
+abstract class ResultSetStub implements ResultSet {
+
+    protected static SQLException unsupported(String method){
+        return new SQLFeatureNotSupportedException(method + " is not supported by this stand-in");
+    }
+
+    public boolean next() throws SQLException { throw unsupported("next"); }
+    public void close() throws SQLException { throw unsupported("close"); }
+    public boolean wasNull() throws SQLException { throw unsupported("wasNull"); }
+    public String getString(int columnIndex) throws SQLException { throw unsupported("getString"); }
+    public boolean getBoolean(int columnIndex) throws SQLException { throw unsupported("getBoolean"); }
+    public byte getByte(int columnIndex) throws SQLException { throw unsupported("getByte"); }
+    public short getShort(int columnIndex) throws SQLException { throw unsupported("getShort"); }
+    public int getInt(int columnIndex) throws SQLException { throw unsupported("getInt"); }
+    public long getLong(int columnIndex) throws SQLException { throw unsupported("getLong"); }
+    public float getFloat(int columnIndex) throws SQLException { throw unsupported("getFloat"); }
+    public double getDouble(int columnIndex) throws SQLException { throw unsupported("getDouble"); }
+    public BigDecimal getBigDecimal(int columnIndex, int p1) throws SQLException { throw unsupported("getBigDecimal"); }
+    public byte[] getBytes(int columnIndex) throws SQLException { throw unsupported("getBytes"); }
+    public Date getDate(int columnIndex) throws SQLException { throw unsupported("getDate"); }
+    public Time getTime(int columnIndex) throws SQLException { throw unsupported("getTime"); }
+    public Timestamp getTimestamp(int columnIndex) throws SQLException { throw unsupported("getTimestamp"); }
+    public InputStream getAsciiStream(int columnIndex) throws SQLException { throw unsupported("getAsciiStream"); }
+    public InputStream getUnicodeStream(int columnIndex) throws SQLException { throw unsupported("getUnicodeStream"); }
+    public InputStream getBinaryStream(int columnIndex) throws SQLException { throw unsupported("getBinaryStream"); }
+    public String getString(String columnLabel) throws SQLException { throw unsupported("getString"); }
+    public boolean getBoolean(String columnLabel) throws SQLException { throw unsupported("getBoolean"); }
+    public byte getByte(String columnLabel) throws SQLException { throw unsupported("getByte"); }
+    public short getShort(String columnLabel) throws SQLException { throw unsupported("getShort"); }
+    public int getInt(String columnLabel) throws SQLException { throw unsupported("getInt"); }
+    public long getLong(String columnLabel) throws SQLException { throw unsupported("getLong"); }
+    public float getFloat(String columnLabel) throws SQLException { throw unsupported("getFloat"); }
+    public double getDouble(String columnLabel) throws SQLException { throw unsupported("getDouble"); }
+    public BigDecimal getBigDecimal(String columnLabel, int p1) throws SQLException { throw unsupported("getBigDecimal"); }
+    public byte[] getBytes(String columnLabel) throws SQLException { throw unsupported("getBytes"); }
+    public Date getDate(String columnLabel) throws SQLException { throw unsupported("getDate"); }
+    public Time getTime(String columnLabel) throws SQLException { throw unsupported("getTime"); }
+    public Timestamp getTimestamp(String columnLabel) throws SQLException { throw unsupported("getTimestamp"); }
+    public InputStream getAsciiStream(String columnLabel) throws SQLException { throw unsupported("getAsciiStream"); }
+    public InputStream getUnicodeStream(String columnLabel) throws SQLException { throw unsupported("getUnicodeStream"); }
+    public InputStream getBinaryStream(String columnLabel) throws SQLException { throw unsupported("getBinaryStream"); }
+    public SQLWarning getWarnings() throws SQLException { throw unsupported("getWarnings"); }
+    public void clearWarnings() throws SQLException { throw unsupported("clearWarnings"); }
+    public String getCursorName() throws SQLException { throw unsupported("getCursorName"); }
+    public ResultSetMetaData getMetaData() throws SQLException { throw unsupported("getMetaData"); }
+    public Object getObject(int columnIndex) throws SQLException { throw unsupported("getObject"); }
+    public Object getObject(String columnLabel) throws SQLException { throw unsupported("getObject"); }
+    public int findColumn(String columnLabel) throws SQLException { throw unsupported("findColumn"); }
+    public Reader getCharacterStream(int columnIndex) throws SQLException { throw unsupported("getCharacterStream"); }
+    public Reader getCharacterStream(String columnLabel) throws SQLException { throw unsupported("getCharacterStream"); }
+    public BigDecimal getBigDecimal(int columnIndex) throws SQLException { throw unsupported("getBigDecimal"); }
+    public BigDecimal getBigDecimal(String columnLabel) throws SQLException { throw unsupported("getBigDecimal"); }
+    public boolean isBeforeFirst() throws SQLException { throw unsupported("isBeforeFirst"); }
+    public boolean isAfterLast() throws SQLException { throw unsupported("isAfterLast"); }
+    public boolean isFirst() throws SQLException { throw unsupported("isFirst"); }
+    public boolean isLast() throws SQLException { throw unsupported("isLast"); }
+    public void beforeFirst() throws SQLException { throw unsupported("beforeFirst"); }
+    public void afterLast() throws SQLException { throw unsupported("afterLast"); }
+    public boolean first() throws SQLException { throw unsupported("first"); }
+    public boolean last() throws SQLException { throw unsupported("last"); }
+    public int getRow() throws SQLException { throw unsupported("getRow"); }
+    public boolean absolute(int columnIndex) throws SQLException { throw unsupported("absolute"); }
+    public boolean relative(int columnIndex) throws SQLException { throw unsupported("relative"); }
+    public boolean previous() throws SQLException { throw unsupported("previous"); }
+    public void setFetchDirection(int columnIndex) throws SQLException { throw unsupported("setFetchDirection"); }
+    public int getFetchDirection() throws SQLException { throw unsupported("getFetchDirection"); }
+    public void setFetchSize(int columnIndex) throws SQLException { throw unsupported("setFetchSize"); }
+    public int getFetchSize() throws SQLException { throw unsupported("getFetchSize"); }
+    public int getType() throws SQLException { throw unsupported("getType"); }
+    public int getConcurrency() throws SQLException { throw unsupported("getConcurrency"); }
+    public boolean rowUpdated() throws SQLException { throw unsupported("rowUpdated"); }
+    public boolean rowInserted() throws SQLException { throw unsupported("rowInserted"); }
+    public boolean rowDeleted() throws SQLException { throw unsupported("rowDeleted"); }
+    public void updateNull(int columnIndex) throws SQLException { throw unsupported("updateNull"); }
+    public void updateBoolean(int columnIndex, boolean p1) throws SQLException { throw unsupported("updateBoolean"); }
+    public void updateByte(int columnIndex, byte p1) throws SQLException { throw unsupported("updateByte"); }
+    public void updateShort(int columnIndex, short p1) throws SQLException { throw unsupported("updateShort"); }
+    public void updateInt(int columnIndex, int p1) throws SQLException { throw unsupported("updateInt"); }
+    public void updateLong(int columnIndex, long p1) throws SQLException { throw unsupported("updateLong"); }
+    public void updateFloat(int columnIndex, float p1) throws SQLException { throw unsupported("updateFloat"); }
+    public void updateDouble(int columnIndex, double p1) throws SQLException { throw unsupported("updateDouble"); }
+    public void updateBigDecimal(int columnIndex, BigDecimal p1) throws SQLException { throw unsupported("updateBigDecimal"); }
+    public void updateString(int columnIndex, String p1) throws SQLException { throw unsupported("updateString"); }
+    public void updateBytes(int columnIndex, byte[] p1) throws SQLException { throw unsupported("updateBytes"); }
+    public void updateDate(int columnIndex, Date p1) throws SQLException { throw unsupported("updateDate"); }
+    public void updateTime(int columnIndex, Time p1) throws SQLException { throw unsupported("updateTime"); }
+    public void updateTimestamp(int columnIndex, Timestamp p1) throws SQLException { throw unsupported("updateTimestamp"); }
+    public void updateAsciiStream(int columnIndex, InputStream p1, int p2) throws SQLException { throw unsupported("updateAsciiStream"); }
+    public void updateBinaryStream(int columnIndex, InputStream p1, int p2) throws SQLException { throw unsupported("updateBinaryStream"); }
+    public void updateCharacterStream(int columnIndex, Reader p1, int p2) throws SQLException { throw unsupported("updateCharacterStream"); }
+    public void updateObject(int columnIndex, Object p1, int p2) throws SQLException { throw unsupported("updateObject"); }
+    public void updateObject(int columnIndex, Object p1) throws SQLException { throw unsupported("updateObject"); }
+    public void updateNull(String columnLabel) throws SQLException { throw unsupported("updateNull"); }
+    public void updateBoolean(String columnLabel, boolean p1) throws SQLException { throw unsupported("updateBoolean"); }
+    public void updateByte(String columnLabel, byte p1) throws SQLException { throw unsupported("updateByte"); }
+    public void updateShort(String columnLabel, short p1) throws SQLException { throw unsupported("updateShort"); }
+    public void updateInt(String columnLabel, int p1) throws SQLException { throw unsupported("updateInt"); }
+    public void updateLong(String columnLabel, long p1) throws SQLException { throw unsupported("updateLong"); }
+    public void updateFloat(String columnLabel, float p1) throws SQLException { throw unsupported("updateFloat"); }
+    public void updateDouble(String columnLabel, double p1) throws SQLException { throw unsupported("updateDouble"); }
+    public void updateBigDecimal(String columnLabel, BigDecimal p1) throws SQLException { throw unsupported("updateBigDecimal"); }
+    public void updateString(String columnLabel, String p1) throws SQLException { throw unsupported("updateString"); }
+    public void updateBytes(String columnLabel, byte[] p1) throws SQLException { throw unsupported("updateBytes"); }
+    public void updateDate(String columnLabel, Date p1) throws SQLException { throw unsupported("updateDate"); }
+    public void updateTime(String columnLabel, Time p1) throws SQLException { throw unsupported("updateTime"); }
+    public void updateTimestamp(String columnLabel, Timestamp p1) throws SQLException { throw unsupported("updateTimestamp"); }
+    public void updateAsciiStream(String columnLabel, InputStream p1, int p2) throws SQLException { throw unsupported("updateAsciiStream"); }
+    public void updateBinaryStream(String columnLabel, InputStream p1, int p2) throws SQLException { throw unsupported("updateBinaryStream"); }
+    public void updateCharacterStream(String columnLabel, Reader p1, int p2) throws SQLException { throw unsupported("updateCharacterStream"); }
+    public void updateObject(String columnLabel, Object p1, int p2) throws SQLException { throw unsupported("updateObject"); }
+    public void updateObject(String columnLabel, Object p1) throws SQLException { throw unsupported("updateObject"); }
+    public void insertRow() throws SQLException { throw unsupported("insertRow"); }
+    public void updateRow() throws SQLException { throw unsupported("updateRow"); }
+    public void deleteRow() throws SQLException { throw unsupported("deleteRow"); }
+    public void refreshRow() throws SQLException { throw unsupported("refreshRow"); }
+    public void cancelRowUpdates() throws SQLException { throw unsupported("cancelRowUpdates"); }
+    public void moveToInsertRow() throws SQLException { throw unsupported("moveToInsertRow"); }
+    public void moveToCurrentRow() throws SQLException { throw unsupported("moveToCurrentRow"); }
+    public Statement getStatement() throws SQLException { throw unsupported("getStatement"); }
+    public Object getObject(int columnIndex, Map<String, Class<?>> p1) throws SQLException { throw unsupported("getObject"); }
+    public Ref getRef(int columnIndex) throws SQLException { throw unsupported("getRef"); }
+    public Blob getBlob(int columnIndex) throws SQLException { throw unsupported("getBlob"); }
+    public Clob getClob(int columnIndex) throws SQLException { throw unsupported("getClob"); }
+    public Array getArray(int columnIndex) throws SQLException { throw unsupported("getArray"); }
+    public Object getObject(String columnLabel, Map<String, Class<?>> p1) throws SQLException { throw unsupported("getObject"); }
+    public Ref getRef(String columnLabel) throws SQLException { throw unsupported("getRef"); }
+    public Blob getBlob(String columnLabel) throws SQLException { throw unsupported("getBlob"); }
+    public Clob getClob(String columnLabel) throws SQLException { throw unsupported("getClob"); }
+    public Array getArray(String columnLabel) throws SQLException { throw unsupported("getArray"); }
+    public Date getDate(int columnIndex, Calendar p1) throws SQLException { throw unsupported("getDate"); }
+    public Date getDate(String columnLabel, Calendar p1) throws SQLException { throw unsupported("getDate"); }
+    public Time getTime(int columnIndex, Calendar p1) throws SQLException { throw unsupported("getTime"); }
+    public Time getTime(String columnLabel, Calendar p1) throws SQLException { throw unsupported("getTime"); }
+    public Timestamp getTimestamp(int columnIndex, Calendar p1) throws SQLException { throw unsupported("getTimestamp"); }
+    public Timestamp getTimestamp(String columnLabel, Calendar p1) throws SQLException { throw unsupported("getTimestamp"); }
+    public URL getURL(int columnIndex) throws SQLException { throw unsupported("getURL"); }
+    public URL getURL(String columnLabel) throws SQLException { throw unsupported("getURL"); }
+    public void updateRef(int columnIndex, Ref p1) throws SQLException { throw unsupported("updateRef"); }
+    public void updateRef(String columnLabel, Ref p1) throws SQLException { throw unsupported("updateRef"); }
+    public void updateBlob(int columnIndex, Blob p1) throws SQLException { throw unsupported("updateBlob"); }
+    public void updateBlob(String columnLabel, Blob p1) throws SQLException { throw unsupported("updateBlob"); }
+    public void updateClob(int columnIndex, Clob p1) throws SQLException { throw unsupported("updateClob"); }
+    public void updateClob(String columnLabel, Clob p1) throws SQLException { throw unsupported("updateClob"); }
+    public void updateArray(int columnIndex, Array p1) throws SQLException { throw unsupported("updateArray"); }
+    public void updateArray(String columnLabel, Array p1) throws SQLException { throw unsupported("updateArray"); }
+    public RowId getRowId(int columnIndex) throws SQLException { throw unsupported("getRowId"); }
+    public RowId getRowId(String columnLabel) throws SQLException { throw unsupported("getRowId"); }
+    public void updateRowId(int columnIndex, RowId p1) throws SQLException { throw unsupported("updateRowId"); }
+    public void updateRowId(String columnLabel, RowId p1) throws SQLException { throw unsupported("updateRowId"); }
+    public int getHoldability() throws SQLException { throw unsupported("getHoldability"); }
+    public boolean isClosed() throws SQLException { throw unsupported("isClosed"); }
+    public void updateNString(int columnIndex, String p1) throws SQLException { throw unsupported("updateNString"); }
+    public void updateNString(String columnLabel, String p1) throws SQLException { throw unsupported("updateNString"); }
+    public void updateNClob(int columnIndex, NClob p1) throws SQLException { throw unsupported("updateNClob"); }
+    public void updateNClob(String columnLabel, NClob p1) throws SQLException { throw unsupported("updateNClob"); }
+    public NClob getNClob(int columnIndex) throws SQLException { throw unsupported("getNClob"); }
+    public NClob getNClob(String columnLabel) throws SQLException { throw unsupported("getNClob"); }
+    public SQLXML getSQLXML(int columnIndex) throws SQLException { throw unsupported("getSQLXML"); }
+    public SQLXML getSQLXML(String columnLabel) throws SQLException { throw unsupported("getSQLXML"); }
+    public void updateSQLXML(int columnIndex, SQLXML p1) throws SQLException { throw unsupported("updateSQLXML"); }
+    public void updateSQLXML(String columnLabel, SQLXML p1) throws SQLException { throw unsupported("updateSQLXML"); }
+    public String getNString(int columnIndex) throws SQLException { throw unsupported("getNString"); }
+    public String getNString(String columnLabel) throws SQLException { throw unsupported("getNString"); }
+    public Reader getNCharacterStream(int columnIndex) throws SQLException { throw unsupported("getNCharacterStream"); }
+    public Reader getNCharacterStream(String columnLabel) throws SQLException { throw unsupported("getNCharacterStream"); }
+    public void updateNCharacterStream(int columnIndex, Reader p1, long p2) throws SQLException { throw unsupported("updateNCharacterStream"); }
+    public void updateNCharacterStream(String columnLabel, Reader p1, long p2) throws SQLException { throw unsupported("updateNCharacterStream"); }
+    public void updateAsciiStream(int columnIndex, InputStream p1, long p2) throws SQLException { throw unsupported("updateAsciiStream"); }
+    public void updateBinaryStream(int columnIndex, InputStream p1, long p2) throws SQLException { throw unsupported("updateBinaryStream"); }
+    public void updateCharacterStream(int columnIndex, Reader p1, long p2) throws SQLException { throw unsupported("updateCharacterStream"); }
+    public void updateAsciiStream(String columnLabel, InputStream p1, long p2) throws SQLException { throw unsupported("updateAsciiStream"); }
+    public void updateBinaryStream(String columnLabel, InputStream p1, long p2) throws SQLException { throw unsupported("updateBinaryStream"); }
+    public void updateCharacterStream(String columnLabel, Reader p1, long p2) throws SQLException { throw unsupported("updateCharacterStream"); }
+    public void updateBlob(int columnIndex, InputStream p1, long p2) throws SQLException { throw unsupported("updateBlob"); }
+    public void updateBlob(String columnLabel, InputStream p1, long p2) throws SQLException { throw unsupported("updateBlob"); }
+    public void updateClob(int columnIndex, Reader p1, long p2) throws SQLException { throw unsupported("updateClob"); }
+    public void updateClob(String columnLabel, Reader p1, long p2) throws SQLException { throw unsupported("updateClob"); }
+    public void updateNClob(int columnIndex, Reader p1, long p2) throws SQLException { throw unsupported("updateNClob"); }
+    public void updateNClob(String columnLabel, Reader p1, long p2) throws SQLException { throw unsupported("updateNClob"); }
+    public void updateNCharacterStream(int columnIndex, Reader p1) throws SQLException { throw unsupported("updateNCharacterStream"); }
+    public void updateNCharacterStream(String columnLabel, Reader p1) throws SQLException { throw unsupported("updateNCharacterStream"); }
+    public void updateAsciiStream(int columnIndex, InputStream p1) throws SQLException { throw unsupported("updateAsciiStream"); }
+    public void updateBinaryStream(int columnIndex, InputStream p1) throws SQLException { throw unsupported("updateBinaryStream"); }
+    public void updateCharacterStream(int columnIndex, Reader p1) throws SQLException { throw unsupported("updateCharacterStream"); }
+    public void updateAsciiStream(String columnLabel, InputStream p1) throws SQLException { throw unsupported("updateAsciiStream"); }
+    public void updateBinaryStream(String columnLabel, InputStream p1) throws SQLException { throw unsupported("updateBinaryStream"); }
+    public void updateCharacterStream(String columnLabel, Reader p1) throws SQLException { throw unsupported("updateCharacterStream"); }
+    public void updateBlob(int columnIndex, InputStream p1) throws SQLException { throw unsupported("updateBlob"); }
+    public void updateBlob(String columnLabel, InputStream p1) throws SQLException { throw unsupported("updateBlob"); }
+    public void updateClob(int columnIndex, Reader p1) throws SQLException { throw unsupported("updateClob"); }
+    public void updateClob(String columnLabel, Reader p1) throws SQLException { throw unsupported("updateClob"); }
+    public void updateNClob(int columnIndex, Reader p1) throws SQLException { throw unsupported("updateNClob"); }
+    public void updateNClob(String columnLabel, Reader p1) throws SQLException { throw unsupported("updateNClob"); }
+    public <T> T getObject(int columnIndex, Class<T> p1) throws SQLException { throw unsupported("getObject"); }
+    public <T> T getObject(String columnLabel, Class<T> p1) throws SQLException { throw unsupported("getObject"); }
+    public <T> T unwrap(Class<T> p0) throws SQLException { throw unsupported("unwrap"); }
+    public boolean isWrapperFor(Class<?> p0) throws SQLException { throw unsupported("isWrapperFor"); }
+}
@@ -0,0 +1,97 @@
+package com.deepmodi.app.dao;
+
+import com.deepmodi.app.model.User;
+import com.deepmodi.app.model.UserRow;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Row mapping cost per row, measured against an in-memory ResultSet (no database needed).
+ * Run with the GC profiler (the default in BenchmarkRunner) to see bytes allocated per row.
+ *
+ * byName is the original per-row mapping (column lookup by name, Timestamp then LocalDateTime,
+ * setters), kept here as the baseline for {@link UserRowMapper}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RowMapperBenchmark {
+    private static final int ROWS = 1_000;
+
+    private InMemoryUsersResultSet resultSet;
+    private final UserRow reusableRow = new UserRow();
+
+    @Setup
+    public void setUp() {
+        resultSet = new InMemoryUsersResultSet(ROWS);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void byName(Blackhole blackhole) throws SQLException {
+        resultSet.beforeFirst();
+        while(resultSet.next()){
+            blackhole.consume(mapByName(resultSet));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void compiledMapper(Blackhole blackhole) throws SQLException {
+        resultSet.beforeFirst();
+        UserRowMapper mapper = new UserRowMapper();
+        while(resultSet.next()){
+            blackhole.consume(mapper.mapRow(resultSet));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void compiledMapperReusableRow(Blackhole blackhole) throws SQLException {
+        resultSet.beforeFirst();
+        UserRowMapper mapper = new UserRowMapper();
+        while(resultSet.next()){
+            mapper.mapInto(resultSet, reusableRow);
+            blackhole.consume(reusableRow.getId());
+        }
+    }
+
+    private static User mapByName(ResultSet resultSet) throws SQLException {
+        User user = new User();
+
+        user.setId(resultSet.getLong("id"));
+        user.setFirstName(resultSet.getString("first_name"));
+        user.setLastName(resultSet.getString("last_name"));
+        user.setEmail(resultSet.getString("email"));
+
+        Timestamp createdAtTimestamp = resultSet.getTimestamp("created_at");
+        if(createdAtTimestamp != null){
+            user.setCreatedAt(createdAtTimestamp.toLocalDateTime());
+        }
+
+        Timestamp updatedAtTimestamp = resultSet.getTimestamp("updated_at");
+        if(updatedAtTimestamp != null){
+            user.setUpdatedAt(updatedAtTimestamp.toLocalDateTime());
+        }
+
+        return user;
+    }
+}
@@ -1,11 +1,19 @@
 package com.deepmodi.app;
 
+import com.deepmodi.app.cache.CacheInvalidationBus;
+import com.deepmodi.app.config.DatabaseConfig;
 import com.deepmodi.app.dao.UserDao;
+import com.deepmodi.app.metrics.DaoMetrics;
+import com.deepmodi.app.metrics.SlowQueryLog;
 import com.deepmodi.app.model.User;
+import com.deepmodi.app.util.ConnectionPool;
 import com.deepmodi.app.util.DatabaseUtil;
+import com.deepmodi.app.util.ReplicaRouter;
 
+import java.sql.SQLException;
 import java.util.Optional;
 import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
 
 public class App {
 
@@ -17,18 +25,91 @@ public class App {
         // Step 1: Test Database Connectivity
         if(!DatabaseUtil.testConnection()){
             System.err.println("Cannot proceed without database connection. Please check your configuration.");
+            DatabaseUtil.shutdown();
             return;
         }
 
         // Step 2: Create table if it doesn't exist
         DatabaseUtil.createUserTableIfNotExists();
 
-        // Step 3: Run interative demo
+        // Step 3: Warm up pool, statements and cache so the first requests are not the slow ones
+        if(DatabaseConfig.getInstance().isWarmUpEnabled()){
+            warmUp();
+        }
+
+        // Step 4: Evict users changed by other instances from our cache
+        CacheInvalidationBus invalidationBus = null;
+        if(DatabaseConfig.getInstance().isCacheInvalidationEnabled() && userDao.getCache() != null){
+            invalidationBus = new CacheInvalidationBus(userDao.getCache());
+            invalidationBus.start();
+        }
+
+        // Step 5: Run interative demo
         runInteractiveDemo();
 
+        if(invalidationBus != null){
+            invalidationBus.close();
+        }
+        DaoMetrics.getInstance().printSummary();
+        if(DatabaseUtil.getAdmissionStats() != null){
+            System.out.println("  " + DatabaseUtil.getAdmissionStats());
+        }
+        if(SlowQueryLog.getInstance().getRecordedCount() > 0){
+            SlowQueryLog.getInstance().printSummary();
+        }
+        DatabaseUtil.shutdown();
         System.out.println("\n=== Application finished ===");
     }
 
+    /**
+     * Does the work the first requests would otherwise pay for: loading config and the JDBC driver,
+     * opening the pool's minimum connections, preparing every UserDao statement on each of them,
+     * doing the same with the read statements on each replica's pool and, if warmup.preloadUsers is
+     * set, caching the most recent users.
+     */
+    private static void warmUp(){
+        System.out.println("Warming up...");
+        long start = System.nanoTime();
+        try{
+            long phase = System.nanoTime();
+            DatabaseConfig config = DatabaseConfig.getInstance();
+            ConnectionPool pool = DatabaseUtil.getDataSource();
+            ReplicaRouter replicaRouter = DatabaseUtil.getReplicaRouter();
+            System.out.println("  Config, driver and pools ready in " + elapsedMs(phase) + "ms");
+
+            phase = System.nanoTime();
+            int opened = pool.fillToMinimumIdle();
+            System.out.println("  Opened " + opened + " connections (" + pool.getIdleConnections() + " idle) in "
+                    + elapsedMs(phase) + "ms");
+
+            phase = System.nanoTime();
+            int warmed = DatabaseUtil.forEachIdleConnection(userDao::prepareStatements);
+            System.out.println("  Prepared statements on " + warmed + " connections in " + elapsedMs(phase) + "ms");
+
+            // The hot lookups and searches go to the replicas when there are any
+            for(ConnectionPool replica : replicaRouter.getReplicaPools()){
+                phase = System.nanoTime();
+                opened = replica.fillToMinimumIdle();
+                warmed = DatabaseUtil.forEachIdleConnection(replica, userDao::prepareReadStatements);
+                System.out.println("  Replica " + replica.getUrl() + ": opened " + opened + " connections, prepared "
+                        + "statements on " + warmed + " in " + elapsedMs(phase) + "ms");
+            }
+
+            if(config.getWarmUpPreloadUsers() > 0){
+                phase = System.nanoTime();
+                int loaded = userDao.preloadCache(config.getWarmUpPreloadUsers());
+                System.out.println("  Cached " + loaded + " users in " + elapsedMs(phase) + "ms");
+            }
+            System.out.println("✓ Warm-up finished in " + elapsedMs(start) + "ms");
+        }catch (SQLException e){
+            System.out.println("⚠ Warm-up incomplete after " + elapsedMs(start) + "ms: " + e.getMessage());
+        }
+    }
+
+    private static long elapsedMs(long startNanos){
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
     private static void runInteractiveDemo(){
         while(true){
             printMenu();
@@ -0,0 +1,241 @@
+package com.deepmodi.app.cache;
+
+import com.deepmodi.app.config.DatabaseConfig;
+import com.deepmodi.app.util.AppLogger;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Properties;
+import java.util.UUID;
+
+/**
+ * Keeps the {@link UserCache}s of several application nodes consistent through PostgreSQL LISTEN/NOTIFY.
+ *
+ * Writers call {@link #publish} on their own connection right before committing, with every id and
+ * email the transaction touched. The keys go out as one NOTIFY per transaction (split only when they
+ * exceed the 8000 byte payload limit), and PostgreSQL delivers it only if the transaction commits.
+ *
+ * Each node runs one bus instance with a dedicated LISTEN connection outside the pool. Received keys
+ * are evicted from the local cache; a node's own messages are skipped since it already updated its
+ * cache. Notifications sent while the connection is down are lost, so on connection loss the whole
+ * cache is flushed, and flushed again once listening resumes.
+ *
+ * Payload: the sending node's id on the first line, then one key per line: i&lt;id&gt;, e&lt;email&gt;,
+ * or * for "flush everything".
+ */
+public class CacheInvalidationBus implements AutoCloseable {
+    private static final AppLogger log = AppLogger.getLogger(CacheInvalidationBus.class);
+
+    private static final String NODE_ID = UUID.randomUUID().toString();
+
+    // pg_notify rejects payloads of 8000 bytes or more
+    private static final int MAX_PAYLOAD_BYTES = 7_900;
+    private static final String FLUSH_ALL = "*";
+
+    private static final String NOTIFY_SQL = "SELECT pg_notify(?, payload) FROM unnest(?::text[]) AS payload";
+
+    private static final int WAIT_MS = 10_000;
+    private static final long MAX_RECONNECT_DELAY_MS = 30_000;
+
+    private static final DatabaseConfig config = DatabaseConfig.getInstance();
+
+    private final UserCache cache;
+    private final String channel;
+    private volatile boolean running;
+    private volatile Connection listenConnection;
+    private Thread listener;
+
+    public CacheInvalidationBus(UserCache cache) {
+        this.cache = cache;
+        this.channel = config.getCacheInvalidationChannel();
+    }
+
+    /**
+     * Queues invalidation of ids and emails on the connection's current transaction.
+     * Does nothing when cache.invalidation.enabled is false or there is nothing to send.
+     */
+    public static void publish(Connection connection, Collection<Long> ids, Collection<String> emails) throws SQLException {
+        if(!config.isCacheInvalidationEnabled() || (ids.isEmpty() && emails.isEmpty())){
+            return;
+        }
+        List<String> keys = new ArrayList<>(ids.size() + emails.size());
+        for(Long id : ids){
+            if(id != null){
+                keys.add("i" + id);
+            }
+        }
+        for(String email : emails){
+            if(email != null){
+                keys.add("e" + email);
+            }
+        }
+        send(connection, keys);
+    }
+
+    /**
+     * Tells every node to drop its whole cache once the transaction commits, for writes that touch
+     * too many rows to list (e.g. COPY).
+     */
+    public static void publishFlushAll(Connection connection) throws SQLException {
+        if(config.isCacheInvalidationEnabled()){
+            send(connection, List.of(FLUSH_ALL));
+        }
+    }
+
+    private static void send(Connection connection, List<String> keys) throws SQLException {
+        List<String> payloads = new ArrayList<>();
+        StringBuilder payload = new StringBuilder(NODE_ID);
+        int bytes = NODE_ID.length();
+        for(String key : keys){
+            int keyBytes = key.getBytes(StandardCharsets.UTF_8).length + 1;
+            if(bytes + keyBytes > MAX_PAYLOAD_BYTES && payload.length() > NODE_ID.length()){
+                payloads.add(payload.toString());
+                payload = new StringBuilder(NODE_ID);
+                bytes = NODE_ID.length();
+            }
+            payload.append('\n').append(key);
+            bytes += keyBytes;
+        }
+        payloads.add(payload.toString());
+
+        try(PreparedStatement statement = connection.prepareStatement(NOTIFY_SQL)){
+            statement.setString(1, config.getCacheInvalidationChannel());
+            statement.setArray(2, connection.createArrayOf("text", payloads.toArray()));
+            statement.execute();
+        }
+    }
+
+    /**
+     * Opens the LISTEN connection and starts evicting on a background thread.
+     */
+    public synchronized void start(){
+        if(running){
+            return;
+        }
+        running = true;
+        listener = new Thread(this::run, "user-cache-invalidation");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    private void run(){
+        long reconnectDelay = 1_000;
+        while(running){
+            try(Connection connection = openListenConnection()){
+                listenConnection = connection;
+                // Anything sent before LISTEN took effect was missed
+                cache.invalidateAll();
+                log.info("✓ Listening for cache invalidations on {}", channel);
+                reconnectDelay = 1_000;
+                listen(connection);
+            }catch (SQLException e){
+                if(!running){
+                    break;
+                }
+                cache.invalidateAll();
+                log.warn("⚠ Cache invalidation connection lost, cache flushed; reconnecting in {}ms: {}",
+                        reconnectDelay, e.getMessage());
+                sleep(reconnectDelay);
+                reconnectDelay = Math.min(reconnectDelay * 2, MAX_RECONNECT_DELAY_MS);
+            }finally {
+                listenConnection = null;
+            }
+        }
+    }
+
+    private Connection openListenConnection() throws SQLException {
+        Properties properties = new Properties();
+        if(config.getUsername() != null){
+            properties.setProperty("user", config.getUsername());
+        }
+        if(config.getPassword() != null){
+            properties.setProperty("password", config.getPassword());
+        }
+        Connection connection = DriverManager.getConnection(config.getUrl(), properties);
+        connection.setAutoCommit(true);
+        try(Statement statement = connection.createStatement()){
+            statement.execute("LISTEN \"" + channel.replace("\"", "\"\"") + "\"");
+        }
+        return connection;
+    }
+
+    private void listen(Connection connection) throws SQLException {
+        PGConnection pgConnection = connection.unwrap(PGConnection.class);
+        while(running){
+            PGNotification[] notifications = pgConnection.getNotifications(WAIT_MS);
+            if(notifications == null || notifications.length == 0){
+                // A dead socket does not always surface while waiting; probe it
+                if(running && !connection.isValid(5)){
+                    throw new SQLException("LISTEN connection is no longer valid", "08006");
+                }
+                continue;
+            }
+            for(PGNotification notification : notifications){
+                apply(notification.getParameter());
+            }
+        }
+    }
+
+    private void apply(String payload){
+        String[] lines = payload.split("\n");
+        if(lines.length == 0 || NODE_ID.equals(lines[0])){
+            return;
+        }
+        for(int i = 1; i < lines.length; i++){
+            String key = lines[i];
+            if(key.equals(FLUSH_ALL)){
+                cache.invalidateAll();
+                return;
+            }
+            if(key.startsWith("i")){
+                try{
+                    cache.invalidate(Long.parseLong(key.substring(1)));
+                }catch (NumberFormatException e){
+                    log.warn("⚠ Ignoring malformed invalidation key: {}", key);
+                }
+            }else if(key.startsWith("e")){
+                cache.invalidateEmail(key.substring(1));
+            }
+        }
+    }
+
+    private static void sleep(long millis){
+        try{
+            Thread.sleep(millis);
+        }catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if(!running){
+            return;
+        }
+        running = false;
+        Connection connection = listenConnection;
+        if(connection != null){
+            try{
+                // Also wakes the listener thread out of getNotifications
+                connection.close();
+            }catch (SQLException e){
+                log.warn("⚠ Error closing LISTEN connection: {}", e.getMessage());
+            }
+        }
+        try{
+            listener.join(WAIT_MS);
+        }catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+        log.info("✓ Cache invalidation listener stopped");
+    }
+}
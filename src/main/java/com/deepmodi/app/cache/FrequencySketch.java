@@ -0,0 +1,65 @@
+package com.deepmodi.app.cache;
+
+/**
+ * Count-min sketch estimating how often a key has been requested recently.
+ * Counters saturate at 15 and are halved once enough increments have been recorded,
+ * so old popularity fades out. Not thread-safe; {@link UserCache} guards it with its own lock.
+ */
+final class FrequencySketch {
+    private static final int DEPTH = 4;
+    private static final int MAX_COUNT = 15;
+    private static final long[] SEEDS = {
+            0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L
+    };
+
+    private final int[][] table;
+    private final int mask;
+    private final int sampleSize;
+    private int additions;
+
+    FrequencySketch(int expectedSize) {
+        int width = Integer.highestOneBit(Math.max(16, expectedSize) * 2 - 1);
+        this.table = new int[DEPTH][width];
+        this.mask = width - 1;
+        this.sampleSize = width * 10;
+    }
+
+    void increment(Object key){
+        int hash = key.hashCode();
+        boolean added = false;
+        for(int row = 0; row < DEPTH; row++){
+            int index = indexOf(hash, row);
+            if(table[row][index] < MAX_COUNT){
+                table[row][index]++;
+                added = true;
+            }
+        }
+        if(added && ++additions >= sampleSize){
+            reset();
+        }
+    }
+
+    int frequency(Object key){
+        int hash = key.hashCode();
+        int min = MAX_COUNT;
+        for(int row = 0; row < DEPTH; row++){
+            min = Math.min(min, table[row][indexOf(hash, row)]);
+        }
+        return min;
+    }
+
+    private int indexOf(int hash, int row){
+        long h = (hash + SEEDS[row]) * SEEDS[row];
+        h ^= h >>> 32;
+        return (int) h & mask;
+    }
+
+    private void reset(){
+        for(int[] row : table){
+            for(int i = 0; i < row.length; i++){
+                row[i] >>>= 1;
+            }
+        }
+        additions /= 2;
+    }
+}
@@ -0,0 +1,275 @@
+package com.deepmodi.app.cache;
+
+import com.deepmodi.app.config.DatabaseConfig;
+import com.deepmodi.app.model.User;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process read-through cache for users, keyed by id with a secondary email index.
+ *
+ * Eviction is LRU with a frequency-based admission filter: when the cache is full, a new user only
+ * replaces the least recently used one if it has been requested at least as often (TinyLFU style),
+ * so a burst of one-off lookups cannot flush the hot accounts.
+ * Misses are cached too (negative caching) with their own, shorter TTL.
+ *
+ * Users are copied on the way in and out because {@link User} is mutable.
+ */
+public class UserCache {
+
+    /**
+     * Result of a cache lookup: a cached user, a cached "does not exist", or nothing known.
+     */
+    public static final class Lookup {
+        public enum Status { HIT, NEGATIVE_HIT, MISS }
+
+        private static final Lookup MISS = new Lookup(Status.MISS, null);
+        private static final Lookup NEGATIVE = new Lookup(Status.NEGATIVE_HIT, null);
+
+        private final Status status;
+        private final User user;
+
+        private Lookup(Status status, User user) {
+            this.status = status;
+            this.user = user;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public boolean isMiss() {
+            return status == Status.MISS;
+        }
+
+        /**
+         * @return the cached user for a HIT, null otherwise
+         */
+        public User getUser() {
+            return user;
+        }
+    }
+
+    private static final class Entry {
+        private final User user;
+        private final long expiresAt;
+
+        private Entry(User user, long expiresAt) {
+            this.user = user;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final long negativeTtlNanos;
+
+    // Access-ordered: iteration starts at the least recently used entry
+    private final LinkedHashMap<Long, Entry> byId = new LinkedHashMap<>(64, 0.75f, true);
+    private final Map<String, Long> idByEmail = new HashMap<>();
+    private final Map<Long, Long> missingIds = new HashMap<>();
+    private final Map<String, Long> missingEmails = new HashMap<>();
+    private final FrequencySketch frequency;
+
+    private long hits;
+    private long negativeHits;
+    private long misses;
+    private long evictions;
+    private long rejections;
+
+    public UserCache(int maxSize, long ttl, long negativeTtl, TimeUnit unit) {
+        if(maxSize <= 0){
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        this.maxSize = maxSize;
+        this.ttlNanos = unit.toNanos(ttl);
+        this.negativeTtlNanos = unit.toNanos(negativeTtl);
+        this.frequency = new FrequencySketch(maxSize);
+    }
+
+    /**
+     * Creates the cache described by DatabaseConfig, or returns null when caching is disabled.
+     */
+    public static UserCache fromConfig(DatabaseConfig config){
+        if(!config.isCacheEnabled()){
+            return null;
+        }
+        return new UserCache(config.getCacheMaxSize(), config.getCacheTtlSeconds(),
+                config.getCacheNegativeTtlSeconds(), TimeUnit.SECONDS);
+    }
+
+    public synchronized Lookup getById(Long id){
+        long now = System.nanoTime();
+        frequency.increment(id);
+
+        Entry entry = byId.get(id);
+        if(entry != null){
+            if(entry.expiresAt - now > 0){
+                hits++;
+                return new Lookup(Lookup.Status.HIT, copyOf(entry.user));
+            }
+            removeEntry(id, entry);
+        }
+
+        Long missingUntil = missingIds.get(id);
+        if(missingUntil != null){
+            if(missingUntil - now > 0){
+                negativeHits++;
+                return Lookup.NEGATIVE;
+            }
+            missingIds.remove(id);
+        }
+
+        misses++;
+        return Lookup.MISS;
+    }
+
+    public synchronized Lookup getByEmail(String email){
+        long now = System.nanoTime();
+        Long id = idByEmail.get(email);
+        if(id != null){
+            frequency.increment(id);
+            Entry entry = byId.get(id);
+            if(entry != null && entry.expiresAt - now > 0){
+                hits++;
+                return new Lookup(Lookup.Status.HIT, copyOf(entry.user));
+            }
+            if(entry != null){
+                removeEntry(id, entry);
+            }
+        }
+
+        Long missingUntil = missingEmails.get(email);
+        if(missingUntil != null){
+            if(missingUntil - now > 0){
+                negativeHits++;
+                return Lookup.NEGATIVE;
+            }
+            missingEmails.remove(email);
+        }
+
+        misses++;
+        return Lookup.MISS;
+    }
+
+    /**
+     * Caches a user read from or written to the database. Ignored if the user has no id.
+     */
+    public synchronized void put(User user){
+        if(user == null || user.getId() == null){
+            return;
+        }
+        Long id = user.getId();
+        long now = System.nanoTime();
+
+        missingIds.remove(id);
+        if(user.getEmail() != null){
+            missingEmails.remove(user.getEmail());
+        }
+
+        Entry existing = byId.get(id);
+        if(existing != null){
+            removeEntry(id, existing);
+        }else if(byId.size() >= maxSize && !makeRoomFor(id, now)){
+            rejections++;
+            return;
+        }
+
+        byId.put(id, new Entry(copyOf(user), now + ttlNanos));
+        if(user.getEmail() != null){
+            idByEmail.put(user.getEmail(), id);
+        }
+    }
+
+    public synchronized void putMissingId(Long id){
+        evictIfFull(missingIds);
+        missingIds.put(id, System.nanoTime() + negativeTtlNanos);
+    }
+
+    public synchronized void putMissingEmail(String email){
+        evictIfFull(missingEmails);
+        missingEmails.put(email, System.nanoTime() + negativeTtlNanos);
+    }
+
+    /**
+     * Drops everything known about the id, including the email it was cached under.
+     */
+    public synchronized void invalidate(Long id){
+        Entry entry = byId.get(id);
+        if(entry != null){
+            removeEntry(id, entry);
+        }
+        missingIds.remove(id);
+    }
+
+    public synchronized void invalidateEmail(String email){
+        Long id = idByEmail.get(email);
+        if(id != null){
+            invalidate(id);
+        }
+        missingEmails.remove(email);
+    }
+
+    public synchronized void invalidateAll(){
+        byId.clear();
+        idByEmail.clear();
+        missingIds.clear();
+        missingEmails.clear();
+    }
+
+    public synchronized int size(){
+        return byId.size();
+    }
+
+    public synchronized UserCacheStats stats(){
+        return new UserCacheStats(hits, negativeHits, misses, evictions, rejections, byId.size());
+    }
+
+    /**
+     * Evicts expired entries or, failing that, the LRU victim if the candidate is requested at least as often.
+     */
+    private boolean makeRoomFor(Long candidate, long now){
+        Iterator<Map.Entry<Long, Entry>> iterator = byId.entrySet().iterator();
+        Map.Entry<Long, Entry> victim = iterator.next();
+
+        if(victim.getValue().expiresAt - now <= 0
+                || frequency.frequency(candidate) >= frequency.frequency(victim.getKey())){
+            iterator.remove();
+            removeEmailIndex(victim.getKey(), victim.getValue());
+            evictions++;
+            return true;
+        }
+        return false;
+    }
+
+    private void removeEntry(Long id, Entry entry){
+        byId.remove(id);
+        removeEmailIndex(id, entry);
+    }
+
+    private void removeEmailIndex(Long id, Entry entry){
+        String email = entry.user.getEmail();
+        if(email != null && id.equals(idByEmail.get(email))){
+            idByEmail.remove(email);
+        }
+    }
+
+    private <K> void evictIfFull(Map<K, Long> negativeEntries){
+        if(negativeEntries.size() >= maxSize){
+            long now = System.nanoTime();
+            negativeEntries.values().removeIf(expiresAt -> expiresAt - now <= 0);
+            if(negativeEntries.size() >= maxSize){
+                negativeEntries.clear();
+            }
+        }
+    }
+
+    static User copyOf(User user){
+        return new User(user.getId(), user.getFirstName(), user.getLastName(), user.getEmail(),
+                user.getCreatedAt(), user.getUpdatedAt());
+    }
+}
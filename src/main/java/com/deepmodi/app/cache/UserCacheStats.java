@@ -0,0 +1,25 @@
+package com.deepmodi.app.cache;
+
+/**
+ * Point-in-time counters of a {@link UserCache}.
+ */
+public record UserCacheStats(long hits, long negativeHits, long misses, long evictions, long rejections, int size) {
+
+    public long requests() {
+        return hits + negativeHits + misses;
+    }
+
+    /**
+     * @return share of lookups answered without a database round trip (positive and negative hits)
+     */
+    public double hitRate() {
+        long requests = requests();
+        return requests == 0 ? 0.0 : (double) (hits + negativeHits) / requests;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("UserCacheStats{hits=%d, negativeHits=%d, misses=%d, hitRate=%.2f%%, evictions=%d, rejections=%d, size=%d}",
+                hits, negativeHits, misses, hitRate() * 100, evictions, rejections, size);
+    }
+}
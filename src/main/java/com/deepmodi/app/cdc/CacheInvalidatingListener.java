@@ -0,0 +1,30 @@
+package com.deepmodi.app.cdc;
+
+import com.deepmodi.app.cache.UserCache;
+
+/**
+ * Keeps a {@link UserCache} in step with changes made anywhere, including other processes.
+ * Entries are dropped rather than overwritten, so an event that arrives after a newer value was
+ * cached cannot bring back stale data; the next lookup reads the current row.
+ */
+public class CacheInvalidatingListener implements UserChangeListener {
+    private final UserCache cache;
+
+    public CacheInvalidatingListener(UserCache cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    public void onChange(UserChangeEvent event) {
+        switch (event.getType()){
+            case TRUNCATE -> cache.invalidateAll();
+            case INSERT, UPDATE, DELETE -> {
+                // Also clears a cached "not found" for the id and the (new) email
+                cache.invalidate(event.getId());
+                if(event.getUser().getEmail() != null){
+                    cache.invalidateEmail(event.getUser().getEmail());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.deepmodi.app.cdc;
+
+import com.deepmodi.app.model.User;
+import org.postgresql.replication.LogSequenceNumber;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decodes pgoutput (protocol version 1) messages into {@link UserChangeEvent}s.
+ *
+ * Changes are held back until their transaction's Commit message, so listeners only ever see
+ * committed data and a whole transaction at once. Column positions come from the Relation message
+ * the server sends before the first change to a table (and again after its schema changes).
+ *
+ * Every Commit is reported, also for transactions that did not touch users (servers before
+ * PostgreSQL 15 send BEGIN/COMMIT for those too), so the caller can confirm its end LSN and the
+ * replication slot does not keep WAL for them.
+ */
+final class PgOutputDecoder {
+    private static final String USERS_TABLE = "users";
+
+    private record Relation(String name, String[] columns) {
+    }
+
+    private record Change(UserChangeEvent.Type type, User user) {
+    }
+
+    /**
+     * A decoded Commit message.
+     * @param endLsn end of the transaction's commit record, the position to confirm once it is delivered
+     * @param events the transaction's users changes in order, often none
+     */
+    record Commit(LogSequenceNumber endLsn, List<UserChangeEvent> events) {
+    }
+
+    private final Map<Integer, Relation> relations = new HashMap<>();
+    private final List<Change> pending = new ArrayList<>();
+    private boolean inTransaction;
+
+    /**
+     * @return the transaction when msg is its Commit, otherwise null
+     */
+    Commit decode(ByteBuffer msg){
+        char tag = (char) msg.get();
+        switch (tag){
+            case 'B' -> {
+                pending.clear();
+                inTransaction = true;
+            }
+            case 'R' -> readRelation(msg);
+            case 'I' -> {
+                Relation relation = relations.get(msg.getInt());
+                msg.get(); // 'N'
+                add(relation, UserChangeEvent.Type.INSERT, readTuple(msg, relation));
+            }
+            case 'U' -> {
+                Relation relation = relations.get(msg.getInt());
+                char kind = (char) msg.get();
+                if(kind == 'K' || kind == 'O'){
+                    // Old key or old row, sent when the key changed or with REPLICA IDENTITY FULL
+                    readTuple(msg, relation);
+                    msg.get(); // 'N'
+                }
+                add(relation, UserChangeEvent.Type.UPDATE, readTuple(msg, relation));
+            }
+            case 'D' -> {
+                Relation relation = relations.get(msg.getInt());
+                msg.get(); // 'K' or 'O'
+                add(relation, UserChangeEvent.Type.DELETE, readTuple(msg, relation));
+            }
+            case 'T' -> {
+                int count = msg.getInt();
+                msg.get(); // options
+                for(int i = 0; i < count; i++){
+                    Relation relation = relations.get(msg.getInt());
+                    add(relation, UserChangeEvent.Type.TRUNCATE, null);
+                }
+            }
+            case 'C' -> {
+                msg.get(); // flags
+                msg.getLong(); // commit LSN
+                LogSequenceNumber endLsn = LogSequenceNumber.valueOf(msg.getLong());
+                List<UserChangeEvent> events = new ArrayList<>(pending.size());
+                for(Change change : pending){
+                    events.add(new UserChangeEvent(change.type(), change.user(), endLsn));
+                }
+                pending.clear();
+                inTransaction = false;
+                return new Commit(endLsn, events);
+            }
+            default -> {
+                // Origin, Type and other messages carry nothing we need
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return true between a Begin and its Commit, when not everything received has been delivered
+     */
+    boolean isInTransaction(){
+        return inTransaction;
+    }
+
+    private void add(Relation relation, UserChangeEvent.Type type, User user){
+        if(relation != null && USERS_TABLE.equals(relation.name())){
+            pending.add(new Change(type, user));
+        }
+    }
+
+    private void readRelation(ByteBuffer msg){
+        int id = msg.getInt();
+        readString(msg); // namespace
+        String name = readString(msg);
+        msg.get(); // replica identity setting
+        short count = msg.getShort();
+        String[] columns = new String[count];
+        for(int i = 0; i < count; i++){
+            msg.get(); // flags
+            columns[i] = readString(msg);
+            msg.getInt(); // type oid
+            msg.getInt(); // type modifier
+        }
+        relations.put(id, new Relation(name, columns));
+    }
+
+    private static User readTuple(ByteBuffer msg, Relation relation){
+        short count = msg.getShort();
+        User user = new User();
+        for(int i = 0; i < count; i++){
+            char kind = (char) msg.get();
+            if(kind != 't'){
+                // 'n' is NULL, 'u' an unchanged TOASTed value that was not sent
+                continue;
+            }
+            byte[] bytes = new byte[msg.getInt()];
+            msg.get(bytes);
+            if(relation != null && i < relation.columns().length){
+                setColumn(user, relation.columns()[i], new String(bytes, StandardCharsets.UTF_8));
+            }
+        }
+        return user;
+    }
+
+    private static void setColumn(User user, String column, String value){
+        switch (column){
+            case "id" -> user.setId(Long.parseLong(value));
+            case "first_name" -> user.setFirstName(value);
+            case "last_name" -> user.setLastName(value);
+            case "email" -> user.setEmail(value);
+            case "created_at" -> user.setCreatedAt(parseTimestamp(value));
+            case "updated_at" -> user.setUpdatedAt(parseTimestamp(value));
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * Text output of a timestamp column, e.g. "2024-05-01 10:20:30.123456".
+     */
+    private static LocalDateTime parseTimestamp(String value){
+        try{
+            return LocalDateTime.parse(value.replace(' ', 'T'));
+        }catch (RuntimeException e){
+            // infinity, BC dates and the like have no LocalDateTime
+            return null;
+        }
+    }
+
+    private static String readString(ByteBuffer msg){
+        int start = msg.position();
+        int end = start;
+        while(msg.get(end) != 0){
+            end++;
+        }
+        String value = new String(msg.array(), msg.arrayOffset() + start, end - start, StandardCharsets.UTF_8);
+        msg.position(end + 1);
+        return value;
+    }
+}
@@ -0,0 +1,49 @@
+package com.deepmodi.app.cdc;
+
+import com.deepmodi.app.model.User;
+import org.postgresql.replication.LogSequenceNumber;
+
+/**
+ * One committed change to the users table, as decoded from the replication stream.
+ */
+public class UserChangeEvent {
+    public enum Type { INSERT, UPDATE, DELETE, TRUNCATE }
+
+    private final Type type;
+    private final User user;
+    private final LogSequenceNumber commitLsn;
+
+    public UserChangeEvent(Type type, User user, LogSequenceNumber commitLsn) {
+        this.type = type;
+        this.user = user;
+        this.commitLsn = commitLsn;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * @return the row after an INSERT or UPDATE; for a DELETE only the replica identity columns
+     * (the id, unless the table uses REPLICA IDENTITY FULL); null for TRUNCATE
+     */
+    public User getUser() {
+        return user;
+    }
+
+    public Long getId() {
+        return user != null ? user.getId() : null;
+    }
+
+    /**
+     * @return end LSN of the transaction that made the change
+     */
+    public LogSequenceNumber getCommitLsn() {
+        return commitLsn;
+    }
+
+    @Override
+    public String toString() {
+        return "UserChangeEvent{" + type + ", id=" + getId() + ", lsn=" + commitLsn.asString() + "}";
+    }
+}
@@ -0,0 +1,9 @@
+package com.deepmodi.app.cdc;
+
+/**
+ * Receives committed users changes from a {@link UserChangeStream}, in commit order, on the stream's thread.
+ */
+@FunctionalInterface
+public interface UserChangeListener {
+    void onChange(UserChangeEvent event);
+}
@@ -0,0 +1,268 @@
+package com.deepmodi.app.cdc;
+
+import com.deepmodi.app.config.DatabaseConfig;
+import com.deepmodi.app.util.AppLogger;
+import com.deepmodi.app.util.DatabaseUtil;
+import org.postgresql.PGConnection;
+import org.postgresql.PGProperty;
+import org.postgresql.replication.LogSequenceNumber;
+import org.postgresql.replication.PGReplicationStream;
+
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Change data capture for the users table over PostgreSQL logical replication.
+ *
+ * A publication for users and a logical replication slot using the built-in pgoutput plugin are
+ * created on first start. A background thread reads the slot through the driver's replication API,
+ * decodes the changes and hands every committed transaction to the registered listeners in commit order.
+ *
+ * The slot is the checkpoint: the stream confirms a transaction's LSN to the server only after all
+ * listeners have seen it, so after a restart or reconnect delivery resumes from the last confirmed
+ * transaction (at-least-once; transactions already delivered in this process are skipped).
+ * Transactions without users changes are confirmed as well, and while no transaction is open the
+ * stream confirms everything it has received (keepalives included), so a quiet users table does not
+ * pin the slot's WAL.
+ * An unused slot keeps WAL on the server, so call {@link #dropSlot()} when CDC is retired.
+ */
+public class UserChangeStream implements AutoCloseable {
+    private static final AppLogger log = AppLogger.getLogger(UserChangeStream.class);
+
+    private static final long IDLE_SLEEP_MS = 10;
+    private static final long MAX_RECONNECT_DELAY_MS = 30_000;
+
+    private final DatabaseConfig config;
+    private final String slotName;
+    private final String publication;
+    private final int statusIntervalMs;
+    private final List<UserChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+    private volatile boolean running;
+    private volatile LogSequenceNumber lastCheckpoint = LogSequenceNumber.INVALID_LSN;
+    private volatile Connection replicationConnection;
+    private Thread reader;
+
+    public UserChangeStream() {
+        this(DatabaseConfig.getInstance());
+    }
+
+    public UserChangeStream(DatabaseConfig config) {
+        this.config = config;
+        this.slotName = config.getCdcSlotName();
+        this.publication = config.getCdcPublication();
+        this.statusIntervalMs = (int) Math.max(1_000, config.getCdcStatusIntervalMs());
+    }
+
+    public void addListener(UserChangeListener listener){
+        listeners.add(listener);
+    }
+
+    public void removeListener(UserChangeListener listener){
+        listeners.remove(listener);
+    }
+
+    /**
+     * Creates the publication and slot if needed and starts streaming on a background thread.
+     */
+    public synchronized void start() throws SQLException {
+        if(running){
+            return;
+        }
+        ensurePublicationAndSlot();
+        running = true;
+        reader = new Thread(this::run, "user-cdc");
+        reader.setDaemon(true);
+        reader.start();
+        log.info("✓ User change stream started (slot {}, publication {})", slotName, publication);
+    }
+
+    /**
+     * @return last LSN confirmed to the server: a transaction's end, or a position received while idle
+     */
+    public LogSequenceNumber getLastCheckpoint() {
+        return lastCheckpoint;
+    }
+
+    private void ensurePublicationAndSlot() throws SQLException {
+        try(Connection connection = DatabaseUtil.getConnection()){
+            try(PreparedStatement statement = connection.prepareStatement("SELECT 1 FROM pg_publication WHERE pubname = ?")){
+                statement.setString(1, publication);
+                try(ResultSet rs = statement.executeQuery()){
+                    if(!rs.next()){
+                        try(Statement ddl = connection.createStatement()){
+                            // Identifiers cannot be bound; the name comes from our own config
+                            ddl.execute("CREATE PUBLICATION \"" + publication.replace("\"", "\"\"") + "\" FOR TABLE users");
+                        }
+                        log.info("✓ Created publication {}", publication);
+                    }
+                }
+            }
+            boolean slotExists;
+            try(PreparedStatement statement = connection.prepareStatement("SELECT 1 FROM pg_replication_slots WHERE slot_name = ?")){
+                statement.setString(1, slotName);
+                try(ResultSet rs = statement.executeQuery()){
+                    slotExists = rs.next();
+                }
+            }
+            connection.commit();
+
+            if(!slotExists){
+                try(Connection replication = openReplicationConnection()){
+                    replication.unwrap(PGConnection.class).getReplicationAPI()
+                            .createReplicationSlot()
+                            .logical()
+                            .withSlotName(slotName)
+                            .withOutputPlugin("pgoutput")
+                            .make();
+                }
+                log.info("✓ Created logical replication slot {}", slotName);
+            }
+        }
+    }
+
+    private Connection openReplicationConnection() throws SQLException {
+        Properties properties = new Properties();
+        if(config.getUsername() != null){
+            PGProperty.USER.set(properties, config.getUsername());
+        }
+        if(config.getPassword() != null){
+            PGProperty.PASSWORD.set(properties, config.getPassword());
+        }
+        PGProperty.REPLICATION.set(properties, "database");
+        PGProperty.ASSUME_MIN_SERVER_VERSION.set(properties, "10");
+        // The replication protocol only accepts simple queries
+        PGProperty.PREFER_QUERY_MODE.set(properties, "simple");
+        return DriverManager.getConnection(config.getUrl(), properties);
+    }
+
+    private void run(){
+        long reconnectDelay = 1_000;
+        while(running){
+            try(Connection connection = openReplicationConnection()){
+                replicationConnection = connection;
+                stream(connection);
+                reconnectDelay = 1_000;
+            }catch (SQLException e){
+                if(!running){
+                    break;
+                }
+                log.warn("⚠ User change stream interrupted, reconnecting in {}ms: {}", reconnectDelay, e.getMessage());
+                sleep(reconnectDelay);
+                reconnectDelay = Math.min(reconnectDelay * 2, MAX_RECONNECT_DELAY_MS);
+            }finally {
+                replicationConnection = null;
+            }
+        }
+    }
+
+    private void stream(Connection connection) throws SQLException {
+        // Start position 0/0 makes the server resume from the slot's confirmed position
+        try(PGReplicationStream stream = connection.unwrap(PGConnection.class).getReplicationAPI()
+                .replicationStream()
+                .logical()
+                .withSlotName(slotName)
+                .withSlotOption("proto_version", "1")
+                .withSlotOption("publication_names", publication)
+                .withStatusInterval(statusIntervalMs, TimeUnit.MILLISECONDS)
+                .start()){
+            PgOutputDecoder decoder = new PgOutputDecoder();
+            while(running){
+                ByteBuffer message = stream.readPending();
+                if(message == null){
+                    if(!decoder.isInTransaction()){
+                        // Caught up between transactions: nothing received is still waiting for delivery
+                        confirm(stream, stream.getLastReceiveLSN());
+                    }
+                    sleep(IDLE_SLEEP_MS);
+                    continue;
+                }
+                PgOutputDecoder.Commit commit = decoder.decode(message);
+                if(commit == null){
+                    continue;
+                }
+                if(commit.endLsn().asLong() > lastCheckpoint.asLong()){
+                    publish(commit.events());
+                }
+                // Only now may the server forget this transaction; the status goes out on the next interval
+                confirm(stream, commit.endLsn());
+            }
+            if(lastCheckpoint != LogSequenceNumber.INVALID_LSN){
+                stream.forceUpdateStatus();
+            }
+        }
+    }
+
+    private void confirm(PGReplicationStream stream, LogSequenceNumber lsn){
+        if(lsn.asLong() <= lastCheckpoint.asLong()){
+            return;
+        }
+        stream.setAppliedLSN(lsn);
+        stream.setFlushedLSN(lsn);
+        lastCheckpoint = lsn;
+    }
+
+    private void publish(List<UserChangeEvent> events){
+        for(UserChangeEvent event : events){
+            for(UserChangeListener listener : listeners){
+                try{
+                    listener.onChange(event);
+                }catch (RuntimeException e){
+                    log.error("✗ User change listener failed on {}: {}", event, e.getMessage());
+                }
+            }
+        }
+    }
+
+    private static void sleep(long millis){
+        try{
+            Thread.sleep(millis);
+        }catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Drops the replication slot so the server stops retaining WAL for it. Stop the stream first.
+     */
+    public void dropSlot() throws SQLException {
+        try(Connection replication = openReplicationConnection()){
+            replication.unwrap(PGConnection.class).getReplicationAPI().dropReplicationSlot(slotName);
+        }
+        log.info("✓ Dropped logical replication slot {}", slotName);
+    }
+
+    /**
+     * Stops streaming after confirming the last delivered transaction.
+     */
+    @Override
+    public synchronized void close() {
+        if(!running){
+            return;
+        }
+        running = false;
+        try{
+            reader.join(TimeUnit.SECONDS.toMillis(5));
+        }catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+        Connection connection = replicationConnection;
+        if(connection != null){
+            try{
+                connection.close();
+            }catch (SQLException e){
+                log.warn("⚠ Error closing replication connection: {}", e.getMessage());
+            }
+        }
+        log.info("✓ User change stream stopped at {}", lastCheckpoint.asString());
+    }
+}
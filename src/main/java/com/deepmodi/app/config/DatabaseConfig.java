@@ -2,6 +2,8 @@ package com.deepmodi.app.config;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Properties;
 
 /**
@@ -16,6 +18,90 @@ public class DatabaseConfig {
     private final String password;
     private final String driverClassName;
 
+    // Read replicas (same credentials as the primary); reads fall back to the primary when empty
+    private final List<String> replicaUrls;
+    private final String replicaStrategy;
+    private final long replicaMaxLagMs;
+    private final long replicaStickinessMs;
+    private final long replicaHealthCheckIntervalMs;
+
+    // Connection pool parameters
+    private final int poolMaxSize;
+    private final int poolMinIdle;
+    private final long poolConnectionTimeoutMs;
+    private final long poolIdleTimeoutMs;
+    private final long poolMaxLifetimeMs;
+    private final long poolLeakDetectionThresholdMs;
+    private final int poolValidationTimeoutSeconds;
+
+    // Prepared statement caching
+    private final int statementCacheSize;
+    private final Integer prepareThreshold;
+
+    // Batch inserts
+    private final int batchSize;
+    private final boolean reWriteBatchedInserts;
+
+    // Largest key set sent in one = ANY(?) lookup
+    private final int multiGetChunkSize;
+
+    // Rows fetched per round trip when streaming large result sets through a cursor
+    private final int fetchSize;
+
+    // Cross-node cache invalidation over LISTEN/NOTIFY (see CacheInvalidationBus)
+    private final boolean cacheInvalidationEnabled;
+    private final String cacheInvalidationChannel;
+
+    // Write-behind group commit (see WriteBehindUserWriter)
+    private final int writeBehindMaxBatchSize;
+    private final long writeBehindMaxDelayMs;
+    private final int writeBehindQueueCapacity;
+
+    // Trigger-maintained user count (see DatabaseUtil.installUserCounter)
+    private final boolean userCounterEnabled;
+
+    // Startup warm-up (see App)
+    private final boolean warmUpEnabled;
+    private final int warmUpPreloadUsers;
+
+    // Change data capture over logical replication (see UserChangeStream)
+    private final String cdcSlotName;
+    private final String cdcPublication;
+    private final long cdcStatusIntervalMs;
+
+    // Columnar snapshot refresh (see UserSnapshotExporter)
+    private final long snapshotRefreshOverlapSeconds;
+
+    // Parallel export (see UserExporter)
+    private final int exportParallelism;
+    private final int exportBufferSize;
+    private final int exportQueueDepth;
+
+    // Admission control in front of the primary pool (see AdmissionController)
+    private final boolean admissionEnabled;
+    private final int admissionMinLimit;
+    private final int admissionMaxLimit;
+    private final int admissionMaxQueueSize;
+    private final long admissionQueueTimeoutMs;
+    private final int admissionFailureThreshold;
+    private final long admissionOpenMs;
+
+    // Slow-query log (see SlowQueryLog)
+    private final boolean slowQueryEnabled;
+    private final long slowQueryThresholdMs;
+    private final int slowQueryCapacity;
+    private final boolean slowQueryExplain;
+    private final double slowQueryAnalyzeSampleRate;
+
+    // console, slf4j or off (see AppLogger)
+    private final String loggingMode;
+
+    // User cache
+    private final boolean cacheEnabled;
+    private final int cacheMaxSize;
+    private final long cacheTtlSeconds;
+    private final long cacheNegativeTtlSeconds;
+
     // Singleton instance
     private static DatabaseConfig instance;
 
@@ -29,7 +115,61 @@ public class DatabaseConfig {
         this.url = properties.getProperty("database.url");
         this.username = properties.getProperty("database.username");
         this.password = properties.getProperty("database.password");
-        this.driverClassName = properties.getProperty("database.driver");
+        this.driverClassName = properties.getProperty("database.driver", "org.postgresql.Driver");
+        this.replicaUrls = Arrays.stream(properties.getProperty("database.replica.urls", "").split(","))
+                .map(String::trim)
+                .filter(value -> !value.isEmpty())
+                .toList();
+        this.replicaStrategy = properties.getProperty("database.replica.strategy", "round-robin").trim();
+        this.replicaMaxLagMs = getLong(properties, "database.replica.maxLagMs", 5_000);
+        this.replicaStickinessMs = getLong(properties, "database.replica.stickinessMs", 5_000);
+        this.replicaHealthCheckIntervalMs = getLong(properties, "database.replica.healthCheckIntervalMs", 1_000);
+        this.poolMaxSize = getInt(properties, "database.pool.maxSize", 10);
+        this.poolMinIdle = getInt(properties, "database.pool.minIdle", 2);
+        this.poolConnectionTimeoutMs = getLong(properties, "database.pool.connectionTimeoutMs", 30_000);
+        this.poolIdleTimeoutMs = getLong(properties, "database.pool.idleTimeoutMs", 600_000);
+        this.poolMaxLifetimeMs = getLong(properties, "database.pool.maxLifetimeMs", 1_800_000);
+        this.poolLeakDetectionThresholdMs = getLong(properties, "database.pool.leakDetectionThresholdMs", 0);
+        this.poolValidationTimeoutSeconds = getInt(properties, "database.pool.validationTimeoutSeconds", 5);
+        this.statementCacheSize = getInt(properties, "database.statementCache.size", 64);
+        String threshold = properties.getProperty("database.prepareThreshold");
+        this.prepareThreshold = threshold == null || threshold.isBlank() ? null : getInt(properties, "database.prepareThreshold", 5);
+        this.batchSize = getInt(properties, "database.batchSize", 500);
+        this.reWriteBatchedInserts = Boolean.parseBoolean(properties.getProperty("database.reWriteBatchedInserts", "true").trim());
+        this.multiGetChunkSize = getInt(properties, "database.multiGetChunkSize", 1000);
+        this.fetchSize = getInt(properties, "database.fetchSize", 1000);
+        this.cacheInvalidationEnabled = Boolean.parseBoolean(properties.getProperty("cache.invalidation.enabled", "false").trim());
+        this.cacheInvalidationChannel = properties.getProperty("cache.invalidation.channel", "user_cache_invalidation").trim();
+        this.writeBehindMaxBatchSize = getInt(properties, "writeBehind.maxBatchSize", 256);
+        this.writeBehindMaxDelayMs = getLong(properties, "writeBehind.maxDelayMs", 5);
+        this.writeBehindQueueCapacity = getInt(properties, "writeBehind.queueCapacity", 10_000);
+        this.userCounterEnabled = Boolean.parseBoolean(properties.getProperty("database.userCounter.enabled", "false").trim());
+        this.warmUpEnabled = Boolean.parseBoolean(properties.getProperty("warmup.enabled", "true").trim());
+        this.warmUpPreloadUsers = getInt(properties, "warmup.preloadUsers", 0);
+        this.cdcSlotName = properties.getProperty("cdc.slotName", "users_cdc").trim();
+        this.cdcPublication = properties.getProperty("cdc.publication", "users_publication").trim();
+        this.cdcStatusIntervalMs = getLong(properties, "cdc.statusIntervalMs", 10_000);
+        this.snapshotRefreshOverlapSeconds = getLong(properties, "snapshot.refreshOverlapSeconds", 60);
+        this.exportParallelism = getInt(properties, "export.parallelism", 4);
+        this.exportBufferSize = getInt(properties, "export.bufferSize", 256 * 1024);
+        this.exportQueueDepth = getInt(properties, "export.queueDepth", 4);
+        this.admissionEnabled = Boolean.parseBoolean(properties.getProperty("admission.enabled", "true").trim());
+        this.admissionMinLimit = getInt(properties, "admission.minLimit", 2);
+        this.admissionMaxLimit = getInt(properties, "admission.maxLimit", 0);
+        this.admissionMaxQueueSize = getInt(properties, "admission.maxQueueSize", 50);
+        this.admissionQueueTimeoutMs = getLong(properties, "admission.queueTimeoutMs", 1_000);
+        this.admissionFailureThreshold = getInt(properties, "admission.failureThreshold", 5);
+        this.admissionOpenMs = getLong(properties, "admission.openMs", 5_000);
+        this.slowQueryEnabled = Boolean.parseBoolean(properties.getProperty("slowQuery.enabled", "true").trim());
+        this.slowQueryThresholdMs = getLong(properties, "slowQuery.thresholdMs", 100);
+        this.slowQueryCapacity = getInt(properties, "slowQuery.capacity", 100);
+        this.slowQueryExplain = Boolean.parseBoolean(properties.getProperty("slowQuery.explain", "true").trim());
+        this.slowQueryAnalyzeSampleRate = getDouble(properties, "slowQuery.analyzeSampleRate", 0.0);
+        this.loggingMode = properties.getProperty("logging.mode", "console");
+        this.cacheEnabled = Boolean.parseBoolean(properties.getProperty("cache.enabled", "true").trim());
+        this.cacheMaxSize = getInt(properties, "cache.maxSize", 10_000);
+        this.cacheTtlSeconds = getLong(properties, "cache.ttlSeconds", 300);
+        this.cacheNegativeTtlSeconds = getLong(properties, "cache.negativeTtlSeconds", 30);
         System.out.println("✓ Database configuration loaded from properties file");
     }
 
@@ -58,6 +198,45 @@ public class DatabaseConfig {
         return properties;
     }
 
+    private static int getInt(Properties properties, String key, int defaultValue){
+        String value = properties.getProperty(key);
+        if(value == null || value.isBlank()){
+            return defaultValue;
+        }
+        try{
+            return Integer.parseInt(value.trim());
+        }catch (NumberFormatException e){
+            System.out.println("⚠ Invalid value for " + key + ": " + value + ", using " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    private static long getLong(Properties properties, String key, long defaultValue){
+        String value = properties.getProperty(key);
+        if(value == null || value.isBlank()){
+            return defaultValue;
+        }
+        try{
+            return Long.parseLong(value.trim());
+        }catch (NumberFormatException e){
+            System.out.println("⚠ Invalid value for " + key + ": " + value + ", using " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    private static double getDouble(Properties properties, String key, double defaultValue){
+        String value = properties.getProperty(key);
+        if(value == null || value.isBlank()){
+            return defaultValue;
+        }
+        try{
+            return Double.parseDouble(value.trim());
+        }catch (NumberFormatException e){
+            System.out.println("⚠ Invalid value for " + key + ": " + value + ", using " + defaultValue);
+            return defaultValue;
+        }
+    }
+
     public String getUrl() {
         return url;
     }
@@ -74,6 +253,270 @@ public class DatabaseConfig {
         return driverClassName;
     }
 
+    /**
+     * @return JDBC URLs of the read replicas, empty when all reads go to the primary
+     */
+    public List<String> getReplicaUrls() {
+        return replicaUrls;
+    }
+
+    /**
+     * @return how reads pick a replica: round-robin or least-busy
+     */
+    public String getReplicaStrategy() {
+        return replicaStrategy;
+    }
+
+    /**
+     * Replicas further behind the primary than this are skipped until they catch up.
+     */
+    public long getReplicaMaxLagMs() {
+        return replicaMaxLagMs;
+    }
+
+    /**
+     * After a write, reads on the same thread go to the primary for this long (read-your-writes).
+     */
+    public long getReplicaStickinessMs() {
+        return replicaStickinessMs;
+    }
+
+    public long getReplicaHealthCheckIntervalMs() {
+        return replicaHealthCheckIntervalMs;
+    }
+
+    public int getPoolMaxSize() {
+        return poolMaxSize;
+    }
+
+    public int getPoolMinIdle() {
+        return poolMinIdle;
+    }
+
+    public long getPoolConnectionTimeoutMs() {
+        return poolConnectionTimeoutMs;
+    }
+
+    public long getPoolIdleTimeoutMs() {
+        return poolIdleTimeoutMs;
+    }
+
+    public long getPoolMaxLifetimeMs() {
+        return poolMaxLifetimeMs;
+    }
+
+    public long getPoolLeakDetectionThresholdMs() {
+        return poolLeakDetectionThresholdMs;
+    }
+
+    public int getPoolValidationTimeoutSeconds() {
+        return poolValidationTimeoutSeconds;
+    }
+
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+
+    /**
+     * @return the driver's prepareThreshold, or null to keep the driver default
+     */
+    public Integer getPrepareThreshold() {
+        return prepareThreshold;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * When true the driver rewrites batched INSERTs into multi-row INSERT statements.
+     */
+    public boolean isReWriteBatchedInserts() {
+        return reWriteBatchedInserts;
+    }
+
+    public int getMultiGetChunkSize() {
+        return multiGetChunkSize;
+    }
+
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    /**
+     * When true, DAO writes NOTIFY other nodes of the users they changed.
+     */
+    public boolean isCacheInvalidationEnabled() {
+        return cacheInvalidationEnabled;
+    }
+
+    public String getCacheInvalidationChannel() {
+        return cacheInvalidationChannel;
+    }
+
+    public int getWriteBehindMaxBatchSize() {
+        return writeBehindMaxBatchSize;
+    }
+
+    /**
+     * Longest time a queued write waits for its batch to fill before the batch is flushed anyway.
+     */
+    public long getWriteBehindMaxDelayMs() {
+        return writeBehindMaxDelayMs;
+    }
+
+    public int getWriteBehindQueueCapacity() {
+        return writeBehindQueueCapacity;
+    }
+
+    /**
+     * When true the schema setup installs the triggers behind CountMode.MAINTAINED.
+     */
+    public boolean isUserCounterEnabled() {
+        return userCounterEnabled;
+    }
+
+    public boolean isWarmUpEnabled() {
+        return warmUpEnabled;
+    }
+
+    /**
+     * @return number of most recent users loaded into the cache at startup, 0 to skip
+     */
+    public int getWarmUpPreloadUsers() {
+        return warmUpPreloadUsers;
+    }
+
+    public String getCdcSlotName() {
+        return cdcSlotName;
+    }
+
+    public String getCdcPublication() {
+        return cdcPublication;
+    }
+
+    /**
+     * How often the change stream reports its confirmed position to the server.
+     */
+    public long getCdcStatusIntervalMs() {
+        return cdcStatusIntervalMs;
+    }
+
+    /**
+     * How far before the snapshot's newest updated_at an incremental refresh starts reading, to catch
+     * transactions that committed late with an older timestamp.
+     */
+    public long getSnapshotRefreshOverlapSeconds() {
+        return snapshotRefreshOverlapSeconds;
+    }
+
+    /**
+     * Number of id ranges read at once, each on its own pooled connection.
+     */
+    public int getExportParallelism() {
+        return exportParallelism;
+    }
+
+    public int getExportBufferSize() {
+        return exportBufferSize;
+    }
+
+    /**
+     * Filled buffers a reader may queue ahead of the file writer before it has to wait.
+     */
+    public int getExportQueueDepth() {
+        return exportQueueDepth;
+    }
+
+    public boolean isAdmissionEnabled() {
+        return admissionEnabled;
+    }
+
+    public int getAdmissionMinLimit() {
+        return admissionMinLimit;
+    }
+
+    /**
+     * @return most concurrent operations ever admitted, 0 for the pool size
+     */
+    public int getAdmissionMaxLimit() {
+        return admissionMaxLimit;
+    }
+
+    public int getAdmissionMaxQueueSize() {
+        return admissionMaxQueueSize;
+    }
+
+    /**
+     * Longest time a caller waits in the admission queue before it is turned away.
+     */
+    public long getAdmissionQueueTimeoutMs() {
+        return admissionQueueTimeoutMs;
+    }
+
+    /**
+     * Consecutive connection failures that open the circuit breaker.
+     */
+    public int getAdmissionFailureThreshold() {
+        return admissionFailureThreshold;
+    }
+
+    /**
+     * How long an open circuit rejects everything before letting one trial call through.
+     */
+    public long getAdmissionOpenMs() {
+        return admissionOpenMs;
+    }
+
+    public boolean isSlowQueryEnabled() {
+        return slowQueryEnabled;
+    }
+
+    /**
+     * Statements taking at least this long are recorded in the slow-query log.
+     */
+    public long getSlowQueryThresholdMs() {
+        return slowQueryThresholdMs;
+    }
+
+    public int getSlowQueryCapacity() {
+        return slowQueryCapacity;
+    }
+
+    /**
+     * When true, slow statements are recorded with their EXPLAIN plan.
+     */
+    public boolean isSlowQueryExplain() {
+        return slowQueryExplain;
+    }
+
+    /**
+     * Share of slow SELECTs (0 to 1) explained with ANALYZE, which runs the statement a second time.
+     */
+    public double getSlowQueryAnalyzeSampleRate() {
+        return slowQueryAnalyzeSampleRate;
+    }
+
+    public String getLoggingMode() {
+        return loggingMode;
+    }
+
+    public boolean isCacheEnabled() {
+        return cacheEnabled;
+    }
+
+    public int getCacheMaxSize() {
+        return cacheMaxSize;
+    }
+
+    public long getCacheTtlSeconds() {
+        return cacheTtlSeconds;
+    }
+
+    public long getCacheNegativeTtlSeconds() {
+        return cacheNegativeTtlSeconds;
+    }
+
     /**
      * Display configuration info (without sensitive data).
      * Useful for debugging connection issues.
@@ -84,5 +527,7 @@ public class DatabaseConfig {
         System.out.println("  Username: " + username);
         System.out.println("  Driver: " + driverClassName);
         System.out.println("  Password: [HIDDEN]");
+        System.out.println("  Pool: max=" + poolMaxSize + ", minIdle=" + poolMinIdle);
+        System.out.println("  Replicas: " + (replicaUrls.isEmpty() ? "none" : String.join(", ", replicaUrls)));
     }
 }
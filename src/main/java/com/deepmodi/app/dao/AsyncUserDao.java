@@ -0,0 +1,174 @@
+package com.deepmodi.app.dao;
+
+import com.deepmodi.app.config.DatabaseConfig;
+import com.deepmodi.app.model.BatchInsertResult;
+import com.deepmodi.app.model.BulkLoadResult;
+import com.deepmodi.app.model.UpsertResult;
+import com.deepmodi.app.model.User;
+import com.deepmodi.app.model.UserFilter;
+import com.deepmodi.app.model.UserPage;
+import com.deepmodi.app.util.DatabaseUtil;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Non-blocking facade over {@link UserDao}.
+ * Every call runs on its own virtual thread, so thousands of lookups can be in flight without a
+ * platform thread per request. A semaphore sized to the connection pool caps how many of them
+ * actually run against the database at once; the rest park cheaply instead of queuing inside the pool.
+ *
+ * Read-your-writes stickiness (see {@link DatabaseUtil#getReadConnection()}) is tracked per facade
+ * rather than per thread, since every call runs on a fresh virtual thread.
+ */
+public class AsyncUserDao implements AutoCloseable {
+    private final UserDao userDao;
+    private final ExecutorService executor;
+    private final Semaphore concurrencyLimit;
+    private final AtomicLong lastWriteNanos = new AtomicLong();
+
+    public AsyncUserDao(UserDao userDao) {
+        this(userDao, DatabaseConfig.getInstance().getPoolMaxSize());
+    }
+
+    public AsyncUserDao(UserDao userDao, int maxConcurrency) {
+        if(maxConcurrency <= 0){
+            throw new IllegalArgumentException("maxConcurrency must be positive");
+        }
+        this.userDao = userDao;
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.concurrencyLimit = new Semaphore(maxConcurrency);
+    }
+
+    public CompletableFuture<User> createUser(User user){
+        return submit(() -> userDao.createUser(user));
+    }
+
+    public CompletableFuture<Optional<User>> findUserById(Long id){
+        return submit(() -> userDao.findUserById(id));
+    }
+
+    public CompletableFuture<Optional<User>> findUserByEmail(String email){
+        return submit(() -> userDao.findUserByEmail(email));
+    }
+
+    public CompletableFuture<Map<Long, User>> findUsersByIds(Collection<Long> ids){
+        return submit(() -> userDao.findUsersByIds(ids));
+    }
+
+    public CompletableFuture<Map<String, User>> findUsersByEmails(Collection<String> emails){
+        return submit(() -> userDao.findUsersByEmails(emails));
+    }
+
+    public CompletableFuture<List<User>> findAllUsers(){
+        return submit(userDao::findAllUsers);
+    }
+
+    /**
+     * Visits every user on a virtual thread; the consumer runs on that thread.
+     */
+    public CompletableFuture<Long> forEachUser(Consumer<User> consumer){
+        return submit(() -> userDao.forEachUser(consumer));
+    }
+
+    public CompletableFuture<UserPage> findUsersAfter(Long afterId, int limit, UserFilter filter){
+        return submit(() -> userDao.findUsersAfter(afterId, limit, filter));
+    }
+
+    public CompletableFuture<UserPage> findUsersBefore(Long beforeId, int limit, UserFilter filter){
+        return submit(() -> userDao.findUsersBefore(beforeId, limit, filter));
+    }
+
+    /**
+     * Runs the search on a virtual thread and collects the (limited) results.
+     */
+    public CompletableFuture<List<User>> searchUsers(String term, SearchMode mode, int limit){
+        return submit(() -> {
+            try(Stream<User> users = userDao.searchUsers(term, mode, limit)){
+                return users.toList();
+            }
+        });
+    }
+
+    public CompletableFuture<Boolean> updateUser(User user){
+        return submit(() -> userDao.updateUser(user));
+    }
+
+    public CompletableFuture<Boolean> deleteUser(Long id){
+        return submit(() -> userDao.deleteUser(id));
+    }
+
+    public CompletableFuture<Boolean> createUsersInTransaction(List<User> users){
+        return submit(() -> userDao.createUsersInTransaction(users));
+    }
+
+    public CompletableFuture<BatchInsertResult> createUsers(List<User> users){
+        return submit(() -> userDao.createUsers(users));
+    }
+
+    public CompletableFuture<UpsertResult> upsertUser(User user, UpsertMode mode){
+        return submit(() -> userDao.upsertUser(user, mode));
+    }
+
+    public CompletableFuture<List<UpsertResult>> upsertUsers(List<User> users, UpsertMode mode){
+        return submit(() -> userDao.upsertUsers(users, mode));
+    }
+
+    public CompletableFuture<BulkLoadResult> bulkLoadUsers(Iterator<User> users, int chunkSize){
+        return submit(() -> userDao.bulkLoadUsers(users, chunkSize));
+    }
+
+    public CompletableFuture<Long> getUserCount(){
+        return submit(userDao::getUserCount);
+    }
+
+    public CompletableFuture<Long> getUserCount(CountMode mode){
+        return submit(() -> userDao.getUserCount(mode));
+    }
+
+    /**
+     * @return number of operations that could start right now without waiting
+     */
+    public int getAvailableSlots(){
+        return concurrencyLimit.availablePermits();
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> operation){
+        return CompletableFuture.supplyAsync(() -> {
+            try{
+                // Parking a virtual thread here is cheap; it frees its carrier for other work
+                concurrencyLimit.acquire();
+            }catch (InterruptedException e){
+                Thread.currentThread().interrupt();
+                throw new CompletionException(e);
+            }
+            try{
+                DatabaseUtil.setLastWriteNanos(lastWriteNanos.get());
+                return operation.get();
+            }finally {
+                lastWriteNanos.accumulateAndGet(DatabaseUtil.getLastWriteNanos(), Math::max);
+                concurrencyLimit.release();
+            }
+        }, executor);
+    }
+
+    /**
+     * Stops accepting work and waits for in-flight operations to finish.
+     */
+    @Override
+    public void close() {
+        executor.close();
+    }
+}
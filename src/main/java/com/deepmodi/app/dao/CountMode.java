@@ -0,0 +1,13 @@
+package com.deepmodi.app.dao;
+
+/**
+ * How {@link UserDao#getUserCount(CountMode)} counts users.
+ */
+public enum CountMode {
+    /** SELECT COUNT(*): always right, but scans the whole table. */
+    EXACT,
+    /** Planner statistics from pg_class scaled to the table's current size: constant time, a few percent off. */
+    ESTIMATE,
+    /** Counter kept by triggers on users (see DatabaseUtil.installUserCounter): constant time and exact. */
+    MAINTAINED
+}
@@ -0,0 +1,14 @@
+package com.deepmodi.app.dao;
+
+/**
+ * Unchecked wrapper for SQL errors raised where a checked SQLException cannot be thrown,
+ * e.g. while a caller is iterating a Stream backed by an open ResultSet, or when a
+ * {@link UnitOfWork} cannot commit.
+ */
+public class DataAccessException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public DataAccessException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,80 @@
+package com.deepmodi.app.dao;
+
+import com.deepmodi.app.util.AppLogger;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Exposes an open ResultSet as a lazy Stream.
+ * The ResultSet, Statement and Connection stay open while the stream is consumed and are released
+ * when the stream is closed or fully consumed, whichever happens first. The transaction is committed
+ * on release, which also closes the server-side cursor.
+ */
+final class ResultSetStream<T> extends Spliterators.AbstractSpliterator<T> {
+    private static final AppLogger log = AppLogger.getLogger(ResultSetStream.class);
+
+    private final Connection connection;
+    private final Statement statement;
+    private final ResultSet resultSet;
+    private final RowMapper<T> mapper;
+    private boolean released;
+
+    private ResultSetStream(Connection connection, Statement statement, ResultSet resultSet, RowMapper<T> mapper) {
+        super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+        this.connection = connection;
+        this.statement = statement;
+        this.resultSet = resultSet;
+        this.mapper = mapper;
+    }
+
+    static <T> Stream<T> of(Connection connection, Statement statement, ResultSet resultSet, RowMapper<T> mapper){
+        ResultSetStream<T> spliterator = new ResultSetStream<>(connection, statement, resultSet, mapper);
+        return StreamSupport.stream(spliterator, false).onClose(spliterator::release);
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        if(released){
+            return false;
+        }
+        try{
+            if(!resultSet.next()){
+                release();
+                return false;
+            }
+            action.accept(mapper.mapRow(resultSet));
+            return true;
+        }catch (SQLException e){
+            release();
+            throw new DataAccessException("Error reading streamed rows: " + e.getMessage(), e);
+        }
+    }
+
+    private void release(){
+        if(released){
+            return;
+        }
+        released = true;
+        try{
+            resultSet.close();
+            statement.close();
+            connection.commit();
+        }catch (SQLException e){
+            log.warn("⚠ Error releasing streamed result: {}", e.getMessage());
+        }finally {
+            try{
+                connection.close();
+            }catch (SQLException e){
+                log.warn("⚠ Error closing Connection: {}", e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.deepmodi.app.dao;
+
+/**
+ * How {@link UserDao#searchUsers(String, SearchMode, int)} matches the search term.
+ */
+public enum SearchMode {
+    /** First name, last name or email starts with the term (case-insensitive), exact matches first. */
+    PREFIX,
+    /**
+     * Names and email resemble the term (pg_trgm word similarity), closest first; tolerates typos.
+     * Without pg_trgm: the term appears anywhere in a name or the email, ordered by name.
+     */
+    FUZZY
+}
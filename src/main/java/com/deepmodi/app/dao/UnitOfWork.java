@@ -0,0 +1,240 @@
+package com.deepmodi.app.dao;
+
+import com.deepmodi.app.metrics.DaoMetrics;
+import com.deepmodi.app.metrics.OperationTimer;
+import com.deepmodi.app.util.AppLogger;
+import com.deepmodi.app.util.DatabaseUtil;
+import org.postgresql.core.BaseConnection;
+import org.postgresql.core.TransactionState;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Runs several DAO calls on one connection and, for writes, in one transaction.
+ * <pre>
+ * User user = UnitOfWork.inTransaction(() -> {
+ *     User created = userDao.createUser(new User("Ada", "Lovelace", "ada@example.com"));
+ *     userDao.updateUser(other);
+ *     return created;
+ * });
+ * </pre>
+ * While a unit is active on a thread, every connection the DAO layer asks {@link DatabaseUtil} for is
+ * the unit's connection. The DAO's own commit() and close() calls on it do nothing, so the unit pays
+ * for one borrow and one COMMIT however many calls it makes.
+ *
+ * Cache updates the DAO would make after its commit are held back with {@link #afterCommit} and run
+ * once the unit has committed, so other callers never read rows from the cache that were not saved.
+ *
+ * If a call inside the unit fails (it rolls back, or leaves the transaction aborted), the whole unit
+ * is rolled back at the end and a {@link DataAccessException} is thrown, as is anything the work
+ * itself throws. Nested units join the outer one. Write calls inside a read-only unit fail the way
+ * a broken connection would (null, false or an empty result).
+ *
+ * {@link #readOnly} units run in auto-commit on a connection marked read-only (a replica when one
+ * is configured), so reads need no BEGIN/COMMIT round trips at all. Streaming reads switch the
+ * connection to a transaction for their cursor, which the unit commits at the end.
+ *
+ * Units are bound to the calling thread; calls made through {@link AsyncUserDao} run on other
+ * threads and do not take part.
+ */
+public final class UnitOfWork {
+    private static final AppLogger log = AppLogger.getLogger(UnitOfWork.class);
+
+    public static final String OP_TRANSACTION = "unitOfWork.transaction";
+    public static final String OP_READ_ONLY = "unitOfWork.readOnly";
+
+    private static final ThreadLocal<UnitOfWork> current = new ThreadLocal<>();
+
+    private final boolean readOnly;
+    private final Connection connection;
+    private final List<Runnable> afterCommit = new ArrayList<>();
+    private boolean rollbackOnly;
+
+    private UnitOfWork(boolean readOnly, Connection connection) {
+        this.readOnly = readOnly;
+        this.connection = connection;
+    }
+
+    /**
+     * Runs work in one read-write transaction, committed when work returns.
+     */
+    public static <T> T inTransaction(Supplier<T> work){
+        return run(false, work);
+    }
+
+    /**
+     * Runs read-only work on one connection without a commit round trip.
+     */
+    public static <T> T readOnly(Supplier<T> work){
+        return run(true, work);
+    }
+
+    /**
+     * @return true when the current thread is inside a unit of work
+     */
+    public static boolean isActive(){
+        return current.get() != null;
+    }
+
+    /**
+     * Runs action once the current read-write unit of work has committed, and drops it if the unit
+     * rolls back. Without such a unit (or in a read-only one) the caller has committed already and the
+     * action runs right away.
+     */
+    public static void afterCommit(Runnable action){
+        UnitOfWork unit = current.get();
+        if(unit == null || unit.readOnly){
+            action.run();
+        }else{
+            unit.afterCommit.add(action);
+        }
+    }
+
+    private static <T> T run(boolean readOnly, Supplier<T> work){
+        UnitOfWork outer = current.get();
+        if(outer != null){
+            if(outer.readOnly && !readOnly){
+                throw new IllegalStateException("Cannot start a read-write unit of work inside a read-only one");
+            }
+            return work.get();
+        }
+
+        try(OperationTimer timer = DaoMetrics.getInstance().start(readOnly ? OP_READ_ONLY : OP_TRANSACTION)){
+            UnitOfWork unit;
+            try{
+                unit = begin(readOnly);
+            }catch (SQLException e){
+                timer.failed();
+                throw new DataAccessException("Could not start unit of work: " + e.getMessage(), e);
+            }
+
+            current.set(unit);
+            DatabaseUtil.bindConnection(unit.shared(), readOnly);
+            try{
+                T result = work.get();
+                unit.complete();
+                return result;
+            }catch (SQLException e){
+                timer.failed();
+                unit.rollbackQuietly();
+                throw new DataAccessException("Unit of work failed: " + e.getMessage(), e);
+            }catch (RuntimeException | Error e){
+                timer.failed();
+                unit.rollbackQuietly();
+                throw e;
+            }finally {
+                DatabaseUtil.unbindConnection();
+                current.remove();
+                unit.release();
+            }
+        }
+    }
+
+    private static UnitOfWork begin(boolean readOnly) throws SQLException {
+        Connection connection = readOnly ? DatabaseUtil.getReadConnection() : DatabaseUtil.getConnection();
+        if(readOnly){
+            try{
+                // Each statement is its own implicit transaction: no BEGIN, no COMMIT.
+                // The pool restores manual commit and read-write when the connection comes back.
+                connection.setAutoCommit(true);
+                connection.setReadOnly(true);
+            }catch (SQLException e){
+                connection.close();
+                throw e;
+            }
+        }
+        return new UnitOfWork(readOnly, connection);
+    }
+
+    private void complete() throws SQLException {
+        if(connection.getAutoCommit()){
+            return;
+        }
+        if(rollbackOnly || isAborted()){
+            afterCommit.clear();
+            connection.rollback();
+            throw new SQLException("A DAO call inside the unit of work failed; all of its changes were rolled back");
+        }
+        connection.commit();
+        if(!readOnly){
+            DatabaseUtil.markWrite();
+        }
+        for(Runnable action : afterCommit){
+            try{
+                action.run();
+            }catch (RuntimeException e){
+                log.warn("⚠ Error running after-commit action: {}", e.getMessage());
+            }
+        }
+        afterCommit.clear();
+    }
+
+    /**
+     * A statement that failed without the DAO rolling back leaves the transaction aborted,
+     * and committing it would silently roll back. The driver tracks this state client-side.
+     */
+    private boolean isAborted() throws SQLException {
+        return connection.isWrapperFor(BaseConnection.class)
+                && connection.unwrap(BaseConnection.class).getTransactionState() == TransactionState.FAILED;
+    }
+
+    private void rollbackQuietly(){
+        afterCommit.clear();
+        try{
+            if(!connection.getAutoCommit()){
+                connection.rollback();
+            }
+        }catch (SQLException e){
+            log.warn("⚠ Error rolling back unit of work: {}", e.getMessage());
+        }
+    }
+
+    private void release(){
+        try{
+            connection.close();
+        }catch (SQLException e){
+            log.warn("⚠ Error closing Connection: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * The connection handed to DAO calls: transaction boundaries belong to the unit, not to them.
+     */
+    private Connection shared(){
+        InvocationHandler handler = (proxy, method, args) -> {
+            switch (method.getName()){
+                case "close":
+                case "commit":
+                    return null;
+                case "rollback":
+                    if(args == null){
+                        rollbackOnly = true;
+                        return null;
+                    }
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "UnitOfWork[" + connection + "]";
+                default:
+                    break;
+            }
+            try{
+                return method.invoke(connection, args);
+            }catch (InvocationTargetException e){
+                throw e.getCause();
+            }
+        };
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, handler);
+    }
+}
@@ -0,0 +1,11 @@
+package com.deepmodi.app.dao;
+
+/**
+ * What an upsert does when a user with the same email already exists.
+ */
+public enum UpsertMode {
+    /** ON CONFLICT (email) DO UPDATE: overwrite first and last name. */
+    UPDATE,
+    /** ON CONFLICT (email) DO NOTHING: keep the existing row. */
+    IGNORE
+}
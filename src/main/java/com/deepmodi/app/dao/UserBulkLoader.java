@@ -0,0 +1,174 @@
+package com.deepmodi.app.dao;
+
+import com.deepmodi.app.cache.CacheInvalidationBus;
+import com.deepmodi.app.cache.UserCache;
+import com.deepmodi.app.model.BulkLoadResult;
+import com.deepmodi.app.model.User;
+import com.deepmodi.app.util.AppLogger;
+import com.deepmodi.app.util.DatabaseUtil;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Loads users with PostgreSQL's COPY ... FROM STDIN in binary format.
+ *
+ * Users are pulled from an Iterator and encoded into a fixed-size buffer that is flushed to the
+ * server whenever it fills up, so memory use does not depend on the number of users.
+ * Every chunkSize rows the COPY is finished and committed, which bounds the size of a transaction
+ * and lets a failed load keep what was already committed.
+ */
+public class UserBulkLoader {
+    private static final AppLogger log = AppLogger.getLogger(UserBulkLoader.class);
+
+    private static final String COPY_USERS_SQL =
+            "COPY users (first_name, last_name, email) FROM STDIN (FORMAT binary)";
+
+    // PGCOPY\n\377\r\n\0 signature, then flags and header extension length (both zero)
+    private static final byte[] BINARY_HEADER = {
+            'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0,
+            0, 0, 0, 0,
+            0, 0, 0, 0
+    };
+    private static final short FIELD_COUNT = 3;
+    private static final short TRAILER = -1;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final UserCache cache;
+
+    public UserBulkLoader(UserCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Streams every user from the iterator into the users table.
+     * Generated ids are not read back; use createUsersInTransaction when ids are needed.
+     *
+     * @param chunkSize rows per COPY/commit
+     */
+    public BulkLoadResult load(Iterator<User> users, int chunkSize){
+        if(chunkSize <= 0){
+            throw new IllegalArgumentException("chunkSize must be positive");
+        }
+        log.info("Bulk loading users with COPY (chunk size {})...", chunkSize);
+
+        long start = System.nanoTime();
+        long rowsLoaded = 0;
+        int chunks = 0;
+        String error = null;
+
+        try(Connection connection = DatabaseUtil.getConnection()){
+            PGConnection pgConnection = connection.unwrap(PGConnection.class);
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+            while(users.hasNext()){
+                CopyIn copyIn = pgConnection.getCopyAPI().copyIn(COPY_USERS_SQL);
+                int rowsInChunk = 0;
+                try{
+                    buffer.clear();
+                    buffer.put(BINARY_HEADER);
+
+                    List<String> emails = new ArrayList<>();
+                    while(rowsInChunk < chunkSize && users.hasNext()){
+                        User user = users.next();
+                        writeRow(copyIn, buffer, user);
+                        rowsInChunk++;
+                        if(cache != null){
+                            emails.add(user.getEmail());
+                        }
+                    }
+
+                    ensureCapacity(copyIn, buffer, 2);
+                    buffer.putShort(TRAILER);
+                    flush(copyIn, buffer);
+                    copyIn.endCopy();
+                    // Too many rows to list; other nodes drop their caches (mostly "not found" entries)
+                    CacheInvalidationBus.publishFlushAll(connection);
+                    connection.commit();
+                    // Invalidated only now: a lookup between the invalidation and the commit would cache
+                    // "not found" again. Inside a UnitOfWork this waits for the unit's commit.
+                    UnitOfWork.afterCommit(() -> {
+                        DatabaseUtil.markWrite();
+                        if(cache != null){
+                            emails.forEach(cache::invalidateEmail);
+                        }
+                    });
+                }catch (SQLException | RuntimeException e){
+                    if(copyIn.isActive()){
+                        copyIn.cancelCopy();
+                    }
+                    connection.rollback();
+                    throw e;
+                }
+
+                rowsLoaded += rowsInChunk;
+                chunks++;
+            }
+        }catch (SQLException e){
+            error = e.getMessage();
+            log.error("✗ Bulk load stopped after {} rows: {}", rowsLoaded, error);
+        }
+
+        BulkLoadResult result = new BulkLoadResult(rowsLoaded, chunks, System.nanoTime() - start, error);
+        if(result.isSuccessful()){
+            log.info("✓ {}", result);
+        }
+        return result;
+    }
+
+    private static void writeRow(CopyIn copyIn, ByteBuffer buffer, User user) throws SQLException {
+        byte[] firstName = encode(user.getFirstName());
+        byte[] lastName = encode(user.getLastName());
+        byte[] email = encode(user.getEmail());
+
+        // Tuple: field count, then (length, bytes) per field; length -1 means NULL
+        int rowSize = 2 + 12 + length(firstName) + length(lastName) + length(email);
+        ensureCapacity(copyIn, buffer, rowSize);
+
+        buffer.putShort(FIELD_COUNT);
+        putField(buffer, firstName);
+        putField(buffer, lastName);
+        putField(buffer, email);
+    }
+
+    private static byte[] encode(String value){
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int length(byte[] value){
+        return value == null ? 0 : value.length;
+    }
+
+    private static void putField(ByteBuffer buffer, byte[] value){
+        if(value == null){
+            buffer.putInt(-1);
+        }else{
+            buffer.putInt(value.length);
+            buffer.put(value);
+        }
+    }
+
+    private static void ensureCapacity(CopyIn copyIn, ByteBuffer buffer, int needed) throws SQLException {
+        if(buffer.remaining() < needed){
+            flush(copyIn, buffer);
+            if(buffer.remaining() < needed){
+                throw new SQLException("Row of " + needed + " bytes does not fit in the COPY buffer");
+            }
+        }
+    }
+
+    private static void flush(CopyIn copyIn, ByteBuffer buffer) throws SQLException {
+        if(buffer.position() > 0){
+            copyIn.writeToCopy(buffer.array(), 0, buffer.position());
+            buffer.clear();
+        }
+    }
+}
@@ -1,19 +1,110 @@
 package com.deepmodi.app.dao;
 
+import com.deepmodi.app.cache.CacheInvalidationBus;
+import com.deepmodi.app.cache.UserCache;
+import com.deepmodi.app.cache.UserCacheStats;
+import com.deepmodi.app.config.DatabaseConfig;
+import com.deepmodi.app.model.BatchInsertResult;
+import com.deepmodi.app.model.BulkLoadResult;
 import com.deepmodi.app.model.User;
+import com.deepmodi.app.model.UserFilter;
+import com.deepmodi.app.model.UserPage;
+import com.deepmodi.app.model.UpsertResult;
+import com.deepmodi.app.model.UserRow;
+import com.deepmodi.app.metrics.DaoMetrics;
+import com.deepmodi.app.metrics.OperationTimer;
+import com.deepmodi.app.util.AppLogger;
 import com.deepmodi.app.util.DatabaseUtil;
-import org.postgresql.replication.fluent.CommonOptions;
 
 import javax.xml.crypto.Data;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public class UserDao {
+    private static final AppLogger log = AppLogger.getLogger(UserDao.class);
+
+    // Operation names used for metrics
+    public static final String OP_CREATE_USER = "createUser";
+    public static final String OP_FIND_USER_BY_ID = "findUserById";
+    public static final String OP_FIND_USER_BY_EMAIL = "findUserByEmail";
+    public static final String OP_FIND_USERS_BY_IDS = "findUsersByIds";
+    public static final String OP_FIND_USERS_BY_EMAILS = "findUsersByEmails";
+    public static final String OP_FIND_ALL_USERS = "findAllUsers";
+    public static final String OP_STREAM_ALL_USERS = "streamAllUsers";
+    public static final String OP_FOR_EACH_USER_ROW = "forEachUserRow";
+    public static final String OP_FIND_USER_PAGE = "findUserPage";
+    public static final String OP_UPDATE_USER = "updateUser";
+    public static final String OP_DELETE_USER = "deleteUser";
+    public static final String OP_CREATE_USERS_IN_TRANSACTION = "createUsersInTransaction";
+    public static final String OP_CREATE_USERS = "createUsers";
+    public static final String OP_BULK_LOAD_USERS = "bulkLoadUsers";
+    public static final String OP_GET_USER_COUNT = "getUserCount";
+    public static final String OP_UPSERT_USERS = "upsertUsers";
+    public static final String OP_SEARCH_USERS = "searchUsers";
+
     // SQL queries as constants (easier to maintain and review)
     private static final String INSERT_USER_SQL =
-            "INSERT INTO users (first_name, last_name, email) VALUES (?, ?, ?)";
+            "INSERT INTO users (first_name, last_name, email) VALUES (?, ?, ?) RETURNING id, created_at, updated_at";
+
+    // Duplicate emails are skipped instead of aborting the transaction; skipped rows return nothing
+    private static final String INSERT_USER_SKIP_DUPLICATE_SQL =
+            "INSERT INTO users (first_name, last_name, email) VALUES (?, ?, ?) " +
+            "ON CONFLICT (email) DO NOTHING RETURNING id, email, created_at, updated_at";
+
+    // Multi-row forms of the two inserts above: the rows arrive as three parallel arrays, so a whole chunk
+    // is one statement. A JDBC batch would not do here: the driver only rewrites batched inserts into
+    // multi-row ones when they have no RETURNING clause, and sends one INSERT per row otherwise.
+    private static final String INSERT_USERS_SQL = """
+            INSERT INTO users (first_name, last_name, email)
+            SELECT * FROM unnest(?::varchar[], ?::varchar[], ?::varchar[])
+            RETURNING id, email, created_at, updated_at
+            """;
+
+    private static final String INSERT_USERS_SKIP_DUPLICATES_SQL = """
+            INSERT INTO users (first_name, last_name, email)
+            SELECT * FROM unnest(?::varchar[], ?::varchar[], ?::varchar[])
+            ON CONFLICT (email) DO NOTHING
+            RETURNING id, email, created_at, updated_at
+            """;
+
+    // Upsert keyed on email. The input rows arrive as three parallel arrays, so one statement covers a
+    // whole batch. Rows that exist and would not change are skipped by the WHERE on DO UPDATE (no dead
+    // tuple), and the second SELECT reports them together with DO NOTHING conflicts.
+    // xmax = 0 on a returned row means it was inserted rather than updated.
+    private static final String UPSERT_USERS_SQL_TEMPLATE = """
+            WITH input AS (
+                SELECT * FROM unnest(?::varchar[], ?::varchar[], ?::varchar[]) AS t(first_name, last_name, email)
+            ), upserted AS (
+                INSERT INTO users (first_name, last_name, email)
+                SELECT first_name, last_name, email FROM input
+                ON CONFLICT (email) %s
+                RETURNING id, first_name, last_name, email, created_at, updated_at, (xmax = 0) AS inserted
+            )
+            SELECT id, first_name, last_name, email, created_at, updated_at, inserted, true AS changed FROM upserted
+            UNION ALL
+            SELECT u.id, u.first_name, u.last_name, u.email, u.created_at, u.updated_at, false, false
+            FROM users u JOIN input i ON u.email = i.email
+            WHERE NOT EXISTS (SELECT 1 FROM upserted x WHERE x.email = i.email)
+            """;
+
+    private static final String UPSERT_USERS_UPDATE_SQL = String.format(UPSERT_USERS_SQL_TEMPLATE,
+            "DO UPDATE SET first_name = EXCLUDED.first_name, last_name = EXCLUDED.last_name, updated_at = CURRENT_TIMESTAMP "
+            + "WHERE (users.first_name, users.last_name) IS DISTINCT FROM (EXCLUDED.first_name, EXCLUDED.last_name)");
+
+    private static final String UPSERT_USERS_IGNORE_SQL = String.format(UPSERT_USERS_SQL_TEMPLATE, "DO NOTHING");
 
     private static final String SELECT_USER_BY_ID_SQL =
             "SELECT id, first_name, last_name, email, created_at, updated_at FROM users WHERE id = ?";
@@ -30,259 +121,1225 @@ public class UserDao {
     private static final String SELECT_USER_BY_EMAIL_SQL =
             "SELECT id, first_name, last_name, email, created_at, updated_at FROM users WHERE email = ?";
 
+    private static final String SELECT_USERS_BY_IDS_SQL =
+            "SELECT id, first_name, last_name, email, created_at, updated_at FROM users WHERE id = ANY(?)";
 
-    public User createUser(User user) {
-        System.out.println("Creating user: " + user.getEmail());
+    private static final String SELECT_USERS_BY_EMAILS_SQL =
+            "SELECT id, first_name, last_name, email, created_at, updated_at FROM users WHERE email = ANY(?)";
 
-        // Use try-with-resources to ensure automatic resource cleanup
-        try(Connection connection = DatabaseUtil.getConnection();
-            PreparedStatement preparedStatement = connection.prepareStatement(
-                    INSERT_USER_SQL, Statement.RETURN_GENERATED_KEYS
-            )) {
+    private static final String SELECT_USER_PAGE_SQL =
+            "SELECT id, first_name, last_name, email, created_at, updated_at FROM users";
+
+    private static final String EXACT_USER_COUNT_SQL = "SELECT COUNT(*) FROM users";
+
+    // What the planner does: rows per page from the last ANALYZE times the table's current page count.
+    // NULL (reltuples = -1 or no pages) until the table is first analyzed.
+    private static final String ESTIMATE_USER_COUNT_SQL = """
+            SELECT CASE WHEN c.reltuples < 0 OR c.relpages = 0 THEN NULL
+                        ELSE (c.reltuples / c.relpages * (pg_relation_size(c.oid) / current_setting('block_size')::int))::bigint
+                   END
+            FROM pg_class c WHERE c.oid = 'users'::regclass
+            """;
+
+    private static final String MAINTAINED_USER_COUNT_SQL = "SELECT COALESCE(SUM(row_count), 0) FROM user_count_slots";
+
+    // Each OR branch is a range scan on its lower() prefix index; exact matches rank first
+    private static final String SEARCH_USERS_PREFIX_SQL = """
+            SELECT id, first_name, last_name, email, created_at, updated_at FROM users
+            WHERE lower(email) LIKE ? OR lower(first_name) LIKE ? OR lower(last_name) LIKE ?
+            ORDER BY (lower(email) = ? OR lower(first_name) = ? OR lower(last_name) = ?) DESC, last_name, first_name, id
+            LIMIT ?
+            """;
+
+    // <% filters on word similarity and <<-> orders by word-similarity distance; the trigram GiST index
+    // serves both, returning the closest rows first
+    private static final String SEARCH_USERS_FUZZY_SQL =
+            "SELECT id, first_name, last_name, email, created_at, updated_at FROM users "
+            + "WHERE ? <% " + DatabaseUtil.USER_SEARCH_DOCUMENT + " "
+            + "ORDER BY ? <<-> " + DatabaseUtil.USER_SEARCH_DOCUMENT + " LIMIT ?";
+
+    // FUZZY without pg_trgm, whose operators do not exist then: the term anywhere in a name or the email.
+    // No typo tolerance, and a scan of users
+    private static final String SEARCH_USERS_SUBSTRING_SQL =
+            "SELECT id, first_name, last_name, email, created_at, updated_at FROM users "
+            + "WHERE " + DatabaseUtil.USER_SEARCH_DOCUMENT + " LIKE ? "
+            + "ORDER BY last_name, first_name, id LIMIT ?";
+
+    private static final String SELECT_RECENT_USERS_SQL =
+            "SELECT id, first_name, last_name, email, created_at, updated_at FROM users ORDER BY id DESC LIMIT ?";
+
+    private static final int MAX_PAGE_SIZE = 1000;
 
-            // Set parameters (? placeholders) - this prevents SQL injection
-            preparedStatement.setString(1, user.getFirstName());
-            preparedStatement.setString(2, user.getLastName());
-            preparedStatement.setString(3, user.getEmail());
+    private static final int DEFAULT_COPY_CHUNK_SIZE = 100_000;
 
-            // Execute the INSERT statement
-            int affectedRows = preparedStatement.executeUpdate();
+    // Column limits from the users table definition
+    private static final int MAX_NAME_LENGTH = 100;
+    private static final int MAX_EMAIL_LENGTH = 255;
 
-            if (affectedRows == 0){
-                System.err.println("Creating user failed, no rows affected.");
+    // Read-through cache in front of the id/email lookups; null when caching is disabled
+    private final UserCache cache;
+
+    // Default number of rows per cursor fetch for the streaming reads
+    private final int fetchSize;
+
+    // Default rows per executeBatch() for createUsers
+    private final int batchSize;
+
+    // Keys per = ANY(?) query in the multi-key lookups
+    private final int multiGetChunkSize;
+
+    private final DaoMetrics metrics = DaoMetrics.getInstance();
+
+    public UserDao() {
+        this(UserCache.fromConfig(DatabaseConfig.getInstance()));
+    }
+
+    public UserDao(UserCache cache) {
+        this.cache = cache;
+        this.fetchSize = DatabaseConfig.getInstance().getFetchSize();
+        this.batchSize = DatabaseConfig.getInstance().getBatchSize();
+        this.multiGetChunkSize = DatabaseConfig.getInstance().getMultiGetChunkSize();
+    }
+
+    public UserCache getCache() {
+        return cache;
+    }
+
+    /**
+     * @return cache counters, or null when caching is disabled
+     */
+    public UserCacheStats getCacheStats() {
+        return cache != null ? cache.stats() : null;
+    }
+
+    /**
+     * Records a committed write and runs its cache update. Inside a UnitOfWork the DAO's commit() does
+     * nothing, so both wait for the unit to commit and are dropped if it rolls back.
+     */
+    private void afterWrite(Runnable cacheUpdate){
+        UnitOfWork.afterCommit(() -> {
+            DatabaseUtil.markWrite();
+            if(cache != null){
+                cacheUpdate.run();
+            }
+        });
+    }
+
+    /**
+     * Prepares the statements this DAO runs on the given connection, the way the DAO methods prepare
+     * them, so they land in the connection's statement cache. Describing each one makes the server
+     * parse it as well, which loads the catalog entries the first real call would otherwise wait for.
+     * @return number of statements prepared
+     */
+    public int prepareStatements(Connection connection) throws SQLException {
+        Map<String, Integer> statements = new LinkedHashMap<>();
+        statements.put(INSERT_USER_SQL, Statement.RETURN_GENERATED_KEYS);
+        statements.put(INSERT_USER_SKIP_DUPLICATE_SQL, Statement.RETURN_GENERATED_KEYS);
+        for(String sql : List.of(INSERT_USERS_SQL, INSERT_USERS_SKIP_DUPLICATES_SQL, UPDATE_USER_SQL, DELETE_USER_SQL,
+                UPSERT_USERS_UPDATE_SQL, UPSERT_USERS_IGNORE_SQL)){
+            statements.put(sql, Statement.NO_GENERATED_KEYS);
+        }
+        addReadStatements(connection, statements);
+        return prepare(connection, statements);
+    }
+
+    /**
+     * Like {@link #prepareStatements}, limited to the lookups and searches; for replica connections,
+     * which never run the writes.
+     * @return number of statements prepared
+     */
+    public int prepareReadStatements(Connection connection) throws SQLException {
+        Map<String, Integer> statements = new LinkedHashMap<>();
+        addReadStatements(connection, statements);
+        return prepare(connection, statements);
+    }
+
+    private void addReadStatements(Connection connection, Map<String, Integer> statements) throws SQLException {
+        String fuzzySql = DatabaseUtil.isTrigramAvailable(connection) ? SEARCH_USERS_FUZZY_SQL : SEARCH_USERS_SUBSTRING_SQL;
+        for(String sql : List.of(SELECT_USER_BY_ID_SQL, SELECT_USER_BY_EMAIL_SQL, SELECT_USERS_BY_IDS_SQL,
+                SELECT_USERS_BY_EMAILS_SQL, SELECT_ALL_USERS_SQL, SEARCH_USERS_PREFIX_SQL, fuzzySql)){
+            statements.put(sql, Statement.NO_GENERATED_KEYS);
+        }
+    }
+
+    private int prepare(Connection connection, Map<String, Integer> statements) throws SQLException {
+        int prepared = 0;
+        for(Map.Entry<String, Integer> entry : statements.entrySet()){
+            try(PreparedStatement statement = connection.prepareStatement(entry.getKey(), entry.getValue())){
+                statement.getParameterMetaData();
+                prepared++;
+            }catch (SQLException e){
+                // The other statements are still worth preparing
                 connection.rollback();
-                return null;
+                log.warn("⚠ Could not prepare statement: {}", e.getMessage());
             }
+        }
+        connection.commit();
+        return prepared;
+    }
 
-            // Retrieve the generated ID
-            try (ResultSet generatedKeys = preparedStatement.getGeneratedKeys()){
-                if (generatedKeys.next()){
-                    user.setId(generatedKeys.getLong(1));
-                    connection.commit();
-                    System.out.println("✓ User created successfully with ID: " + user.getId());
-                    return user;
-                } else {
-                    System.err.println("Creating user failed, no ID obtained.");
+    /**
+     * Loads the most recently created users into the cache, so the first lookups of new
+     * (typically the most active) users do not all miss at once. Reads the primary, since rows
+     * read from a replica are not cached (see findUserById).
+     * @return number of users cached; 0 when caching is disabled
+     */
+    public int preloadCache(int count){
+        if(cache == null || count <= 0){
+            return 0;
+        }
+        int loaded = 0;
+        try(Connection connection = DatabaseUtil.getConnection();
+            PreparedStatement statement = connection.prepareStatement(SELECT_RECENT_USERS_SQL)){
+            statement.setInt(1, count);
+            try(ResultSet rs = statement.executeQuery()){
+                UserRowMapper mapper = new UserRowMapper();
+                while(rs.next()){
+                    cache.put(mapper.mapRow(rs));
+                    loaded++;
+                }
+            }
+            connection.commit();
+        }catch (SQLException e){
+            log.error("✗ Error preloading user cache: {}", e.getMessage());
+        }
+        return loaded;
+    }
+
+    public User createUser(User user) {
+        log.info("Creating user: {}", user.getEmail());
+
+        try(OperationTimer timer = metrics.start(OP_CREATE_USER)){
+            // Use try-with-resources to ensure automatic resource cleanup
+            try(Connection connection = DatabaseUtil.getConnection();
+                PreparedStatement preparedStatement = connection.prepareStatement(
+                        INSERT_USER_SQL, Statement.RETURN_GENERATED_KEYS
+                )) {
+
+                // Set parameters (? placeholders) - this prevents SQL injection
+                preparedStatement.setString(1, user.getFirstName());
+                preparedStatement.setString(2, user.getLastName());
+                preparedStatement.setString(3, user.getEmail());
+
+                // Execute the INSERT statement
+                int affectedRows = preparedStatement.executeUpdate();
+
+                if (affectedRows == 0){
+                    log.error("Creating user failed, no rows affected.");
                     connection.rollback();
+                    timer.failed();
                     return null;
                 }
-            }
-        } catch (SQLException e){
-            System.err.println("✗ Error creating user: " + e.getMessage());
 
-            // Handle specific constraint violations
-            if (e.getSQLState().equals("23505")) { // Unique constraint violation
-                System.err.println("  Email already exists: " + user.getEmail());
-            }
+                // Retrieve the generated ID
+                try (ResultSet generatedKeys = preparedStatement.getGeneratedKeys()){
+                    if (generatedKeys.next()){
+                        user.setId(generatedKeys.getLong(1));
+                        Timestamp createdAt = generatedKeys.getTimestamp(2);
+                        Timestamp updatedAt = generatedKeys.getTimestamp(3);
+                        user.setCreatedAt(createdAt != null ? createdAt.toLocalDateTime() : null);
+                        user.setUpdatedAt(updatedAt != null ? updatedAt.toLocalDateTime() : null);
+                        // Other nodes may have cached this email as missing
+                        CacheInvalidationBus.publish(connection, List.of(user.getId()), List.of(user.getEmail()));
+                        connection.commit();
+                        afterWrite(() -> cache.put(user));
+                        log.info("✓ User created successfully with ID: {}", user.getId());
+                        return user;
+                    } else {
+                        log.error("Creating user failed, no ID obtained.");
+                        connection.rollback();
+                        timer.failed();
+                        return null;
+                    }
+                }
+            } catch (SQLException e){
+                timer.failed();
+                log.error("✗ Error creating user: {}", e.getMessage());
+
+                // Handle specific constraint violations
+                if ("23505".equals(e.getSQLState())) { // Unique constraint violation
+                    log.error("  Email already exists: {}", user.getEmail());
+                }
 
-            return null;
+                return null;
+            }
         }
     }
 
     public Optional<User> findUserById(Long id){
-        System.out.println("Finding user by ID: "+id);
+        log.info("Finding user by ID: {}", id);
 
-        try(Connection connection = DatabaseUtil.getConnection();
-        PreparedStatement statement = connection.prepareStatement(SELECT_USER_BY_ID_SQL)){
+        try(OperationTimer timer = metrics.start(OP_FIND_USER_BY_ID)){
+            if(cache != null){
+                UserCache.Lookup cached = cache.getById(id);
+                if(!cached.isMiss()){
+                    return Optional.ofNullable(cached.getUser());
+                }
+            }
 
-            statement.setLong(1, id);
+            try(Connection connection = DatabaseUtil.getReadConnection();
+            PreparedStatement statement = connection.prepareStatement(SELECT_USER_BY_ID_SQL)){
+                // A lagging replica can return a row (or its absence) from before an invalidation that just
+                // happened; cached, that would be served for the whole TTL. Only primary reads fill the cache.
+                boolean cacheable = cache != null && !DatabaseUtil.isReplica(connection);
 
-            try(ResultSet rs = statement.executeQuery()){
-                if(rs.next()){
-                    User user = mapResultSetToUser(rs);
-                    connection.commit();
-                    System.out.println("✓ User found: " + user.getEmail());
-                    return Optional.of(user);
-                } else {
-                    connection.commit();
-                    System.out.println("User with ID " + id + " not found");
-                    return Optional.empty();
+                statement.setLong(1, id);
+
+                try(ResultSet rs = statement.executeQuery()){
+                    if(rs.next()){
+                        User user = new UserRowMapper().mapRow(rs);
+                        connection.commit();
+                        log.info("✓ User found: {}", user.getEmail());
+                        if(cacheable){
+                            // Inside a read-write unit the row may be one of its own uncommitted writes
+                            UnitOfWork.afterCommit(() -> cache.put(user));
+                        }
+                        return Optional.of(user);
+                    } else {
+                        connection.commit();
+                        log.info("User with ID {} not found", id);
+                        if(cacheable){
+                            UnitOfWork.afterCommit(() -> cache.putMissingId(id));
+                        }
+                        return Optional.empty();
+                    }
                 }
+            }catch (SQLException e){
+                timer.failed();
+                log.error("✗ Error finding user by ID: {}", e.getMessage());
+                return Optional.empty();
             }
-        }catch (SQLException e){
-            System.err.println("✗ Error finding user by ID: " + e.getMessage());
-            return Optional.empty();
         }
     }
 
     public Optional<User> findUserByEmail(String email){
-        System.out.println("Finding user by email.");
+        log.info("Finding user by email.");
 
-        try(Connection connection = DatabaseUtil.getConnection();
-            PreparedStatement statement = connection.prepareStatement(SELECT_USER_BY_EMAIL_SQL)){
-            statement.setString(1, email);
+        try(OperationTimer timer = metrics.start(OP_FIND_USER_BY_EMAIL)){
+            if(cache != null){
+                UserCache.Lookup cached = cache.getByEmail(email);
+                if(!cached.isMiss()){
+                    return Optional.ofNullable(cached.getUser());
+                }
+            }
 
-            try(ResultSet rs = statement.executeQuery()){
-                if(rs.next()){
-                    User user = mapResultSetToUser(rs);
-                    connection.commit();
-                    System.out.println("✓ User found by email: " +user.getEmail());
-                    return Optional.of(user);
-                }else{
-                    connection.commit();
-                    System.out.println("User with email "+email+" not found.");
-                    return Optional.empty();
+            try(Connection connection = DatabaseUtil.getReadConnection();
+                PreparedStatement statement = connection.prepareStatement(SELECT_USER_BY_EMAIL_SQL)){
+                // See findUserById
+                boolean cacheable = cache != null && !DatabaseUtil.isReplica(connection);
+                statement.setString(1, email);
+
+                try(ResultSet rs = statement.executeQuery()){
+                    if(rs.next()){
+                        User user = new UserRowMapper().mapRow(rs);
+                        connection.commit();
+                        log.info("✓ User found by email: {}", user.getEmail());
+                        if(cacheable){
+                            UnitOfWork.afterCommit(() -> cache.put(user));
+                        }
+                        return Optional.of(user);
+                    }else{
+                        connection.commit();
+                        log.info("User with email {} not found.", email);
+                        if(cacheable){
+                            UnitOfWork.afterCommit(() -> cache.putMissingEmail(email));
+                        }
+                        return Optional.empty();
+                    }
+                }
+            }catch (Exception e){
+                timer.failed();
+                log.error("User not found {}", e.getMessage());
+                return Optional.empty();
+            }
+        }
+    }
+
+    /**
+     * Looks up many users at once. Keys found in the cache are answered from it; the rest are sent as
+     * one array parameter (id = ANY(?)) per chunk of keys instead of one round trip per id.
+     * @return found users keyed by id; ids that do not exist are absent
+     */
+    public Map<Long, User> findUsersByIds(Collection<Long> ids){
+        log.info("Finding {} users by ID", ids.size());
+        Map<Long, User> found = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+
+        try(OperationTimer timer = metrics.start(OP_FIND_USERS_BY_IDS)){
+            for(Long id : new LinkedHashSet<>(ids)){
+                UserCache.Lookup cached = cache != null ? cache.getById(id) : null;
+                if(cached == null || cached.isMiss()){
+                    missing.add(id);
+                }else if(cached.getUser() != null){
+                    found.put(id, cached.getUser());
                 }
             }
-        }catch (Exception e){
-            System.err.println("User not found "+e.getMessage());
-            return Optional.empty();
+
+            boolean cacheable = cache != null;
+            try{
+                for(int from = 0; from < missing.size(); from += multiGetChunkSize){
+                    List<Long> chunk = missing.subList(from, Math.min(from + multiGetChunkSize, missing.size()));
+                    List<User> users = new ArrayList<>(chunk.size());
+                    cacheable &= findUsersByKeys(SELECT_USERS_BY_IDS_SQL, "bigint", chunk.toArray(new Long[0]), users);
+                    for(User user : users){
+                        found.put(user.getId(), user);
+                    }
+                }
+            }catch (SQLException e){
+                timer.failed();
+                log.error("✗ Error finding users by ID: {}", e.getMessage());
+            }
+
+            if(cacheable){
+                boolean complete = !timer.isFailed();
+                UnitOfWork.afterCommit(() -> {
+                    for(Long id : missing){
+                        User user = found.get(id);
+                        if(user != null){
+                            cache.put(user);
+                        }else if(complete){
+                            cache.putMissingId(id);
+                        }
+                    }
+                });
+            }
+        }
+        log.info("✓ Found {} of {} users", found.size(), ids.size());
+        return found;
+    }
+
+    /**
+     * Email counterpart of {@link #findUsersByIds(Collection)}.
+     * @return found users keyed by email; emails that do not exist are absent
+     */
+    public Map<String, User> findUsersByEmails(Collection<String> emails){
+        log.info("Finding {} users by email", emails.size());
+        Map<String, User> found = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+
+        try(OperationTimer timer = metrics.start(OP_FIND_USERS_BY_EMAILS)){
+            for(String email : new LinkedHashSet<>(emails)){
+                UserCache.Lookup cached = cache != null ? cache.getByEmail(email) : null;
+                if(cached == null || cached.isMiss()){
+                    missing.add(email);
+                }else if(cached.getUser() != null){
+                    found.put(email, cached.getUser());
+                }
+            }
+
+            boolean cacheable = cache != null;
+            try{
+                for(int from = 0; from < missing.size(); from += multiGetChunkSize){
+                    List<String> chunk = missing.subList(from, Math.min(from + multiGetChunkSize, missing.size()));
+                    List<User> users = new ArrayList<>(chunk.size());
+                    cacheable &= findUsersByKeys(SELECT_USERS_BY_EMAILS_SQL, "varchar", chunk.toArray(new String[0]), users);
+                    for(User user : users){
+                        found.put(user.getEmail(), user);
+                    }
+                }
+            }catch (SQLException e){
+                timer.failed();
+                log.error("✗ Error finding users by email: {}", e.getMessage());
+            }
+
+            if(cacheable){
+                boolean complete = !timer.isFailed();
+                UnitOfWork.afterCommit(() -> {
+                    for(String email : missing){
+                        User user = found.get(email);
+                        if(user != null){
+                            cache.put(user);
+                        }else if(complete){
+                            cache.putMissingEmail(email);
+                        }
+                    }
+                });
+            }
+        }
+        log.info("✓ Found {} of {} users", found.size(), emails.size());
+        return found;
+    }
+
+    /**
+     * Adds the users matching keys to users.
+     * @return true when they were read from the primary and may be cached (see findUserById)
+     */
+    private boolean findUsersByKeys(String sql, String elementType, Object[] keys, List<User> users) throws SQLException {
+        try(Connection connection = DatabaseUtil.getReadConnection();
+            PreparedStatement statement = connection.prepareStatement(sql)){
+            boolean fromPrimary = !DatabaseUtil.isReplica(connection);
+            Array keyArray = connection.createArrayOf(elementType, keys);
+            try{
+                statement.setArray(1, keyArray);
+                try(ResultSet rs = statement.executeQuery()){
+                    UserRowMapper mapper = new UserRowMapper();
+                    while(rs.next()){
+                        users.add(mapper.mapRow(rs));
+                    }
+                }
+            }finally {
+                keyArray.free();
+            }
+            connection.commit();
+            return fromPrimary;
         }
     }
 
     public List<User> findAllUsers(){
-        System.out.println("Retrieving all users....");
+        log.info("Retrieving all users....");
         List<User> users = new ArrayList<>();
 
-        try(Connection connection = DatabaseUtil.getConnection();
-        Statement statement = connection.createStatement();
-        ResultSet rs = statement.executeQuery(SELECT_ALL_USERS_SQL)){
-            while(rs.next()){
-                User user = mapResultSetToUser(rs);
-                users.add(user);
+        try(OperationTimer timer = metrics.start(OP_FIND_ALL_USERS)){
+            try(Connection connection = DatabaseUtil.getReadConnection();
+            Statement statement = connection.createStatement();
+            ResultSet rs = statement.executeQuery(SELECT_ALL_USERS_SQL)){
+                UserRowMapper mapper = new UserRowMapper();
+                while(rs.next()){
+                    users.add(mapper.mapRow(rs));
+                }
+                connection.commit();
+                log.info("✓ Retrieved {} users", users.size());
+            }catch (SQLException e){
+                timer.failed();
+                log.error("X Error retrieving all users: {}", e.getMessage());
             }
-            connection.commit();
-            System.out.println("✓ Retrieved " + users.size() + " users");
-        }catch (SQLException e){
-            System.err.println("X Error retrieving all users: "+e.getMessage());
         }
 
         return users;
     }
+    /**
+     * Streams every user ordered by id without loading the table into memory.
+     * The driver reads through a server-side cursor, fetchSize rows at a time, so memory stays flat
+     * regardless of table size. The stream holds a pooled connection until it is closed or fully
+     * consumed; use it in a try-with-resources block.
+     */
+    public Stream<User> streamAllUsers(){
+        return streamAllUsers(fetchSize);
+    }
 
-    public boolean updateUser(User user){
-        System.out.println("Updating user ID: "+user.getId());
+    public Stream<User> streamAllUsers(int fetchSize){
+        log.info("Streaming all users (fetch size {})....", fetchSize);
 
-        try(Connection connection = DatabaseUtil.getConnection();
-        PreparedStatement statement = connection.prepareStatement(UPDATE_USER_SQL)){
-            statement.setString(1, user.getFirstName());
-            statement.setString(2, user.getLastName());
-            statement.setString(3, user.getEmail());
-            statement.setLong(4, user.getId());
-
-            int affectedRows = statement.executeUpdate();
-            if(affectedRows > 0){
+        // Times opening the cursor; the rows are read later by the caller
+        try(OperationTimer timer = metrics.start(OP_STREAM_ALL_USERS)){
+            Connection connection = null;
+            PreparedStatement statement = null;
+            try{
+                connection = DatabaseUtil.getReadConnection();
+                // Cursor-based fetching needs auto-commit off and a forward-only result set. Off is the pool
+                // default; a read-only UnitOfWork runs in auto-commit, so switch it off for the cursor.
+                connection.setAutoCommit(false);
+                statement = connection.prepareStatement(SELECT_ALL_USERS_SQL);
+                statement.setFetchSize(fetchSize);
+                ResultSet rs = statement.executeQuery();
+                return ResultSetStream.of(connection, statement, rs, new UserRowMapper());
+            }catch (SQLException e){
+                timer.failed();
+                log.error("X Error streaming users: {}", e.getMessage());
+                DatabaseUtil.closeResources(connection, statement, null);
+                return Stream.empty();
+            }
+        }
+    }
+
+    /**
+     * Calls the consumer for every user ordered by id, one cursor fetch at a time.
+     * @return number of users visited
+     */
+    public long forEachUser(Consumer<User> consumer){
+        long[] count = {0};
+        try(Stream<User> users = streamAllUsers()){
+            users.forEach(user -> {
+                consumer.accept(user);
+                count[0]++;
+            });
+        }
+        return count[0];
+    }
+
+    /**
+     * Scan-oriented variant of forEachUser: every row is read into the same {@link UserRow},
+     * so no User is allocated per row. The holder is overwritten on the next row; copy it with
+     * {@link UserRow#toUser()} if it needs to be kept.
+     * @return number of rows visited
+     */
+    public long forEachUserRow(Consumer<UserRow> consumer){
+        log.info("Scanning all users (fetch size {})....", fetchSize);
+
+        // Times the whole scan, the consumer's work included
+        try(OperationTimer timer = metrics.start(OP_FOR_EACH_USER_ROW)){
+            Connection connection = null;
+            PreparedStatement statement = null;
+            try{
+                connection = DatabaseUtil.getReadConnection();
+                connection.setAutoCommit(false);
+                statement = connection.prepareStatement(SELECT_ALL_USERS_SQL);
+                statement.setFetchSize(fetchSize);
+                ResultSet rs = statement.executeQuery();
+
+                UserRowMapper mapper = new UserRowMapper();
+                UserRow row = new UserRow();
+                long[] count = {0};
+                try(Stream<UserRow> rows = ResultSetStream.of(connection, statement, rs, resultSet -> {
+                    mapper.mapInto(resultSet, row);
+                    return row;
+                })){
+                    rows.forEach(current -> {
+                        consumer.accept(current);
+                        count[0]++;
+                    });
+                }
+                return count[0];
+            }catch (SQLException e){
+                timer.failed();
+                log.error("X Error scanning users: {}", e.getMessage());
+                DatabaseUtil.closeResources(connection, statement, null);
+                return 0;
+            }catch (RuntimeException e){
+                // A fetch failing mid-scan, or the consumer
+                timer.failed();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Returns up to limit users with id greater than afterId, in id order (keyset pagination).
+     * Every page is an index range scan on the primary key, so page 10,000 costs the same as page 1.
+     * @param afterId cursor from {@link UserPage#getNextCursor()}, or null for the first page
+     */
+    public UserPage findUsersAfter(Long afterId, int limit, UserFilter filter){
+        return findUserPage(afterId, limit, filter, true);
+    }
+
+    /**
+     * Returns up to limit users with id less than beforeId, still in ascending id order.
+     * @param beforeId cursor from {@link UserPage#getPreviousCursor()}, or null for the last page
+     */
+    public UserPage findUsersBefore(Long beforeId, int limit, UserFilter filter){
+        return findUserPage(beforeId, limit, filter, false);
+    }
+
+    private UserPage findUserPage(Long cursor, int limit, UserFilter filter, boolean forward){
+        if(limit <= 0 || limit > MAX_PAGE_SIZE){
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        if(filter == null){
+            filter = UserFilter.none();
+        }
+
+        // Build the WHERE clause from the filters that are set; values are always bound as parameters
+        StringBuilder sql = new StringBuilder(SELECT_USER_PAGE_SQL);
+        List<Object> params = new ArrayList<>();
+        List<String> conditions = new ArrayList<>();
+        if(cursor != null){
+            conditions.add(forward ? "id > ?" : "id < ?");
+            params.add(cursor);
+        }
+        if(filter.getLastName() != null){
+            conditions.add("last_name = ?");
+            params.add(filter.getLastName());
+        }
+        if(filter.getEmailDomain() != null){
+            conditions.add("email LIKE ?");
+            params.add("%@" + escapeLike(filter.getEmailDomain()));
+        }
+        if(filter.getCreatedFrom() != null){
+            conditions.add("created_at >= ?");
+            params.add(Timestamp.valueOf(filter.getCreatedFrom()));
+        }
+        if(filter.getCreatedTo() != null){
+            conditions.add("created_at < ?");
+            params.add(Timestamp.valueOf(filter.getCreatedTo()));
+        }
+        if(!conditions.isEmpty()){
+            sql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+        // Fetch one extra row to learn whether another page exists
+        sql.append(forward ? " ORDER BY id ASC LIMIT ?" : " ORDER BY id DESC LIMIT ?");
+        params.add(limit + 1);
+
+        List<User> users = new ArrayList<>(limit + 1);
+        try(OperationTimer timer = metrics.start(OP_FIND_USER_PAGE)){
+            try(Connection connection = DatabaseUtil.getReadConnection();
+                PreparedStatement statement = connection.prepareStatement(sql.toString())){
+                for(int i = 0; i < params.size(); i++){
+                    statement.setObject(i + 1, params.get(i));
+                }
+                try(ResultSet rs = statement.executeQuery()){
+                    UserRowMapper mapper = new UserRowMapper();
+                    while(rs.next()){
+                        users.add(mapper.mapRow(rs));
+                    }
+                }
                 connection.commit();
-                System.out.println("✓ User updated successfully");
-                return true;
-            }else{
-                connection.rollback();
-                System.out.println("No user found with ID: " + user.getId());
+            }catch (SQLException e){
+                timer.failed();
+                log.error("X Error retrieving user page: {}", e.getMessage());
+                return new UserPage(Collections.emptyList(), false, false);
+            }
+        }
+
+        boolean more = users.size() > limit;
+        if(more){
+            users.remove(users.size() - 1);
+        }
+        if(forward){
+            return new UserPage(users, more, cursor != null);
+        }
+        Collections.reverse(users);
+        return new UserPage(users, cursor != null, more);
+    }
+
+    /**
+     * Finds users whose name or email starts with (PREFIX) or resembles (FUZZY) the term, best match
+     * first. Without the pg_trgm extension FUZZY matches the term anywhere in a name or the email instead.
+     * Rows are streamed from the database as they are read; close the stream when done.
+     * @param limit most results, up to 1000
+     */
+    public Stream<User> searchUsers(String term, SearchMode mode, int limit){
+        if(limit <= 0 || limit > MAX_PAGE_SIZE){
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        if(term == null || term.isBlank()){
+            return Stream.empty();
+        }
+        String normalized = term.trim().toLowerCase(Locale.ROOT);
+        log.info("Searching users ({}): {}", mode, normalized);
+
+        try(OperationTimer timer = metrics.start(OP_SEARCH_USERS)){
+            Connection connection = null;
+            PreparedStatement statement = null;
+            try{
+                connection = DatabaseUtil.getReadConnection();
+                connection.setAutoCommit(false);
+                if(mode == SearchMode.PREFIX){
+                    String pattern = escapeLike(normalized) + "%";
+                    statement = connection.prepareStatement(SEARCH_USERS_PREFIX_SQL);
+                    statement.setString(1, pattern);
+                    statement.setString(2, pattern);
+                    statement.setString(3, pattern);
+                    statement.setString(4, normalized);
+                    statement.setString(5, normalized);
+                    statement.setString(6, normalized);
+                    statement.setInt(7, limit);
+                }else if(DatabaseUtil.isTrigramAvailable(connection)){
+                    statement = connection.prepareStatement(SEARCH_USERS_FUZZY_SQL);
+                    statement.setString(1, normalized);
+                    statement.setString(2, normalized);
+                    statement.setInt(3, limit);
+                }else{
+                    statement = connection.prepareStatement(SEARCH_USERS_SUBSTRING_SQL);
+                    statement.setString(1, "%" + escapeLike(normalized) + "%");
+                    statement.setInt(2, limit);
+                }
+                statement.setFetchSize(Math.min(limit, fetchSize));
+                ResultSet rs = statement.executeQuery();
+                return ResultSetStream.of(connection, statement, rs, new UserRowMapper());
+            }catch (SQLException e){
+                timer.failed();
+                log.error("X Error searching users: {}", e.getMessage());
+                DatabaseUtil.closeResources(connection, statement, null);
+                return Stream.empty();
+            }
+        }
+    }
+
+    private static String escapeLike(String value){
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    public boolean updateUser(User user){
+        log.info("Updating user ID: {}", user.getId());
+
+        try(OperationTimer timer = metrics.start(OP_UPDATE_USER)){
+            try(Connection connection = DatabaseUtil.getConnection();
+            PreparedStatement statement = connection.prepareStatement(UPDATE_USER_SQL)){
+                statement.setString(1, user.getFirstName());
+                statement.setString(2, user.getLastName());
+                statement.setString(3, user.getEmail());
+                statement.setLong(4, user.getId());
+
+                int affectedRows = statement.executeUpdate();
+                if(affectedRows > 0){
+                    CacheInvalidationBus.publish(connection, List.of(user.getId()), List.of(user.getEmail()));
+                    connection.commit();
+                    Long id = user.getId();
+                    String email = user.getEmail();
+                    // updated_at is set by the database, so drop the entry instead of caching a stale copy
+                    afterWrite(() -> {
+                        cache.invalidate(id);
+                        cache.invalidateEmail(email);
+                    });
+                    log.info("✓ User updated successfully");
+                    return true;
+                }else{
+                    // Nothing changed, so nothing to roll back: the pool ends the transaction on return,
+                    // and inside a UnitOfWork a missing user does not undo the rest of the unit
+                    log.info("No user found with ID: {}", user.getId());
+                    return false;
+                }
+            }catch (SQLException e){
+                timer.failed();
+                log.error("X Error updating user: {}", e.getMessage());
                 return false;
             }
-        }catch (SQLException e){
-            System.err.println("X Error updating user: "+e.getMessage());
-            return false;
         }
     }
 
     public boolean deleteUser(Long id){
-        System.out.println("Deleting user ID: "+id);
+        log.info("Deleting user ID: {}", id);
 
-        try(Connection connection = DatabaseUtil.getConnection();
-        PreparedStatement statement = connection.prepareStatement(DELETE_USER_SQL)){
-            statement.setLong(1, id);
+        try(OperationTimer timer = metrics.start(OP_DELETE_USER)){
+            try(Connection connection = DatabaseUtil.getConnection();
+            PreparedStatement statement = connection.prepareStatement(DELETE_USER_SQL)){
+                statement.setLong(1, id);
 
-            int affectedRows = statement.executeUpdate();
+                int affectedRows = statement.executeUpdate();
 
-            if(affectedRows > 0){
-                connection.commit();
-                System.out.println("✓ User deleted successfully");
-                return true;
-            } else {
-                connection.rollback();
-                System.out.println("No user found with ID: "+id);
+                if(affectedRows > 0){
+                    CacheInvalidationBus.publish(connection, List.of(id), List.of());
+                    connection.commit();
+                    afterWrite(() -> cache.invalidate(id));
+                    log.info("✓ User deleted successfully");
+                    return true;
+                } else {
+                    // Nothing changed; see updateUser
+                    log.info("No user found with ID: {}", id);
+                    return false;
+                }
+
+            }catch (SQLException e){
+                timer.failed();
+                log.error("✗ Error deleting user: {}", e.getMessage());
                 return false;
             }
-
-        }catch (SQLException e){
-            System.err.println("✗ Error deleting user: "+e.getMessage());
-            return false;
         }
     }
 
     public boolean createUsersInTransaction(List<User> users){
-        System.out.println("Creating " + users.size() + " users in a single transaction...");
+        log.info("Creating {} users in a single transaction...", users.size());
 
         Connection connection = null;
         PreparedStatement stmt = null;
+        OperationTimer timer = metrics.start(OP_CREATE_USERS_IN_TRANSACTION);
 
         try{
             connection = DatabaseUtil.getConnection();
-            stmt = connection.prepareStatement(INSERT_USER_SQL, Statement.RETURN_GENERATED_KEYS);
+            stmt = connection.prepareStatement(INSERT_USERS_SQL);
+            setUserArrays(connection, stmt, users);
 
+            // A duplicate email fails the whole statement, so each returned email is exactly one input user
+            Map<String, User> byEmail = new HashMap<>();
             for(User user : users){
-                stmt.setString(1, user.getFirstName());
-                stmt.setString(2, user.getLastName());
-                stmt.setString(3, user.getEmail());
-                stmt.addBatch();
+                byEmail.put(user.getEmail(), user);
             }
-
-            int[] affectedRows = stmt.executeBatch();
-
-            for(int rows : affectedRows){
-                if(rows == 0) {
-                    System.err.println("One or more user creations failed");
-                    connection.rollback();
-                    return false;
+            int inserted = 0;
+            try(ResultSet generatedKeys = stmt.executeQuery()){
+                while(generatedKeys.next()){
+                    User user = byEmail.get(generatedKeys.getString("email"));
+                    if(user != null){
+                        applyGeneratedKeys(user, generatedKeys);
+                    }
+                    inserted++;
                 }
             }
 
+            if(inserted != users.size()){
+                log.error("One or more user creations failed");
+                connection.rollback();
+                timer.failed();
+                return false;
+            }
+
+            CacheInvalidationBus.publish(connection,
+                    users.stream().map(User::getId).toList(), users.stream().map(User::getEmail).toList());
             connection.commit();
-            System.out.println("✓ All " + users.size() + " users created successfully in transaction");
+            List<String> emails = users.stream().map(User::getEmail).toList();
+            // These emails exist now; forget any cached "not found"
+            afterWrite(() -> emails.forEach(cache::invalidateEmail));
+            log.info("✓ All {} users created successfully in transaction", users.size());
             return true;
         }catch (SQLException e){
-            System.err.println("✗ Error creating users in transaction: " + e.getMessage());
+            timer.failed();
+            log.error("✗ Error creating users in transaction: {}", e.getMessage());
             if(connection != null){
                 try{
                     connection.rollback();
-                    System.out.println("✓ Transaction rolled back due to error");
+                    log.info("✓ Transaction rolled back due to error");
                 }catch (SQLException rollbackEx){
-                    System.err.println("✗ Error during rollback: " + rollbackEx.getMessage());
+                    log.error("✗ Error during rollback: {}", rollbackEx.getMessage());
                 }
             }
             return false;
         }finally {
             DatabaseUtil.closeResources(connection, stmt, null);
+            timer.close();
         }
     }
 
-    public long getUserCount(){
-        String countSQL = "SELECT COUNT(*) FROM users";
-        try(Connection connection = DatabaseUtil.getConnection();
-        Statement statement = connection.createStatement();
-        ResultSet rs = statement.executeQuery(countSQL)){
+    /**
+     * Inserts users in chunks of the configured batch size. See {@link #createUsers(List, int)}.
+     */
+    public BatchInsertResult createUsers(List<User> users){
+        return createUsers(users, batchSize);
+    }
 
-            if(rs.next()){
-                long count = rs.getLong(1);
-                connection.commit();
-                return count;
+    /**
+     * Inserts users in chunks of batchSize rows, one multi-row INSERT and one transaction per chunk.
+     * Unlike createUsersInTransaction, a bad row does not abort the others: invalid users are rejected
+     * up front, duplicate emails are skipped with ON CONFLICT DO NOTHING, and if a chunk still fails
+     * it is retried row by row behind savepoints. Inserted users get their id and timestamps filled in
+     * from the RETURNING clause, so no follow-up lookup is needed.
+     */
+    public BatchInsertResult createUsers(List<User> users, int batchSize){
+        if(batchSize <= 0){
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+        log.info("Creating {} users in batches of {}...", users.size(), batchSize);
+        OperationTimer timer = metrics.start(OP_CREATE_USERS);
+
+        BatchInsertResult.RowOutcome[] outcomes = new BatchInsertResult.RowOutcome[users.size()];
+        List<Integer> valid = new ArrayList<>(users.size());
+        for(int i = 0; i < users.size(); i++){
+            String problem = validateForInsert(users.get(i));
+            if(problem != null){
+                outcomes[i] = new BatchInsertResult.RowOutcome(i, users.get(i), BatchInsertResult.Status.INVALID, problem);
+            }else{
+                valid.add(i);
+            }
+        }
+
+        try(Connection connection = DatabaseUtil.getConnection()){
+            for(int from = 0; from < valid.size(); from += batchSize){
+                List<Integer> chunk = valid.subList(from, Math.min(from + batchSize, valid.size()));
+                try{
+                    insertChunk(connection, users, chunk, outcomes);
+                    CacheInvalidationBus.publish(connection, List.of(), emailsOf(users, chunk));
+                    connection.commit();
+                }catch (SQLException e){
+                    connection.rollback();
+                    log.warn("⚠ Batch failed ({}), retrying {} rows individually", e.getMessage(), chunk.size());
+                    insertRowByRow(connection, users, chunk, outcomes);
+                    CacheInvalidationBus.publish(connection, List.of(), emailsOf(users, chunk));
+                    connection.commit();
+                }
+                List<User> inserted = insertedUsers(chunk, outcomes);
+                afterWrite(() -> inserted.forEach(cache::put));
             }
         }catch (SQLException e){
-            System.err.println("X Error getting user count: "+e.getMessage());
+            timer.failed();
+            log.error("✗ Error creating users: {}", e.getMessage());
         }
 
-        return 0;
+        List<BatchInsertResult.RowOutcome> result = new ArrayList<>(outcomes.length);
+        for(int i = 0; i < outcomes.length; i++){
+            result.add(outcomes[i] != null ? outcomes[i]
+                    : new BatchInsertResult.RowOutcome(i, users.get(i), BatchInsertResult.Status.FAILED, "Not attempted"));
+        }
+        BatchInsertResult batchResult = new BatchInsertResult(result, timer.elapsedNanos());
+        timer.close();
+        log.info("✓ {}", batchResult);
+        return batchResult;
+    }
+
+    private void insertChunk(Connection connection, List<User> users, List<Integer> chunk,
+                             BatchInsertResult.RowOutcome[] outcomes) throws SQLException {
+        Map<String, Integer> indexByEmail = new HashMap<>();
+        List<User> rows = new ArrayList<>(chunk.size());
+        for(int index : chunk){
+            rows.add(users.get(index));
+            // The first occurrence of an email in the chunk is the one that gets inserted
+            indexByEmail.putIfAbsent(users.get(index).getEmail(), index);
+        }
+        try(PreparedStatement statement = connection.prepareStatement(INSERT_USERS_SKIP_DUPLICATES_SQL)){
+            setUserArrays(connection, statement, rows);
+
+            // Only inserted rows come back, so match them to the input by email
+            try(ResultSet keys = statement.executeQuery()){
+                while(keys.next()){
+                    Integer index = indexByEmail.get(keys.getString("email"));
+                    if(index != null){
+                        applyGeneratedKeys(users.get(index), keys);
+                        outcomes[index] = new BatchInsertResult.RowOutcome(
+                                index, users.get(index), BatchInsertResult.Status.INSERTED, null);
+                    }
+                }
+            }
+        }
+
+        for(int index : chunk){
+            if(outcomes[index] == null){
+                outcomes[index] = new BatchInsertResult.RowOutcome(index, users.get(index),
+                        BatchInsertResult.Status.DUPLICATE_EMAIL, "Email already exists: " + users.get(index).getEmail());
+            }
+        }
+    }
+
+    private void insertRowByRow(Connection connection, List<User> users, List<Integer> chunk,
+                                BatchInsertResult.RowOutcome[] outcomes) throws SQLException {
+        try(PreparedStatement statement = connection.prepareStatement(
+                INSERT_USER_SKIP_DUPLICATE_SQL, Statement.RETURN_GENERATED_KEYS)){
+            for(int index : chunk){
+                User user = users.get(index);
+                Savepoint savepoint = connection.setSavepoint();
+                try{
+                    statement.setString(1, user.getFirstName());
+                    statement.setString(2, user.getLastName());
+                    statement.setString(3, user.getEmail());
+                    statement.executeUpdate();
+                    try(ResultSet keys = statement.getGeneratedKeys()){
+                        if(keys.next()){
+                            applyGeneratedKeys(user, keys);
+                            outcomes[index] = new BatchInsertResult.RowOutcome(index, user, BatchInsertResult.Status.INSERTED, null);
+                        }else{
+                            outcomes[index] = new BatchInsertResult.RowOutcome(index, user,
+                                    BatchInsertResult.Status.DUPLICATE_EMAIL, "Email already exists: " + user.getEmail());
+                        }
+                    }
+                    connection.releaseSavepoint(savepoint);
+                }catch (SQLException e){
+                    connection.rollback(savepoint);
+                    outcomes[index] = new BatchInsertResult.RowOutcome(index, user, BatchInsertResult.Status.FAILED, e.getMessage());
+                }
+            }
+        }
     }
 
-    private User mapResultSetToUser(ResultSet resultSet) throws SQLException{
-        User user = new User();
+    /**
+     * Binds the users' names and emails as the three array parameters of the unnest() inserts.
+     */
+    private static void setUserArrays(Connection connection, PreparedStatement statement, List<User> users) throws SQLException {
+        String[] firstNames = new String[users.size()];
+        String[] lastNames = new String[users.size()];
+        String[] emails = new String[users.size()];
+        for(int i = 0; i < users.size(); i++){
+            firstNames[i] = users.get(i).getFirstName();
+            lastNames[i] = users.get(i).getLastName();
+            emails[i] = users.get(i).getEmail();
+        }
+        statement.setArray(1, connection.createArrayOf("varchar", firstNames));
+        statement.setArray(2, connection.createArrayOf("varchar", lastNames));
+        statement.setArray(3, connection.createArrayOf("varchar", emails));
+    }
 
-        user.setId(resultSet.getLong("id"));
-        user.setFirstName(resultSet.getString("first_name"));
-        user.setLastName(resultSet.getString("last_name"));
-        user.setEmail(resultSet.getString("email"));
+    private static List<User> insertedUsers(List<Integer> chunk, BatchInsertResult.RowOutcome[] outcomes){
+        List<User> inserted = new ArrayList<>(chunk.size());
+        for(int index : chunk){
+            if(outcomes[index] != null && outcomes[index].getStatus() == BatchInsertResult.Status.INSERTED){
+                inserted.add(outcomes[index].getUser());
+            }
+        }
+        return inserted;
+    }
 
-        Timestamp createdAtTimestamp = resultSet.getTimestamp("created_at");
-        if(createdAtTimestamp != null){
-            user.setCreatedAt(createdAtTimestamp.toLocalDateTime());
+    private static List<String> emailsOf(List<User> users, List<Integer> indexes){
+        List<String> emails = new ArrayList<>(indexes.size());
+        for(int index : indexes){
+            emails.add(users.get(index).getEmail());
         }
+        return emails;
+    }
+
+    private static void applyGeneratedKeys(User user, ResultSet keys) throws SQLException {
+        user.setId(keys.getLong("id"));
+        Timestamp createdAt = keys.getTimestamp("created_at");
+        Timestamp updatedAt = keys.getTimestamp("updated_at");
+        user.setCreatedAt(createdAt != null ? createdAt.toLocalDateTime() : null);
+        user.setUpdatedAt(updatedAt != null ? updatedAt.toLocalDateTime() : null);
+    }
 
-        Timestamp updatedAtTimestamp = resultSet.getTimestamp("updated_at");
-        if(updatedAtTimestamp != null){
-            user.setUpdatedAt(updatedAtTimestamp.toLocalDateTime());
+    /**
+     * @return a description of what is wrong with the user, or null if it can be inserted
+     */
+    private static String validateForInsert(User user){
+        if(user == null){
+            return "User is null";
+        }
+        if(user.getFirstName() == null || user.getFirstName().isBlank()
+                || user.getLastName() == null || user.getLastName().isBlank()){
+            return "First and last name are required";
+        }
+        if(user.getFirstName().length() > MAX_NAME_LENGTH || user.getLastName().length() > MAX_NAME_LENGTH){
+            return "Names are limited to " + MAX_NAME_LENGTH + " characters";
+        }
+        if(user.getEmail() == null || !user.getEmail().contains("@")){
+            return "A valid email is required";
+        }
+        if(user.getEmail().length() > MAX_EMAIL_LENGTH){
+            return "Email is limited to " + MAX_EMAIL_LENGTH + " characters";
         }
+        return null;
+    }
+
+    /**
+     * Inserts the user, or handles the existing user with the same email according to mode,
+     * in a single statement (no failed INSERT, rollback and exception for duplicates).
+     * The user's id and timestamps are filled in from the stored row.
+     * @return the outcome, or null if the statement failed
+     */
+    public UpsertResult upsertUser(User user, UpsertMode mode){
+        List<UpsertResult> results = upsertUsers(List.of(user), mode);
+        return results.isEmpty() ? null : results.get(0);
+    }
+
+    /**
+     * Batched upsert keyed on email: one statement per batch of the configured batch size, all in one
+     * transaction, so a failure leaves nothing written. If the same email appears more than once, the
+     * last occurrence wins and every occurrence gets the same result. A row the statement could not
+     * see (its email was inserted concurrently) is reported as {@link UpsertResult.Outcome#SKIPPED}.
+     * @return one result per input user in input order, or an empty list if the upsert failed
+     */
+    public List<UpsertResult> upsertUsers(List<User> users, UpsertMode mode){
+        log.info("Upserting {} users ({})", users.size(), mode);
+        String sql = mode == UpsertMode.UPDATE ? UPSERT_USERS_UPDATE_SQL : UPSERT_USERS_IGNORE_SQL;
 
-        return user;
+        // Collapse duplicate emails so the statement never touches the same row twice
+        Map<String, User> byEmail = new LinkedHashMap<>();
+        for(User user : users){
+            byEmail.put(user.getEmail(), user);
+        }
+        List<User> distinct = new ArrayList<>(byEmail.values());
+        Map<String, UpsertResult> resultsByEmail = new HashMap<>();
+
+        try(OperationTimer timer = metrics.start(OP_UPSERT_USERS)){
+            try(Connection connection = DatabaseUtil.getConnection();
+                PreparedStatement statement = connection.prepareStatement(sql)){
+                for(int from = 0; from < distinct.size(); from += batchSize){
+                    List<User> chunk = distinct.subList(from, Math.min(from + batchSize, distinct.size()));
+                    String[] firstNames = new String[chunk.size()];
+                    String[] lastNames = new String[chunk.size()];
+                    String[] emails = new String[chunk.size()];
+                    for(int i = 0; i < chunk.size(); i++){
+                        firstNames[i] = chunk.get(i).getFirstName();
+                        lastNames[i] = chunk.get(i).getLastName();
+                        emails[i] = chunk.get(i).getEmail();
+                    }
+                    statement.setArray(1, connection.createArrayOf("varchar", firstNames));
+                    statement.setArray(2, connection.createArrayOf("varchar", lastNames));
+                    statement.setArray(3, connection.createArrayOf("varchar", emails));
+
+                    try(ResultSet rs = statement.executeQuery()){
+                        UserRowMapper mapper = new UserRowMapper();
+                        while(rs.next()){
+                            User stored = mapper.mapRow(rs);
+                            UpsertResult.Outcome outcome = rs.getBoolean("inserted") ? UpsertResult.Outcome.INSERTED
+                                    : rs.getBoolean("changed") ? UpsertResult.Outcome.UPDATED
+                                    : UpsertResult.Outcome.UNCHANGED;
+                            resultsByEmail.put(stored.getEmail(), new UpsertResult(stored, outcome));
+                        }
+                    }
+                    // Upserts never change an email, so the email reaches cached ids on other nodes too
+                    CacheInvalidationBus.publish(connection, List.of(), Arrays.asList(emails));
+                }
+                connection.commit();
+            }catch (SQLException e){
+                timer.failed();
+                log.error("✗ Error upserting users: {}", e.getMessage());
+                return Collections.emptyList();
+            }
+        }
+
+        List<UpsertResult> results = new ArrayList<>(users.size());
+        for(User user : users){
+            UpsertResult result = resultsByEmail.get(user.getEmail());
+            if(result == null){
+                // Only possible if a concurrent transaction inserted the email after our snapshot
+                results.add(new UpsertResult(user, UpsertResult.Outcome.SKIPPED));
+                continue;
+            }
+            User stored = result.getUser();
+            user.setId(stored.getId());
+            user.setCreatedAt(stored.getCreatedAt());
+            user.setUpdatedAt(stored.getUpdatedAt());
+            results.add(result);
+        }
+        List<User> storedUsers = resultsByEmail.values().stream().map(UpsertResult::getUser).toList();
+        afterWrite(() -> storedUsers.forEach(cache::put));
+        long skipped = results.stream().filter(result -> result.getOutcome() == UpsertResult.Outcome.SKIPPED).count();
+        if(skipped > 0){
+            log.warn("⚠ {} users skipped: their emails were inserted concurrently", skipped);
+        }
+        log.info("✓ Upserted {} users", results.size() - skipped);
+        return results;
+    }
+
+    /**
+     * Bulk loads users with COPY FROM STDIN, committing every chunkSize rows.
+     * Much faster than createUsersInTransaction for large imports, but generated ids are not returned.
+     */
+    public BulkLoadResult bulkLoadUsers(Iterator<User> users, int chunkSize){
+        try(OperationTimer timer = metrics.start(OP_BULK_LOAD_USERS)){
+            BulkLoadResult result = new UserBulkLoader(cache).load(users, chunkSize);
+            if(!result.isSuccessful()){
+                timer.failed();
+            }
+            return result;
+        }
+    }
+
+    public BulkLoadResult bulkLoadUsers(Stream<User> users){
+        try(users){
+            return bulkLoadUsers(users.iterator(), DEFAULT_COPY_CHUNK_SIZE);
+        }
+    }
+
+    /**
+     * Exact count; see {@link #getUserCount(CountMode)} for cheaper modes.
+     */
+    public long getUserCount(){
+        return getUserCount(CountMode.EXACT);
+    }
+
+    /**
+     * Counts users the way the mode says. ESTIMATE falls back to EXACT while the table has never been
+     * analyzed, and MAINTAINED falls back to EXACT while the counter is not installed.
+     * @return the count, or 0 if it could not be read
+     */
+    public long getUserCount(CountMode mode){
+        try(OperationTimer timer = metrics.start(OP_GET_USER_COUNT)){
+            try(Connection connection = DatabaseUtil.getReadConnection();
+            Statement statement = connection.createStatement()){
+                Long count = null;
+                if(mode == CountMode.ESTIMATE){
+                    count = queryCount(statement, ESTIMATE_USER_COUNT_SQL);
+                }else if(mode == CountMode.MAINTAINED){
+                    if(DatabaseUtil.isUserCounterInstalled(connection)){
+                        try{
+                            count = queryCount(statement, MAINTAINED_USER_COUNT_SQL);
+                        }catch (SQLException e){
+                            if("42P01".equals(e.getSQLState())){
+                                // undefined_table: the counter was dropped; the next call checks again
+                                DatabaseUtil.userCounterDropped();
+                            }
+                            throw e;
+                        }
+                    }else{
+                        log.warn("⚠ User counter is not installed, counting exactly");
+                    }
+                }
+                if(count == null){
+                    count = queryCount(statement, EXACT_USER_COUNT_SQL);
+                }
+                connection.commit();
+                return count != null ? count : 0;
+            }catch (SQLException e){
+                timer.failed();
+                log.error("X Error getting user count: {}", e.getMessage());
+            }
+        }
+
+        return 0;
+    }
+
+    private static Long queryCount(Statement statement, String sql) throws SQLException {
+        Object value = querySingle(statement, sql);
+        return value != null ? ((Number) value).longValue() : null;
+    }
+
+    private static Object querySingle(Statement statement, String sql) throws SQLException {
+        try(ResultSet rs = statement.executeQuery(sql)){
+            return rs.next() ? rs.getObject(1) : null;
+        }
     }
 }
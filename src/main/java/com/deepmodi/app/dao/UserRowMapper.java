@@ -0,0 +1,67 @@
+package com.deepmodi.app.dao;
+
+import com.deepmodi.app.model.User;
+import com.deepmodi.app.model.UserRow;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+
+/**
+ * Maps users rows with column indexes resolved once per ResultSet.
+ *
+ * Looking columns up by name on every row costs a map lookup per column per row, and going
+ * through java.sql.Timestamp allocates an intermediate object per timestamp. This mapper resolves
+ * the six indexes the first time it sees a ResultSet and reads timestamps straight into LocalDateTime.
+ *
+ * An instance remembers the ResultSet it was bound to, so it is cheap to create per query but must not
+ * be shared between threads.
+ */
+public final class UserRowMapper implements RowMapper<User> {
+    private ResultSet boundTo;
+    private int idColumn;
+    private int firstNameColumn;
+    private int lastNameColumn;
+    private int emailColumn;
+    private int createdAtColumn;
+    private int updatedAtColumn;
+
+    @Override
+    public User mapRow(ResultSet resultSet) throws SQLException {
+        bind(resultSet);
+        return new User(
+                resultSet.getLong(idColumn),
+                resultSet.getString(firstNameColumn),
+                resultSet.getString(lastNameColumn),
+                resultSet.getString(emailColumn),
+                resultSet.getObject(createdAtColumn, LocalDateTime.class),
+                resultSet.getObject(updatedAtColumn, LocalDateTime.class));
+    }
+
+    /**
+     * Reads the current row into a reusable holder without allocating a User.
+     */
+    public void mapInto(ResultSet resultSet, UserRow row) throws SQLException {
+        bind(resultSet);
+        row.set(
+                resultSet.getLong(idColumn),
+                resultSet.getString(firstNameColumn),
+                resultSet.getString(lastNameColumn),
+                resultSet.getString(emailColumn),
+                resultSet.getObject(createdAtColumn, LocalDateTime.class),
+                resultSet.getObject(updatedAtColumn, LocalDateTime.class));
+    }
+
+    private void bind(ResultSet resultSet) throws SQLException {
+        if(boundTo == resultSet){
+            return;
+        }
+        idColumn = resultSet.findColumn("id");
+        firstNameColumn = resultSet.findColumn("first_name");
+        lastNameColumn = resultSet.findColumn("last_name");
+        emailColumn = resultSet.findColumn("email");
+        createdAtColumn = resultSet.findColumn("created_at");
+        updatedAtColumn = resultSet.findColumn("updated_at");
+        boundTo = resultSet;
+    }
+}
@@ -0,0 +1,366 @@
+package com.deepmodi.app.dao;
+
+import com.deepmodi.app.cache.CacheInvalidationBus;
+import com.deepmodi.app.cache.UserCache;
+import com.deepmodi.app.config.DatabaseConfig;
+import com.deepmodi.app.metrics.DaoMetrics;
+import com.deepmodi.app.metrics.OperationTimer;
+import com.deepmodi.app.model.User;
+import com.deepmodi.app.util.AppLogger;
+import com.deepmodi.app.util.DatabaseUtil;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Optional write-behind mode for createUser and updateUser.
+ *
+ * With {@link UserDao} every write is its own transaction, so concurrent writers each wait for their
+ * own commit (and WAL flush). Here writes from any number of threads go into a bounded queue and a
+ * single flusher thread commits them in groups: a group is flushed once it reaches maxBatchSize or
+ * maxDelayMs after its first write, whichever comes first. All creates of a group go in one INSERT
+ * and all updates in one UPDATE, in one transaction; several updates of the same id within a group
+ * collapse into the last one.
+ *
+ * Each caller gets a future that completes only after the group holding its write has committed,
+ * with the same value the matching UserDao method would return. A full queue blocks the caller
+ * (backpressure) instead of growing without bound. Futures are completed on the flusher thread,
+ * so callers should use the *Async variants of CompletableFuture for heavy follow-up work.
+ */
+public class WriteBehindUserWriter implements AutoCloseable {
+    private static final AppLogger log = AppLogger.getLogger(WriteBehindUserWriter.class);
+
+    public static final String OP_FLUSH = "writeBehind.flush";
+
+    // Duplicate emails are skipped; the RETURNING rows tell which creates went in
+    private static final String INSERT_USERS_SQL = """
+            INSERT INTO users (first_name, last_name, email)
+            SELECT * FROM unnest(?::varchar[], ?::varchar[], ?::varchar[])
+            ON CONFLICT (email) DO NOTHING
+            RETURNING id, email, created_at, updated_at
+            """;
+
+    private static final String UPDATE_USERS_SQL = """
+            UPDATE users SET first_name = t.first_name, last_name = t.last_name, email = t.email,
+                             updated_at = CURRENT_TIMESTAMP
+            FROM unnest(?::bigint[], ?::varchar[], ?::varchar[], ?::varchar[]) AS t(id, first_name, last_name, email)
+            WHERE users.id = t.id
+            RETURNING users.id
+            """;
+
+    private static final long POLL_INTERVAL_MS = 100;
+
+    private final UserDao userDao;
+    private final UserCache cache;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final BlockingQueue<PendingWrite> queue;
+    private final Thread flusher;
+    private final DaoMetrics metrics = DaoMetrics.getInstance();
+    private volatile boolean closed;
+
+    public WriteBehindUserWriter(UserDao userDao) {
+        this(userDao, DatabaseConfig.getInstance().getWriteBehindMaxBatchSize(),
+                DatabaseConfig.getInstance().getWriteBehindMaxDelayMs(),
+                DatabaseConfig.getInstance().getWriteBehindQueueCapacity());
+    }
+
+    /**
+     * @param userDao used for the cache and to retry writes one by one when a group fails
+     * @param maxBatchSize most writes per group commit
+     * @param maxDelayMs longest time the first write of a group waits for the group to fill
+     * @param queueCapacity queued writes beyond which callers block
+     */
+    public WriteBehindUserWriter(UserDao userDao, int maxBatchSize, long maxDelayMs, int queueCapacity) {
+        if(maxBatchSize <= 0 || queueCapacity <= 0 || maxDelayMs < 0){
+            throw new IllegalArgumentException("maxBatchSize and queueCapacity must be positive, maxDelayMs not negative");
+        }
+        this.userDao = userDao;
+        this.cache = userDao.getCache();
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMs);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.flusher = new Thread(this::runFlusher, "user-write-behind");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * Queues an insert. The future yields the user with id and timestamps filled in, or null if the
+     * email already exists or the insert failed (as {@link UserDao#createUser}).
+     */
+    public CompletableFuture<User> createUser(User user){
+        PendingWrite write = new PendingWrite(user, false);
+        enqueue(write);
+        return write.created;
+    }
+
+    /**
+     * Queues an update by id. The future yields true once the row is updated, false if no user has
+     * that id or the update failed (as {@link UserDao#updateUser}).
+     */
+    public CompletableFuture<Boolean> updateUser(User user){
+        if(user.getId() == null){
+            throw new IllegalArgumentException("User id is required for an update");
+        }
+        PendingWrite write = new PendingWrite(user, true);
+        enqueue(write);
+        return write.updated;
+    }
+
+    /**
+     * @return writes queued but not yet picked up by the flusher
+     */
+    public int getPendingCount(){
+        return queue.size();
+    }
+
+    private void enqueue(PendingWrite write){
+        if(closed){
+            throw new IllegalStateException("Write-behind writer is closed");
+        }
+        try{
+            queue.put(write);
+        }catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            write.fail();
+            return;
+        }
+        // Closed while we were queuing: if the flusher has not taken the write it never will
+        if(closed && queue.remove(write)){
+            throw new IllegalStateException("Write-behind writer is closed");
+        }
+        // The write commits on the flusher thread; keep this thread's reads on the primary meanwhile
+        DatabaseUtil.markWrite();
+    }
+
+    private void runFlusher(){
+        List<PendingWrite> group = new ArrayList<>(maxBatchSize);
+        while(!closed || !queue.isEmpty()){
+            try{
+                PendingWrite first = queue.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                if(first == null){
+                    continue;
+                }
+                group.add(first);
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while(group.size() < maxBatchSize){
+                    if(queue.drainTo(group, maxBatchSize - group.size()) > 0){
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    PendingWrite next = remaining > 0 && !closed ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if(next == null){
+                        break;
+                    }
+                    group.add(next);
+                }
+            }catch (InterruptedException e){
+                // close() does not interrupt, so keep draining whatever is left
+            }
+            if(!group.isEmpty()){
+                try{
+                    flush(group);
+                }catch (RuntimeException e){
+                    log.error("✗ Write-behind flush failed: {}", e.getMessage());
+                    group.forEach(PendingWrite::fail);
+                }
+                group.clear();
+            }
+        }
+    }
+
+    private void flush(List<PendingWrite> group){
+        List<PendingWrite> creates = new ArrayList<>();
+        // Last update per id wins; earlier ones ride along and get its result
+        Map<Long, List<PendingWrite>> updatesById = new LinkedHashMap<>();
+        for(PendingWrite write : group){
+            if(write.isUpdate){
+                updatesById.computeIfAbsent(write.user.getId(), id -> new ArrayList<>()).add(write);
+            }else{
+                creates.add(write);
+            }
+        }
+
+        try(OperationTimer timer = metrics.start(OP_FLUSH)){
+            try(Connection connection = DatabaseUtil.getConnection()){
+                try{
+                    Set<PendingWrite> inserted = insertAll(connection, creates);
+                    Set<Long> updatedIds = updateAll(connection, updatesById);
+                    List<String> emails = new ArrayList<>(group.size());
+                    group.forEach(write -> emails.add(write.user.getEmail()));
+                    CacheInvalidationBus.publish(connection, updatedIds, emails);
+                    connection.commit();
+
+                    for(PendingWrite write : creates){
+                        if(inserted.contains(write)){
+                            if(cache != null){
+                                cache.put(write.user);
+                            }
+                            write.created.complete(write.user);
+                        }else{
+                            write.created.complete(null);
+                        }
+                    }
+                    updatesById.forEach((id, writes) -> {
+                        boolean updated = updatedIds.contains(id);
+                        if(updated && cache != null){
+                            cache.invalidate(id);
+                            writes.forEach(write -> cache.invalidateEmail(write.user.getEmail()));
+                        }
+                        writes.forEach(write -> write.updated.complete(updated));
+                    });
+                    log.info("✓ Group commit: {} creates, {} updates ({} coalesced)",
+                            creates.size(), updatesById.size(), group.size() - creates.size() - updatesById.size());
+                    return;
+                }catch (SQLException e){
+                    connection.rollback();
+                    timer.failed();
+                    log.warn("⚠ Group commit failed ({}), retrying {} writes individually", e.getMessage(), group.size());
+                }
+            }catch (SQLException e){
+                timer.failed();
+                log.warn("⚠ Group commit failed ({}), retrying {} writes individually", e.getMessage(), group.size());
+            }
+        }
+
+        // One bad row (e.g. an update onto an existing email) must not fail the rest of the group
+        for(PendingWrite write : creates){
+            write.created.complete(userDao.createUser(write.user));
+        }
+        updatesById.values().forEach(writes -> {
+            boolean updated = userDao.updateUser(writes.get(writes.size() - 1).user);
+            writes.forEach(write -> write.updated.complete(updated));
+        });
+    }
+
+    /**
+     * @return the creates that were inserted; the others hit an existing email
+     */
+    private Set<PendingWrite> insertAll(Connection connection, List<PendingWrite> creates) throws SQLException {
+        Set<PendingWrite> inserted = new HashSet<>();
+        if(creates.isEmpty()){
+            return inserted;
+        }
+        String[] firstNames = new String[creates.size()];
+        String[] lastNames = new String[creates.size()];
+        String[] emails = new String[creates.size()];
+        Map<String, PendingWrite> byEmail = new HashMap<>();
+        for(int i = 0; i < creates.size(); i++){
+            User user = creates.get(i).user;
+            firstNames[i] = user.getFirstName();
+            lastNames[i] = user.getLastName();
+            emails[i] = user.getEmail();
+            // Same email twice in a group: the first create wins, like two separate createUser calls
+            byEmail.putIfAbsent(user.getEmail(), creates.get(i));
+        }
+
+        try(PreparedStatement statement = connection.prepareStatement(INSERT_USERS_SQL)){
+            statement.setArray(1, connection.createArrayOf("varchar", firstNames));
+            statement.setArray(2, connection.createArrayOf("varchar", lastNames));
+            statement.setArray(3, connection.createArrayOf("varchar", emails));
+            try(ResultSet rs = statement.executeQuery()){
+                while(rs.next()){
+                    PendingWrite write = byEmail.get(rs.getString("email"));
+                    if(write == null){
+                        continue;
+                    }
+                    User user = write.user;
+                    user.setId(rs.getLong("id"));
+                    Timestamp createdAt = rs.getTimestamp("created_at");
+                    Timestamp updatedAt = rs.getTimestamp("updated_at");
+                    user.setCreatedAt(createdAt != null ? createdAt.toLocalDateTime() : null);
+                    user.setUpdatedAt(updatedAt != null ? updatedAt.toLocalDateTime() : null);
+                    inserted.add(write);
+                }
+            }
+        }
+        return inserted;
+    }
+
+    /**
+     * @return ids that matched a row
+     */
+    private Set<Long> updateAll(Connection connection, Map<Long, List<PendingWrite>> updatesById) throws SQLException {
+        Set<Long> updated = new HashSet<>();
+        if(updatesById.isEmpty()){
+            return updated;
+        }
+        int size = updatesById.size();
+        Long[] ids = new Long[size];
+        String[] firstNames = new String[size];
+        String[] lastNames = new String[size];
+        String[] emails = new String[size];
+        int i = 0;
+        for(List<PendingWrite> writes : updatesById.values()){
+            User user = writes.get(writes.size() - 1).user;
+            ids[i] = user.getId();
+            firstNames[i] = user.getFirstName();
+            lastNames[i] = user.getLastName();
+            emails[i] = user.getEmail();
+            i++;
+        }
+
+        try(PreparedStatement statement = connection.prepareStatement(UPDATE_USERS_SQL)){
+            statement.setArray(1, connection.createArrayOf("bigint", ids));
+            statement.setArray(2, connection.createArrayOf("varchar", firstNames));
+            statement.setArray(3, connection.createArrayOf("varchar", lastNames));
+            statement.setArray(4, connection.createArrayOf("varchar", emails));
+            try(ResultSet rs = statement.executeQuery()){
+                while(rs.next()){
+                    updated.add(rs.getLong(1));
+                }
+            }
+        }
+        return updated;
+    }
+
+    /**
+     * Stops accepting writes, flushes everything already queued and waits for the flusher to finish.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try{
+            flusher.join();
+        }catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class PendingWrite {
+        private final User user;
+        private final boolean isUpdate;
+        private final CompletableFuture<User> created;
+        private final CompletableFuture<Boolean> updated;
+
+        private PendingWrite(User user, boolean isUpdate) {
+            this.user = user;
+            this.isUpdate = isUpdate;
+            this.created = isUpdate ? null : new CompletableFuture<>();
+            this.updated = isUpdate ? new CompletableFuture<>() : null;
+        }
+
+        private void fail(){
+            if(isUpdate){
+                updated.complete(false);
+            }else{
+                created.complete(null);
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.deepmodi.app.export;
+
+import com.deepmodi.app.model.UserRow;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * PostgreSQL COPY binary format, the same encoding {@link com.deepmodi.app.dao.UserBulkLoader} sends:
+ * the file can be loaded back with COPY users (id, first_name, last_name, email, created_at, updated_at)
+ * FROM ... (FORMAT binary).
+ */
+final class CopyBinaryRowEncoder implements RowEncoder {
+    // PGCOPY\n\377\r\n\0 signature, then flags and header extension length (both zero)
+    private static final byte[] HEADER = {
+            'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0,
+            0, 0, 0, 0,
+            0, 0, 0, 0
+    };
+    private static final byte[] TRAILER = {(byte) 0xFF, (byte) 0xFF};
+    private static final short FIELD_COUNT = 6;
+
+    // Binary timestamps count microseconds from 2000-01-01 00:00
+    private static final LocalDateTime POSTGRES_EPOCH = LocalDateTime.of(2000, 1, 1, 0, 0);
+
+    @Override
+    public byte[] header() {
+        return HEADER;
+    }
+
+    @Override
+    public byte[] trailer() {
+        return TRAILER;
+    }
+
+    @Override
+    public boolean encode(UserRow row, ByteBuffer out) {
+        byte[] firstName = encode(row.getFirstName());
+        byte[] lastName = encode(row.getLastName());
+        byte[] email = encode(row.getEmail());
+
+        // Field count, then (length, bytes) per field; length -1 means NULL
+        int size = 2 + 6 * 4 + 8 + length(firstName) + length(lastName) + length(email)
+                + (row.getCreatedAt() == null ? 0 : 8) + (row.getUpdatedAt() == null ? 0 : 8);
+        if(size > out.remaining()){
+            return false;
+        }
+        out.putShort(FIELD_COUNT);
+        out.putInt(8).putLong(row.getId());
+        putField(out, firstName);
+        putField(out, lastName);
+        putField(out, email);
+        putTimestamp(out, row.getCreatedAt());
+        putTimestamp(out, row.getUpdatedAt());
+        return true;
+    }
+
+    private static byte[] encode(String value){
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int length(byte[] value){
+        return value == null ? 0 : value.length;
+    }
+
+    private static void putField(ByteBuffer out, byte[] value){
+        if(value == null){
+            out.putInt(-1);
+        }else{
+            out.putInt(value.length);
+            out.put(value);
+        }
+    }
+
+    private static void putTimestamp(ByteBuffer out, LocalDateTime value){
+        if(value == null){
+            out.putInt(-1);
+        }else{
+            out.putInt(8);
+            out.putLong(ChronoUnit.MICROS.between(POSTGRES_EPOCH, value));
+        }
+    }
+}
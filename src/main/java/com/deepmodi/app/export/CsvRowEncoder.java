@@ -0,0 +1,80 @@
+package com.deepmodi.app.export;
+
+import com.deepmodi.app.model.UserRow;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+/**
+ * RFC 4180 CSV: fields holding a comma, quote or line break are quoted, quotes doubled.
+ */
+final class CsvRowEncoder implements RowEncoder {
+    private static final byte[] HEADER =
+            "id,first_name,last_name,email,created_at,updated_at\n".getBytes(StandardCharsets.UTF_8);
+
+    private final StringBuilder line = new StringBuilder(128);
+
+    @Override
+    public byte[] header() {
+        return HEADER;
+    }
+
+    @Override
+    public byte[] trailer() {
+        return new byte[0];
+    }
+
+    @Override
+    public boolean encode(UserRow row, ByteBuffer out) {
+        line.setLength(0);
+        line.append(row.getId()).append(',');
+        appendText(row.getFirstName());
+        line.append(',');
+        appendText(row.getLastName());
+        line.append(',');
+        appendText(row.getEmail());
+        line.append(',');
+        appendTimestamp(row.getCreatedAt());
+        line.append(',');
+        appendTimestamp(row.getUpdatedAt());
+        line.append('\n');
+
+        byte[] bytes = line.toString().getBytes(StandardCharsets.UTF_8);
+        if(bytes.length > out.remaining()){
+            return false;
+        }
+        out.put(bytes);
+        return true;
+    }
+
+    private void appendText(String value){
+        if(value == null){
+            return;
+        }
+        boolean quote = false;
+        for(int i = 0; i < value.length() && !quote; i++){
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if(!quote){
+            line.append(value);
+            return;
+        }
+        line.append('"');
+        for(int i = 0; i < value.length(); i++){
+            char c = value.charAt(i);
+            if(c == '"'){
+                line.append('"');
+            }
+            line.append(c);
+        }
+        line.append('"');
+    }
+
+    private void appendTimestamp(LocalDateTime value){
+        if(value != null){
+            line.append(value);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.deepmodi.app.export;
+
+/**
+ * File format written by {@link UserExporter}.
+ */
+public enum ExportFormat {
+    /** RFC 4180 CSV with a header line; timestamps in ISO-8601, NULL as an empty field. */
+    CSV,
+    /** PostgreSQL COPY binary format, loadable with COPY users FROM ... (FORMAT binary). */
+    BINARY
+}
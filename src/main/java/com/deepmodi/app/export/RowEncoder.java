@@ -0,0 +1,28 @@
+package com.deepmodi.app.export;
+
+import com.deepmodi.app.model.UserRow;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes users rows into export buffers. One instance per worker; implementations keep scratch state.
+ */
+interface RowEncoder {
+
+    byte[] header();
+
+    byte[] trailer();
+
+    /**
+     * Appends row to out.
+     * @return false, leaving out untouched, when the row does not fit in out's remaining space
+     */
+    boolean encode(UserRow row, ByteBuffer out);
+
+    static RowEncoder of(ExportFormat format){
+        return switch (format){
+            case CSV -> new CsvRowEncoder();
+            case BINARY -> new CopyBinaryRowEncoder();
+        };
+    }
+}
@@ -0,0 +1,426 @@
+package com.deepmodi.app.export;
+
+import com.deepmodi.app.config.DatabaseConfig;
+import com.deepmodi.app.dao.UserRowMapper;
+import com.deepmodi.app.metrics.DaoMetrics;
+import com.deepmodi.app.metrics.OperationTimer;
+import com.deepmodi.app.model.ExportResult;
+import com.deepmodi.app.model.UserRow;
+import com.deepmodi.app.util.AppLogger;
+import com.deepmodi.app.util.DatabaseUtil;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Exports the users table to a file by reading id ranges in parallel.
+ *
+ * The id space between min(id) and max(id) is cut into several ranges per worker (so a sparse range
+ * does not leave one worker doing all the work). Each worker borrows a pooled connection, claims
+ * ranges one at a time and streams them through a cursor, encoding rows into fixed-size buffers that
+ * it hands to the caller's thread, which writes them to a FileChannel. Buffers are recycled and every
+ * queue is bounded, so memory stays at a few buffers per worker however large the table is; a slow
+ * disk makes the readers wait rather than pile up rows. A worker that is refused a connection (by
+ * admission control under load, say) leaves its ranges to the others; the export only fails when no
+ * worker got one.
+ *
+ * All workers import one snapshot exported by a coordinating transaction (pg_export_snapshot, as
+ * pg_dump does), so the file is a consistent point-in-time copy even though it is read over several
+ * connections. Snapshots can only be shared on one server, so the export reads from the primary.
+ *
+ * Without preserveOrder, buffers are written as they arrive: rows within a buffer are in id order, the
+ * file as a whole is not. With it, ranges are written in id order and readers stay at most one range
+ * per worker ahead of the writer, which costs some parallelism when one range is much slower than the rest.
+ */
+public class UserExporter {
+    private static final AppLogger log = AppLogger.getLogger(UserExporter.class);
+
+    public static final String OP_EXPORT = "export.users";
+    public static final String OP_EXPORT_RANGE = "export.range";
+
+    private static final int RANGES_PER_WORKER = 4;
+    private static final long POLL_MS = 100;
+
+    private static final String BOUNDS_SQL = "SELECT min(id), max(id), pg_export_snapshot() FROM users";
+    private static final String RANGE_SQL =
+            "SELECT id, first_name, last_name, email, created_at, updated_at FROM users WHERE id >= ? AND id <= ? ORDER BY id";
+
+    private final DaoMetrics metrics = DaoMetrics.getInstance();
+    private final int parallelism;
+    private final int bufferSize;
+    private final int queueDepth;
+    private final int fetchSize;
+
+    public UserExporter() {
+        DatabaseConfig config = DatabaseConfig.getInstance();
+        // One pooled connection stays with the coordinator; workers beyond the rest would only wait for one
+        this.parallelism = Math.max(1, Math.min(config.getExportParallelism(), config.getPoolMaxSize() - 1));
+        this.bufferSize = Math.max(4 * 1024, config.getExportBufferSize());
+        this.queueDepth = Math.max(1, config.getExportQueueDepth());
+        this.fetchSize = config.getFetchSize();
+    }
+
+    /**
+     * Writes every user to target, replacing it only once the whole export succeeded.
+     */
+    public ExportResult export(Path target, ExportFormat format, boolean preserveOrder){
+        log.info("Exporting users to {} as {} with {} workers{}...", target, format, parallelism,
+                preserveOrder ? " (ordered)" : "");
+        long start = System.nanoTime();
+
+        try(OperationTimer timer = metrics.start(OP_EXPORT)){
+            ExportRun run = null;
+            Path temp = null;
+            try(Connection coordinator = DatabaseUtil.getConnection()){
+                try{
+                    try(Statement statement = coordinator.createStatement()){
+                        statement.execute("SET TRANSACTION ISOLATION LEVEL REPEATABLE READ");
+                    }
+                    long[] bounds;
+                    String snapshotId;
+                    try(Statement statement = coordinator.createStatement();
+                        ResultSet rs = statement.executeQuery(BOUNDS_SQL)){
+                        rs.next();
+                        long minId = rs.getLong(1);
+                        bounds = rs.wasNull() ? new long[0] : split(minId, rs.getLong(2));
+                        snapshotId = rs.getString(3);
+                    }
+
+                    Path directory = target.toAbsolutePath().getParent();
+                    Files.createDirectories(directory);
+                    temp = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+                    // The coordinator's transaction must stay open until every worker has imported its snapshot
+                    run = new ExportRun(bounds, format, preserveOrder, snapshotId);
+                    run.execute(temp);
+                }finally {
+                    coordinator.commit();
+                }
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+                ExportResult result = new ExportResult(run.rows.sum(), run.bytes, run.rangeCount, run.workers,
+                        System.nanoTime() - start, null);
+                log.info("✓ {}", result);
+                return result;
+            }catch (SQLException | IOException | RuntimeException e){
+                timer.failed();
+                deleteQuietly(temp);
+                log.error("✗ Users export failed: {}", e.getMessage());
+                return new ExportResult(run == null ? 0 : run.rows.sum(), run == null ? 0 : run.bytes,
+                        run == null ? 0 : run.rangeCount, run == null ? 0 : run.workers,
+                        System.nanoTime() - start, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * @return range boundaries: range i covers ids bounds[2i] to bounds[2i + 1], inclusive
+     */
+    private long[] split(long minId, long maxId){
+        long span = maxId - minId + 1;
+        int count = (int) Math.max(1, Math.min((long) parallelism * RANGES_PER_WORKER, span));
+        long width = (span + count - 1) / count;
+        List<Long> bounds = new ArrayList<>();
+        for(long low = minId; low <= maxId; low += width){
+            bounds.add(low);
+            bounds.add(Math.min(maxId, low + width - 1));
+            if(maxId - low < width){
+                break;
+            }
+        }
+        return bounds.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static void deleteQuietly(Path path){
+        if(path == null){
+            return;
+        }
+        try{
+            Files.deleteIfExists(path);
+        }catch (IOException e){
+            log.warn("⚠ Could not delete {}: {}", path, e.getMessage());
+        }
+    }
+
+    private record Chunk(ByteBuffer buffer, boolean last) {
+    }
+
+    /**
+     * State of one export: the ranges, the hand-off queues between readers and writer, and the first failure.
+     */
+    private final class ExportRun {
+        private final long[] bounds;
+        private final int rangeCount;
+        private final int workers;
+        private final ExportFormat format;
+        private final boolean preserveOrder;
+        private final String snapshotId;
+
+        // Unordered: every reader feeds one queue. Ordered: one queue per range, drained in range order.
+        private final BlockingQueue<Chunk> shared;
+        private final List<BlockingQueue<Chunk>> perRange;
+        private final BlockingQueue<ByteBuffer> freeBuffers;
+
+        private final AtomicInteger nextRange = new AtomicInteger();
+        private final AtomicInteger workersRefused = new AtomicInteger();
+        private final Object window = new Object();
+        private int rangesWritten;
+
+        private final AtomicReference<Exception> failure = new AtomicReference<>();
+        private final LongAdder rows = new LongAdder();
+        private long bytes;
+
+        ExportRun(long[] bounds, ExportFormat format, boolean preserveOrder, String snapshotId) {
+            this.bounds = bounds;
+            this.rangeCount = bounds.length / 2;
+            this.workers = Math.min(parallelism, rangeCount);
+            this.format = format;
+            this.preserveOrder = preserveOrder;
+            this.snapshotId = snapshotId;
+            this.shared = preserveOrder ? null : new ArrayBlockingQueue<>(Math.max(1, workers * queueDepth));
+            this.perRange = new ArrayList<>();
+            if(preserveOrder){
+                for(int i = 0; i < rangeCount; i++){
+                    perRange.add(new ArrayBlockingQueue<>(queueDepth));
+                }
+            }
+            // Enough to hold every buffer that can be in flight at once, so none is ever dropped
+            this.freeBuffers = new ArrayBlockingQueue<>(Math.max(1, workers * (queueDepth + 2) + 1));
+        }
+
+        void execute(Path file) throws IOException, SQLException {
+            ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, workers),
+                    Thread.ofPlatform().name("user-export-", 0).daemon().factory());
+            List<Future<?>> futures = new ArrayList<>();
+            try{
+                for(int i = 0; i < workers; i++){
+                    futures.add(executor.submit(this::work));
+                }
+                write(file);
+            }catch (IOException | RuntimeException e){
+                // A writer aborted by a failed reader reports the reader's error, recorded first
+                fail(e);
+            }finally {
+                executor.shutdown();
+                awaitWorkers(executor, futures);
+            }
+            Exception error = failure.get();
+            if(error instanceof SQLException sqlException){
+                throw sqlException;
+            }
+            if(error instanceof IOException ioException){
+                throw ioException;
+            }
+            if(error != null){
+                throw new IOException(error.getMessage(), error);
+            }
+        }
+
+        private void awaitWorkers(ExecutorService executor, List<Future<?>> futures){
+            for(Future<?> future : futures){
+                try{
+                    future.get();
+                }catch (InterruptedException e){
+                    Thread.currentThread().interrupt();
+                    executor.shutdownNow();
+                    return;
+                }catch (ExecutionException e){
+                    // Already recorded by the worker
+                }
+            }
+        }
+
+        private void write(Path file) throws IOException {
+            RowEncoder encoder = RowEncoder.of(format);
+            try(FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)){
+                writeFully(channel, ByteBuffer.wrap(encoder.header()));
+                if(preserveOrder){
+                    for(int range = 0; range < rangeCount; range++){
+                        BlockingQueue<Chunk> queue = perRange.get(range);
+                        Chunk chunk;
+                        do{
+                            chunk = take(queue);
+                            writeChunk(channel, chunk);
+                        }while(!chunk.last());
+                        synchronized (window){
+                            rangesWritten = range + 1;
+                            window.notifyAll();
+                        }
+                    }
+                }else {
+                    int rangesDone = 0;
+                    while(rangesDone < rangeCount){
+                        Chunk chunk = take(shared);
+                        writeChunk(channel, chunk);
+                        if(chunk.last()){
+                            rangesDone++;
+                        }
+                    }
+                }
+                writeFully(channel, ByteBuffer.wrap(encoder.trailer()));
+                channel.force(false);
+            }
+        }
+
+        private void writeChunk(FileChannel channel, Chunk chunk) throws IOException {
+            ByteBuffer buffer = chunk.buffer();
+            buffer.flip();
+            writeFully(channel, buffer);
+            buffer.clear();
+            freeBuffers.offer(buffer);
+        }
+
+        private void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+            while(buffer.hasRemaining()){
+                bytes += channel.write(buffer);
+            }
+        }
+
+        private Chunk take(BlockingQueue<Chunk> queue) throws IOException {
+            try{
+                Chunk chunk;
+                while((chunk = queue.poll(POLL_MS, TimeUnit.MILLISECONDS)) == null){
+                    checkFailure();
+                }
+                return chunk;
+            }catch (InterruptedException e){
+                Thread.currentThread().interrupt();
+                throw new IOException("Export interrupted", e);
+            }
+        }
+
+        private void work(){
+            Connection connection;
+            try{
+                connection = DatabaseUtil.getConnection();
+            }catch (SQLException e){
+                // Ranges are claimed as workers go, so the others read this one's share; only an export
+                // that got no connection at all has nobody to read it
+                if(workersRefused.incrementAndGet() == workers){
+                    fail(e);
+                }else {
+                    log.warn("⚠ Export worker got no connection, continuing with fewer: {}", e.getMessage());
+                }
+                return;
+            }
+            try(connection){
+                try{
+                    try(Statement statement = connection.createStatement()){
+                        statement.execute("SET TRANSACTION ISOLATION LEVEL REPEATABLE READ");
+                        // Server-generated id; SET TRANSACTION SNAPSHOT does not take parameters
+                        statement.execute("SET TRANSACTION SNAPSHOT '" + snapshotId.replace("'", "''") + "'");
+                    }
+                    RowEncoder encoder = RowEncoder.of(format);
+                    int range;
+                    while((range = claim()) >= 0){
+                        exportRange(connection, encoder, range);
+                    }
+                }finally {
+                    connection.commit();
+                }
+            }catch (SQLException | IOException | RuntimeException e){
+                fail(e);
+            }catch (InterruptedException e){
+                Thread.currentThread().interrupt();
+                fail(new IOException("Export interrupted", e));
+            }
+        }
+
+        /**
+         * @return the next range to read, or -1 when there is none left or the export failed
+         */
+        private int claim() throws InterruptedException {
+            if(failure.get() != null){
+                return -1;
+            }
+            int range = nextRange.getAndIncrement();
+            if(range >= rangeCount){
+                return -1;
+            }
+            if(preserveOrder){
+                // Ranges are claimed in order, so the one the writer waits for is always being read
+                synchronized (window){
+                    while(range >= rangesWritten + workers && failure.get() == null){
+                        window.wait(POLL_MS);
+                    }
+                }
+            }
+            return failure.get() == null ? range : -1;
+        }
+
+        private void exportRange(Connection connection, RowEncoder encoder, int range)
+                throws SQLException, IOException, InterruptedException {
+            try(OperationTimer timer = metrics.start(OP_EXPORT_RANGE)){
+                try(PreparedStatement statement = connection.prepareStatement(RANGE_SQL)){
+                    statement.setFetchSize(fetchSize);
+                    statement.setLong(1, bounds[range * 2]);
+                    statement.setLong(2, bounds[range * 2 + 1]);
+                    try(ResultSet rs = statement.executeQuery()){
+                        UserRowMapper mapper = new UserRowMapper();
+                        UserRow row = new UserRow();
+                        ByteBuffer buffer = borrowBuffer();
+                        while(rs.next()){
+                            mapper.mapInto(rs, row);
+                            if(!encoder.encode(row, buffer)){
+                                submit(range, new Chunk(buffer, false));
+                                buffer = borrowBuffer();
+                                if(!encoder.encode(row, buffer)){
+                                    throw new IOException("User " + row.getId() + " does not fit in an export buffer of "
+                                            + bufferSize + " bytes");
+                                }
+                            }
+                            rows.increment();
+                        }
+                        submit(range, new Chunk(buffer, true));
+                    }
+                }catch (SQLException | IOException | InterruptedException | RuntimeException e){
+                    timer.failed();
+                    throw e;
+                }
+            }
+        }
+
+        private ByteBuffer borrowBuffer(){
+            ByteBuffer buffer = freeBuffers.poll();
+            return buffer != null ? buffer : ByteBuffer.allocateDirect(bufferSize);
+        }
+
+        private void submit(int range, Chunk chunk) throws IOException, InterruptedException {
+            BlockingQueue<Chunk> queue = preserveOrder ? perRange.get(range) : shared;
+            while(!queue.offer(chunk, POLL_MS, TimeUnit.MILLISECONDS)){
+                checkFailure();
+            }
+        }
+
+        private void checkFailure() throws IOException {
+            if(failure.get() != null){
+                throw new IOException("Export aborted");
+            }
+        }
+
+        private void fail(Exception e){
+            failure.compareAndSet(null, e);
+        }
+    }
+}
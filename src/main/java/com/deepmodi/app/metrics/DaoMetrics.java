@@ -0,0 +1,57 @@
+package com.deepmodi.app.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of per-operation metrics for the DAO layer.
+ * UserDao records one operation per public method and DatabaseUtil records connection acquisition,
+ * so {@link #snapshot()} shows where time goes without any external monitoring system.
+ */
+public class DaoMetrics {
+    public static final String CONNECTION_ACQUIRE = "connection.acquire";
+
+    private static final DaoMetrics INSTANCE = new DaoMetrics();
+
+    private final ConcurrentHashMap<String, OperationMetrics> operations = new ConcurrentHashMap<>();
+
+    public static DaoMetrics getInstance(){
+        return INSTANCE;
+    }
+
+    public OperationMetrics operation(String name){
+        OperationMetrics metrics = operations.get(name);
+        if(metrics == null){
+            metrics = operations.computeIfAbsent(name, OperationMetrics::new);
+        }
+        return metrics;
+    }
+
+    public OperationTimer start(String name){
+        return operation(name).start();
+    }
+
+    /**
+     * @return snapshot of every operation recorded so far, sorted by name
+     */
+    public Map<String, OperationSnapshot> snapshot(){
+        Map<String, OperationSnapshot> snapshot = new TreeMap<>();
+        operations.forEach((name, metrics) -> snapshot.put(name, metrics.snapshot()));
+        return snapshot;
+    }
+
+    public OperationSnapshot snapshot(String name){
+        OperationMetrics metrics = operations.get(name);
+        return metrics != null ? metrics.snapshot() : null;
+    }
+
+    public void reset(){
+        operations.values().forEach(OperationMetrics::reset);
+    }
+
+    public void printSummary(){
+        System.out.println("DAO metrics:");
+        snapshot().values().forEach(snapshot -> System.out.println("  " + snapshot));
+    }
+}
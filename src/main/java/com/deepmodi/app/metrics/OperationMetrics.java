@@ -0,0 +1,51 @@
+package com.deepmodi.app.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Call count, error count and latency distribution for one named operation.
+ */
+public class OperationMetrics {
+    private final String name;
+    private final LongAdder errors = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    OperationMetrics(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Starts timing one call; close the returned timer when the call ends.
+     */
+    public OperationTimer start(){
+        return new OperationTimer(this, System.nanoTime());
+    }
+
+    public void record(long elapsedNanos, boolean success){
+        latency.record(elapsedNanos);
+        if(!success){
+            errors.increment();
+        }
+    }
+
+    public OperationSnapshot snapshot(){
+        return new OperationSnapshot(
+                name,
+                latency.getCount(),
+                errors.sum(),
+                latency.getMean(),
+                latency.getValueAtQuantile(0.50),
+                latency.getValueAtQuantile(0.99),
+                latency.getValueAtQuantile(0.999),
+                latency.getMax());
+    }
+
+    void reset(){
+        errors.reset();
+        latency.reset();
+    }
+}
@@ -0,0 +1,25 @@
+package com.deepmodi.app.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Point-in-time view of one operation's metrics. Latencies are in nanoseconds.
+ */
+public record OperationSnapshot(String name, long count, long errors, double meanNanos,
+                                long p50Nanos, long p99Nanos, long p999Nanos, long maxNanos) {
+
+    public double errorRate() {
+        return count == 0 ? 0.0 : (double) errors / count;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-28s count=%-8d errors=%-6d mean=%8.3fms p50=%8.3fms p99=%8.3fms p999=%8.3fms max=%8.3fms",
+                name, count, errors, meanNanos / 1_000_000.0, millis(p50Nanos), millis(p99Nanos),
+                millis(p999Nanos), millis(maxNanos));
+    }
+
+    private static double millis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,46 @@
+package com.deepmodi.app.metrics;
+
+/**
+ * Times one call of an operation. Meant for try-with-resources:
+ * <pre>
+ * try(OperationTimer timer = metrics.start("findUserById")){
+ *     ...
+ *     catch(SQLException e){ timer.failed(); }
+ * }
+ * </pre>
+ * The call counts as successful unless {@link #failed()} was called before close.
+ */
+public final class OperationTimer implements AutoCloseable {
+    private final OperationMetrics metrics;
+    private final long startNanos;
+    private boolean failed;
+    private boolean closed;
+
+    OperationTimer(OperationMetrics metrics, long startNanos) {
+        this.metrics = metrics;
+        this.startNanos = startNanos;
+    }
+
+    /**
+     * Marks this call as an error.
+     */
+    public void failed(){
+        failed = true;
+    }
+
+    public boolean isFailed(){
+        return failed;
+    }
+
+    public long elapsedNanos(){
+        return System.nanoTime() - startNanos;
+    }
+
+    @Override
+    public void close() {
+        if(!closed){
+            closed = true;
+            metrics.record(System.nanoTime() - startNanos, !failed);
+        }
+    }
+}
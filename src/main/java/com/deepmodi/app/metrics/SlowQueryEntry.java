@@ -0,0 +1,43 @@
+package com.deepmodi.app.metrics;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * One statement recorded by the {@link SlowQueryLog}.
+ *
+ * @param parameterShapes type and size of each bound parameter, never its value, e.g. "String(12)" or "Array[250]"
+ * @param batchSize       rows in the batch for executeBatch(), 0 for a single execution
+ * @param rowCount        rows returned or affected, -1 when unknown
+ * @param plan            EXPLAIN output, or null when none was captured
+ * @param error           message of the exception the statement threw, or null
+ */
+public record SlowQueryEntry(Instant recordedAt, String thread, String sql, List<String> parameterShapes,
+                             int batchSize, long rowCount, long elapsedNanos, String plan, boolean analyzed,
+                             String error) {
+
+    public double elapsedMs() {
+        return elapsedNanos / 1_000_000.0;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        text.append(String.format("[%s] %.1fms rows=%d thread=%s%s%n", recordedAt, elapsedMs(), rowCount, thread,
+                batchSize > 0 ? " batch=" + batchSize : ""));
+        text.append("  SQL: ").append(sql.strip().replaceAll("\\s+", " ")).append(System.lineSeparator());
+        if(!parameterShapes.isEmpty()){
+            text.append("  Parameters: ").append(String.join(", ", parameterShapes)).append(System.lineSeparator());
+        }
+        if(error != null){
+            text.append("  Error: ").append(error).append(System.lineSeparator());
+        }
+        if(plan != null){
+            text.append(analyzed ? "  Plan (analyzed):" : "  Plan:").append(System.lineSeparator());
+            for(String line : plan.split("\n")){
+                text.append("    ").append(line).append(System.lineSeparator());
+            }
+        }
+        return text.toString();
+    }
+}
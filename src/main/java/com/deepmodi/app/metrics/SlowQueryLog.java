@@ -0,0 +1,113 @@
+package com.deepmodi.app.metrics;
+
+import com.deepmodi.app.config.DatabaseConfig;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded ring buffer of the most recent slow statements.
+ *
+ * Pooled connections time every statement they run, counting only the time spent in the driver
+ * (see TimedStatement); those that take at least slowQuery.thresholdMs are recorded here with their
+ * SQL, the shape of their parameters, the row count and, when slowQuery.explain is on, the EXPLAIN
+ * plan. When the buffer is full the oldest entry is overwritten, so memory stays fixed however many
+ * slow statements there are.
+ *
+ * {@link #entries()} and {@link #dump()} read the buffer on demand; nothing is written to the log
+ * unless asked for.
+ */
+public class SlowQueryLog {
+    public static final String OP_EXPLAIN = "slowQuery.explain";
+
+    private static final SlowQueryLog INSTANCE = new SlowQueryLog(DatabaseConfig.getInstance());
+
+    private final boolean enabled;
+    private final long thresholdNanos;
+    private final boolean explain;
+    private final double analyzeSampleRate;
+
+    private final SlowQueryEntry[] ring;
+    private long next;
+    private final LongAdder recorded = new LongAdder();
+
+    SlowQueryLog(DatabaseConfig config) {
+        this.enabled = config.isSlowQueryEnabled();
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, config.getSlowQueryThresholdMs()));
+        this.explain = config.isSlowQueryExplain();
+        this.analyzeSampleRate = Math.max(0.0, Math.min(1.0, config.getSlowQueryAnalyzeSampleRate()));
+        this.ring = new SlowQueryEntry[Math.max(1, config.getSlowQueryCapacity())];
+    }
+
+    public static SlowQueryLog getInstance(){
+        return INSTANCE;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return true when a statement that took elapsedNanos belongs in the log
+     */
+    public boolean isSlow(long elapsedNanos){
+        return elapsedNanos >= thresholdNanos;
+    }
+
+    public boolean isExplain() {
+        return explain;
+    }
+
+    public double getAnalyzeSampleRate() {
+        return analyzeSampleRate;
+    }
+
+    public synchronized void record(SlowQueryEntry entry){
+        ring[(int) (next++ % ring.length)] = entry;
+        recorded.increment();
+    }
+
+    /**
+     * @return total statements recorded since startup, including those already overwritten
+     */
+    public long getRecordedCount(){
+        return recorded.sum();
+    }
+
+    /**
+     * @return the entries still in the buffer, oldest first
+     */
+    public synchronized List<SlowQueryEntry> entries(){
+        int size = (int) Math.min(next, ring.length);
+        List<SlowQueryEntry> entries = new ArrayList<>(size);
+        for(long i = next - size; i < next; i++){
+            entries.add(ring[(int) (i % ring.length)]);
+        }
+        return entries;
+    }
+
+    public synchronized void clear(){
+        Arrays.fill(ring, null);
+        next = 0;
+    }
+
+    /**
+     * @return every buffered entry as text, slowest first
+     */
+    public String dump(){
+        List<SlowQueryEntry> entries = new ArrayList<>(entries());
+        entries.sort((a, b) -> Long.compare(b.elapsedNanos(), a.elapsedNanos()));
+        StringBuilder text = new StringBuilder();
+        text.append("Slow queries (").append(entries.size()).append(" buffered, ")
+                .append(getRecordedCount()).append(" recorded):").append(System.lineSeparator());
+        entries.forEach(text::append);
+        return text.toString();
+    }
+
+    public void printSummary(){
+        System.out.print(dump());
+    }
+}
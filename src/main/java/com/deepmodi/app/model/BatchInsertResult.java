@@ -0,0 +1,101 @@
+package com.deepmodi.app.model;
+
+import java.util.List;
+
+/**
+ * Per-row outcome of a batch insert. Inserted users have their id and timestamps filled in.
+ */
+public class BatchInsertResult {
+
+    public enum Status {
+        INSERTED,
+        DUPLICATE_EMAIL,
+        INVALID,
+        FAILED
+    }
+
+    /**
+     * Outcome for the user at {@code index} in the input list.
+     */
+    public static class RowOutcome {
+        private final int index;
+        private final User user;
+        private final Status status;
+        private final String message;
+
+        public RowOutcome(int index, User user, Status status, String message) {
+            this.index = index;
+            this.user = user;
+            this.status = status;
+            this.message = message;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public User getUser() {
+            return user;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return "RowOutcome{" +
+                    "index=" + index +
+                    ", email='" + user.getEmail() + '\'' +
+                    ", status=" + status +
+                    (message != null ? ", message='" + message + '\'' : "") +
+                    '}';
+        }
+    }
+
+    private final List<RowOutcome> outcomes;
+    private final long elapsedNanos;
+
+    public BatchInsertResult(List<RowOutcome> outcomes, long elapsedNanos) {
+        this.outcomes = List.copyOf(outcomes);
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * @return one outcome per input user, in input order
+     */
+    public List<RowOutcome> getOutcomes() {
+        return outcomes;
+    }
+
+    public long count(Status status) {
+        return outcomes.stream().filter(outcome -> outcome.getStatus() == status).count();
+    }
+
+    public long getInsertedCount() {
+        return count(Status.INSERTED);
+    }
+
+    public List<RowOutcome> getFailures() {
+        return outcomes.stream().filter(outcome -> outcome.getStatus() != Status.INSERTED).toList();
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchInsertResult{" +
+                "inserted=" + getInsertedCount() +
+                ", duplicates=" + count(Status.DUPLICATE_EMAIL) +
+                ", invalid=" + count(Status.INVALID) +
+                ", failed=" + count(Status.FAILED) +
+                ", elapsed=" + elapsedNanos / 1_000_000 + "ms" +
+                '}';
+    }
+}
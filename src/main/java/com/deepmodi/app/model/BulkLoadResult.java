@@ -0,0 +1,53 @@
+package com.deepmodi.app.model;
+
+/**
+ * Outcome of a bulk load: how many rows were committed, how long it took, and the error that
+ * stopped it, if any. Rows in chunks committed before a failure stay in the table.
+ */
+public class BulkLoadResult {
+    private final long rowsLoaded;
+    private final int chunksCommitted;
+    private final long elapsedNanos;
+    private final String error;
+
+    public BulkLoadResult(long rowsLoaded, int chunksCommitted, long elapsedNanos, String error) {
+        this.rowsLoaded = rowsLoaded;
+        this.chunksCommitted = chunksCommitted;
+        this.elapsedNanos = elapsedNanos;
+        this.error = error;
+    }
+
+    public long getRowsLoaded() {
+        return rowsLoaded;
+    }
+
+    public int getChunksCommitted() {
+        return chunksCommitted;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public double getRowsPerSecond() {
+        return elapsedNanos == 0 ? 0.0 : rowsLoaded * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    public boolean isSuccessful() {
+        return error == null;
+    }
+
+    /**
+     * @return the error message that aborted the load, or null if every chunk was committed
+     */
+    public String getError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("BulkLoadResult{rows=%d, chunks=%d, elapsed=%dms, rowsPerSecond=%.0f%s}",
+                rowsLoaded, chunksCommitted, elapsedNanos / 1_000_000, getRowsPerSecond(),
+                error == null ? "" : ", error='" + error + "'");
+    }
+}
@@ -0,0 +1,69 @@
+package com.deepmodi.app.model;
+
+/**
+ * Outcome of a users export: rows and bytes written, how many id ranges were read in parallel,
+ * how long it took, and the error that stopped it, if any. A failed export leaves no file behind.
+ */
+public class ExportResult {
+    private final long rowsExported;
+    private final long bytesWritten;
+    private final int ranges;
+    private final int workers;
+    private final long elapsedNanos;
+    private final String error;
+
+    public ExportResult(long rowsExported, long bytesWritten, int ranges, int workers, long elapsedNanos, String error) {
+        this.rowsExported = rowsExported;
+        this.bytesWritten = bytesWritten;
+        this.ranges = ranges;
+        this.workers = workers;
+        this.elapsedNanos = elapsedNanos;
+        this.error = error;
+    }
+
+    public long getRowsExported() {
+        return rowsExported;
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    public int getRanges() {
+        return ranges;
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public double getRowsPerSecond() {
+        return elapsedNanos == 0 ? 0.0 : rowsExported * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    public double getMegabytesPerSecond() {
+        return elapsedNanos == 0 ? 0.0 : bytesWritten * 1_000_000_000.0 / elapsedNanos / (1024 * 1024);
+    }
+
+    public boolean isSuccessful() {
+        return error == null;
+    }
+
+    /**
+     * @return the error message that aborted the export, or null if it completed
+     */
+    public String getError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ExportResult{rows=%d, bytes=%d, ranges=%d, workers=%d, elapsed=%dms, rowsPerSecond=%.0f, mbPerSecond=%.1f%s}",
+                rowsExported, bytesWritten, ranges, workers, elapsedNanos / 1_000_000, getRowsPerSecond(),
+                getMegabytesPerSecond(), error == null ? "" : ", error='" + error + "'");
+    }
+}
@@ -0,0 +1,57 @@
+package com.deepmodi.app.model;
+
+/**
+ * Result of upserting one user keyed on email.
+ */
+public class UpsertResult {
+
+    public enum Outcome {
+        /** No user had this email; a new row was inserted. */
+        INSERTED,
+        /** A user with this email existed and its names were changed. */
+        UPDATED,
+        /** A user with this email existed and was left as is (same values, or DO NOTHING mode). */
+        UNCHANGED,
+        /**
+         * Nothing was written: a concurrent transaction inserted this email after the statement's
+         * snapshot was taken, so the row is neither visible nor changed. The user has no id.
+         */
+        SKIPPED
+    }
+
+    private final User user;
+    private final Outcome outcome;
+
+    public UpsertResult(User user, Outcome outcome) {
+        this.user = user;
+        this.outcome = outcome;
+    }
+
+    /**
+     * @return the row as stored after the upsert; for SKIPPED, the input user
+     */
+    public User getUser() {
+        return user;
+    }
+
+    public Long getId() {
+        return user.getId();
+    }
+
+    public Outcome getOutcome() {
+        return outcome;
+    }
+
+    public boolean isInserted() {
+        return outcome == Outcome.INSERTED;
+    }
+
+    @Override
+    public String toString() {
+        return "UpsertResult{" +
+                "id=" + user.getId() +
+                ", email='" + user.getEmail() + '\'' +
+                ", outcome=" + outcome +
+                '}';
+    }
+}
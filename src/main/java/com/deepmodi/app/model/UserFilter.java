@@ -0,0 +1,62 @@
+package com.deepmodi.app.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Optional filters for paged user listings. Unset (null) criteria are ignored.
+ */
+public class UserFilter {
+    private String lastName;
+    private String emailDomain;
+    private LocalDateTime createdFrom;
+    private LocalDateTime createdTo;
+
+    public static UserFilter none(){
+        return new UserFilter();
+    }
+
+    public UserFilter lastName(String lastName) {
+        this.lastName = lastName;
+        return this;
+    }
+
+    /**
+     * Matches emails ending in "@" + domain.
+     */
+    public UserFilter emailDomain(String emailDomain) {
+        this.emailDomain = emailDomain;
+        return this;
+    }
+
+    /**
+     * Inclusive lower bound on created_at.
+     */
+    public UserFilter createdFrom(LocalDateTime createdFrom) {
+        this.createdFrom = createdFrom;
+        return this;
+    }
+
+    /**
+     * Exclusive upper bound on created_at.
+     */
+    public UserFilter createdTo(LocalDateTime createdTo) {
+        this.createdTo = createdTo;
+        return this;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public String getEmailDomain() {
+        return emailDomain;
+    }
+
+    public LocalDateTime getCreatedFrom() {
+        return createdFrom;
+    }
+
+    public LocalDateTime getCreatedTo() {
+        return createdTo;
+    }
+}
@@ -0,0 +1,57 @@
+package com.deepmodi.app.model;
+
+import java.util.List;
+
+/**
+ * One page of users from a keyset (seek) listing, ordered by id ascending.
+ * Use {@link #getNextCursor()} with findUsersAfter and {@link #getPreviousCursor()} with
+ * findUsersBefore to move between pages.
+ */
+public class UserPage {
+    private final List<User> users;
+    private final boolean hasNext;
+    private final boolean hasPrevious;
+
+    public UserPage(List<User> users, boolean hasNext, boolean hasPrevious) {
+        this.users = List.copyOf(users);
+        this.hasNext = hasNext;
+        this.hasPrevious = hasPrevious;
+    }
+
+    public List<User> getUsers() {
+        return users;
+    }
+
+    public boolean hasNext() {
+        return hasNext;
+    }
+
+    public boolean hasPrevious() {
+        return hasPrevious;
+    }
+
+    /**
+     * @return id of the last user on this page, or null if the page is empty
+     */
+    public Long getNextCursor() {
+        return users.isEmpty() ? null : users.get(users.size() - 1).getId();
+    }
+
+    /**
+     * @return id of the first user on this page, or null if the page is empty
+     */
+    public Long getPreviousCursor() {
+        return users.isEmpty() ? null : users.get(0).getId();
+    }
+
+    @Override
+    public String toString() {
+        return "UserPage{" +
+                "size=" + users.size() +
+                ", first=" + getPreviousCursor() +
+                ", last=" + getNextCursor() +
+                ", hasNext=" + hasNext +
+                ", hasPrevious=" + hasPrevious +
+                '}';
+    }
+}
@@ -0,0 +1,55 @@
+package com.deepmodi.app.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Mutable, reusable holder for one users row.
+ * Scan-heavy code can read every row into the same instance instead of allocating a User per row;
+ * call {@link #toUser()} for the rows that need to outlive the scan.
+ */
+public class UserRow {
+    private long id;
+    private String firstName;
+    private String lastName;
+    private String email;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+
+    public void set(long id, String firstName, String lastName, String email,
+                    LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this.id = id;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.email = email;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public User toUser() {
+        return new User(id, firstName, lastName, email, createdAt, updatedAt);
+    }
+}
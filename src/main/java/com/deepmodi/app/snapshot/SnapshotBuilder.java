@@ -0,0 +1,214 @@
+package com.deepmodi.app.snapshot;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Collects rows, already in id order, into growable primitive columns and writes them out in the
+ * {@link UserSnapshot} layout.
+ *
+ * The file is written to a temporary sibling and moved into place, so a reader never maps a half
+ * written snapshot and readers of the previous file keep their mapping.
+ */
+final class SnapshotBuilder {
+    private static final int WRITE_BUFFER_BYTES = 1 << 20;
+
+    private long[] ids = new long[1024];
+    private long[] createdAt = new long[1024];
+    private long[] updatedAt = new long[1024];
+    private int[] firstNames = new int[1024];
+    private int[] lastNames = new int[1024];
+    private int[] emailOffsets = new int[1025];
+    private byte[] emailBytes = new byte[16 * 1024];
+    private int rows;
+    private long watermarkMicros = UserSnapshot.NULL_TIMESTAMP;
+
+    private final Map<String, Integer> dictionary = new HashMap<>();
+    private int[] wordOffsets = new int[257];
+    private byte[] wordBytes = new byte[4 * 1024];
+
+    int size(){
+        return rows;
+    }
+
+    void add(long id, String firstName, String lastName, String email, long createdAtMicros, long updatedAtMicros){
+        byte[] bytes = email == null ? new byte[0] : email.getBytes(StandardCharsets.UTF_8);
+        addRow(id, code(firstName), code(lastName), createdAtMicros, updatedAtMicros);
+        appendEmail(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Copies a row from an older snapshot; the email bytes go across without being decoded.
+     */
+    void copy(UserSnapshot from, int row){
+        addRow(from.getId(row), code(from.getFirstName(row)), code(from.getLastName(row)),
+                from.getCreatedAtMicros(row), from.getUpdatedAtMicros(row));
+        int start = from.emailStart(row);
+        int length = from.emailStart(row + 1) - start;
+        ensureEmailCapacity(length);
+        from.data().get(from.emailBytesStart() + start, emailBytes, emailOffsets[rows - 1], length);
+        emailOffsets[rows] = emailOffsets[rows - 1] + length;
+    }
+
+    private void addRow(long id, int firstName, int lastName, long createdAtMicros, long updatedAtMicros){
+        if(rows > 0 && id <= ids[rows - 1]){
+            throw new IllegalArgumentException("Snapshot rows must arrive in ascending id order: " + id);
+        }
+        if(rows == ids.length){
+            int capacity = rows * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            createdAt = Arrays.copyOf(createdAt, capacity);
+            updatedAt = Arrays.copyOf(updatedAt, capacity);
+            firstNames = Arrays.copyOf(firstNames, capacity);
+            lastNames = Arrays.copyOf(lastNames, capacity);
+            emailOffsets = Arrays.copyOf(emailOffsets, capacity + 1);
+        }
+        ids[rows] = id;
+        createdAt[rows] = createdAtMicros;
+        updatedAt[rows] = updatedAtMicros;
+        firstNames[rows] = firstName;
+        lastNames[rows] = lastName;
+        if(updatedAtMicros != UserSnapshot.NULL_TIMESTAMP && updatedAtMicros > watermarkMicros){
+            watermarkMicros = updatedAtMicros;
+        }
+        rows++;
+    }
+
+    private void appendEmail(byte[] bytes, int offset, int length){
+        ensureEmailCapacity(length);
+        System.arraycopy(bytes, offset, emailBytes, emailOffsets[rows - 1], length);
+        emailOffsets[rows] = emailOffsets[rows - 1] + length;
+    }
+
+    private void ensureEmailCapacity(int length){
+        long needed = (long) emailOffsets[rows - 1] + length;
+        if(needed > Integer.MAX_VALUE - 8){
+            throw new IllegalStateException("Snapshot email column exceeds 2 GB");
+        }
+        if(needed > emailBytes.length){
+            emailBytes = Arrays.copyOf(emailBytes, (int) Math.min(Integer.MAX_VALUE - 8, Math.max(needed, emailBytes.length * 2L)));
+        }
+    }
+
+    private int code(String word){
+        if(word == null){
+            return -1;
+        }
+        Integer code = dictionary.get(word);
+        if(code != null){
+            return code;
+        }
+        int next = dictionary.size();
+        byte[] bytes = word.getBytes(StandardCharsets.UTF_8);
+        if(next + 1 == wordOffsets.length){
+            wordOffsets = Arrays.copyOf(wordOffsets, wordOffsets.length * 2);
+        }
+        int start = wordOffsets[next];
+        if(start + bytes.length > wordBytes.length){
+            wordBytes = Arrays.copyOf(wordBytes, Math.max(start + bytes.length, wordBytes.length * 2));
+        }
+        System.arraycopy(bytes, 0, wordBytes, start, bytes.length);
+        wordOffsets[next + 1] = start + bytes.length;
+        dictionary.put(word, next);
+        return next;
+    }
+
+    /**
+     * Writes the snapshot to target, replacing any existing file atomically.
+     * @return size of the file in bytes
+     */
+    long writeTo(Path target) throws IOException {
+        int words = dictionary.size();
+        long size = UserSnapshot.HEADER_BYTES
+                + (long) rows * (3 * Long.BYTES + 2 * Integer.BYTES)
+                + (rows + 1L) * Integer.BYTES
+                + (words + 1L) * Integer.BYTES
+                + emailOffsets[rows]
+                + wordOffsets[words];
+        if(size > Integer.MAX_VALUE){
+            throw new IOException("User snapshot would exceed 2 GB (" + size + " bytes)");
+        }
+
+        Path directory = target.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+        try{
+            try(FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)){
+                ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                buffer.putInt(UserSnapshot.MAGIC)
+                        .putInt(UserSnapshot.VERSION)
+                        .putInt(rows)
+                        .putInt(words)
+                        .putLong(watermarkMicros)
+                        .putInt(emailOffsets[rows])
+                        .putInt(wordOffsets[words]);
+                buffer.position(UserSnapshot.HEADER_BYTES);
+
+                writeLongs(channel, buffer, ids, rows);
+                writeLongs(channel, buffer, createdAt, rows);
+                writeLongs(channel, buffer, updatedAt, rows);
+                writeInts(channel, buffer, firstNames, rows);
+                writeInts(channel, buffer, lastNames, rows);
+                writeInts(channel, buffer, emailOffsets, rows + 1);
+                writeInts(channel, buffer, wordOffsets, words + 1);
+                writeBytes(channel, buffer, emailBytes, emailOffsets[rows]);
+                writeBytes(channel, buffer, wordBytes, wordOffsets[words]);
+                drain(channel, buffer);
+                channel.force(true);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }catch (IOException | RuntimeException e){
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        return size;
+    }
+
+    private static void writeLongs(FileChannel channel, ByteBuffer buffer, long[] values, int count) throws IOException {
+        for(int i = 0; i < count; i++){
+            if(buffer.remaining() < Long.BYTES){
+                drain(channel, buffer);
+            }
+            buffer.putLong(values[i]);
+        }
+    }
+
+    private static void writeInts(FileChannel channel, ByteBuffer buffer, int[] values, int count) throws IOException {
+        for(int i = 0; i < count; i++){
+            if(buffer.remaining() < Integer.BYTES){
+                drain(channel, buffer);
+            }
+            buffer.putInt(values[i]);
+        }
+    }
+
+    private static void writeBytes(FileChannel channel, ByteBuffer buffer, byte[] values, int count) throws IOException {
+        int offset = 0;
+        while(offset < count){
+            if(!buffer.hasRemaining()){
+                drain(channel, buffer);
+            }
+            int length = Math.min(buffer.remaining(), count - offset);
+            buffer.put(values, offset, length);
+            offset += length;
+        }
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while(buffer.hasRemaining()){
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
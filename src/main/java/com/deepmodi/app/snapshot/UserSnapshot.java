@@ -0,0 +1,365 @@
+package com.deepmodi.app.snapshot;
+
+import com.deepmodi.app.model.User;
+import com.deepmodi.app.model.UserFilter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Read-only, memory-mapped columnar copy of the users table (written by {@link UserSnapshotExporter}).
+ *
+ * Every column is read straight out of the mapped file: ids and timestamps are fixed-width primitive
+ * columns, first and last names are int codes into one shared dictionary, and emails are UTF-8 bytes
+ * addressed through an offset column. Scans and filters work on rows by index and compare primitives
+ * or raw bytes, so nothing is copied onto the heap until a value is asked for; the OS page cache holds
+ * the data and is shared by every reader of the file.
+ * <pre>
+ * try(UserSnapshot snapshot = UserSnapshot.open(path)){
+ *     long smiths = snapshot.rows(snapshot.matching(UserFilter.none().lastName("Smith"))).count();
+ * }
+ * </pre>
+ * Rows are sorted by id. Timestamps are kept as microseconds since the epoch (the column has no time
+ * zone, so UTC is used for the conversion), with {@link #NULL_TIMESTAMP} for NULL.
+ *
+ * File layout, little-endian: a 64 byte header, then the id, created_at and updated_at columns
+ * (long[rows] each), the first and last name code columns (int[rows] each), the email offsets
+ * (int[rows + 1]), the dictionary offsets (int[dictionary + 1]), the email bytes and the dictionary bytes.
+ * A single mapping limits a file to 2 GB.
+ *
+ * Instances are safe to share between threads.
+ */
+public final class UserSnapshot implements AutoCloseable {
+    static final int MAGIC = 0x55534E50; // "USNP"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 64;
+
+    public static final long NULL_TIMESTAMP = Long.MIN_VALUE;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final ByteBuffer data;
+
+    private final int rowCount;
+    private final int dictionarySize;
+    private final long watermarkMicros;
+
+    private final int idsStart;
+    private final int createdAtStart;
+    private final int updatedAtStart;
+    private final int firstNameStart;
+    private final int lastNameStart;
+    private final int emailOffsetsStart;
+    private final int dictionaryOffsetsStart;
+    private final int emailBytesStart;
+    private final int dictionaryBytesStart;
+
+    // Names repeat across rows, so each dictionary word is decoded at most once
+    private final String[] words;
+
+    private UserSnapshot(Path path, FileChannel channel, ByteBuffer data) throws IOException {
+        this.path = path;
+        this.channel = channel;
+        this.data = data;
+
+        if(data.limit() < HEADER_BYTES || data.getInt(0) != MAGIC){
+            throw new IOException("Not a user snapshot: " + path);
+        }
+        if(data.getInt(4) != VERSION){
+            throw new IOException("Unsupported user snapshot version " + data.getInt(4) + ": " + path);
+        }
+        this.rowCount = data.getInt(8);
+        this.dictionarySize = data.getInt(12);
+        this.watermarkMicros = data.getLong(16);
+        int emailBytesLength = data.getInt(24);
+        int dictionaryBytesLength = data.getInt(28);
+
+        this.idsStart = HEADER_BYTES;
+        this.createdAtStart = idsStart + rowCount * Long.BYTES;
+        this.updatedAtStart = createdAtStart + rowCount * Long.BYTES;
+        this.firstNameStart = updatedAtStart + rowCount * Long.BYTES;
+        this.lastNameStart = firstNameStart + rowCount * Integer.BYTES;
+        this.emailOffsetsStart = lastNameStart + rowCount * Integer.BYTES;
+        this.dictionaryOffsetsStart = emailOffsetsStart + (rowCount + 1) * Integer.BYTES;
+        this.emailBytesStart = dictionaryOffsetsStart + (dictionarySize + 1) * Integer.BYTES;
+        this.dictionaryBytesStart = emailBytesStart + emailBytesLength;
+        if((long) dictionaryBytesStart + dictionaryBytesLength != data.limit()){
+            throw new IOException("Truncated or corrupt user snapshot: " + path);
+        }
+        this.words = new String[dictionarySize];
+    }
+
+    /**
+     * Maps a snapshot file read-only.
+     */
+    public static UserSnapshot open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try{
+            long size = channel.size();
+            if(size > Integer.MAX_VALUE){
+                throw new IOException("User snapshot larger than 2 GB: " + path);
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return new UserSnapshot(path, channel, mapped.order(ByteOrder.LITTLE_ENDIAN));
+        }catch (IOException | RuntimeException e){
+            channel.close();
+            throw e;
+        }
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public int size() {
+        return rowCount;
+    }
+
+    /**
+     * @return newest updated_at in the snapshot, in epoch microseconds; incremental refreshes start here
+     */
+    public long getWatermarkMicros() {
+        return watermarkMicros;
+    }
+
+    public long getId(int row){
+        return data.getLong(idsStart + row * Long.BYTES);
+    }
+
+    public long getCreatedAtMicros(int row){
+        return data.getLong(createdAtStart + row * Long.BYTES);
+    }
+
+    public long getUpdatedAtMicros(int row){
+        return data.getLong(updatedAtStart + row * Long.BYTES);
+    }
+
+    public LocalDateTime getCreatedAt(int row){
+        return fromMicros(getCreatedAtMicros(row));
+    }
+
+    public LocalDateTime getUpdatedAt(int row){
+        return fromMicros(getUpdatedAtMicros(row));
+    }
+
+    public int getFirstNameCode(int row){
+        return data.getInt(firstNameStart + row * Integer.BYTES);
+    }
+
+    public int getLastNameCode(int row){
+        return data.getInt(lastNameStart + row * Integer.BYTES);
+    }
+
+    public String getFirstName(int row){
+        return word(getFirstNameCode(row));
+    }
+
+    public String getLastName(int row){
+        return word(getLastNameCode(row));
+    }
+
+    public String getEmail(int row){
+        int start = emailStart(row);
+        return decode(emailBytesStart + start, emailStart(row + 1) - start);
+    }
+
+    /**
+     * Materializes one row; scans should stay on the column accessors until they know they need it.
+     */
+    public User toUser(int row){
+        return new User(getId(row), getFirstName(row), getLastName(row), getEmail(row),
+                getCreatedAt(row), getUpdatedAt(row));
+    }
+
+    /**
+     * Finds a row by id with a binary search over the id column.
+     * @return the row, or -1 when the id is not in the snapshot
+     */
+    public int findRow(long id){
+        int low = 0;
+        int high = rowCount - 1;
+        while(low <= high){
+            int mid = (low + high) >>> 1;
+            long midId = getId(mid);
+            if(midId < id){
+                low = mid + 1;
+            }else if(midId > id){
+                high = mid - 1;
+            }else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the dictionary code of a name, or -1 when no row has it
+     */
+    public int findNameCode(String name){
+        if(name == null){
+            return -1;
+        }
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        for(int code = 0; code < dictionarySize; code++){
+            int start = wordStart(code);
+            if(bytesEqual(dictionaryBytesStart + start, wordStart(code + 1) - start, bytes)){
+                return code;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Every row index in id order.
+     */
+    public IntStream rows(){
+        return IntStream.range(0, rowCount);
+    }
+
+    /**
+     * Row indexes matching filter, in id order; parallel() splits the scan across cores.
+     */
+    public IntStream rows(IntPredicate filter){
+        return rows().filter(filter);
+    }
+
+    /**
+     * Users matching filter; only matching rows are materialized.
+     */
+    public Stream<User> users(UserFilter filter){
+        return rows(matching(filter)).mapToObj(this::toUser);
+    }
+
+    /**
+     * Translates a {@link UserFilter} into a row predicate that runs against the mapped columns: the last
+     * name becomes one dictionary code compared as an int, the domain a byte suffix compared in place, and
+     * the creation range a pair of microsecond bounds.
+     */
+    public IntPredicate matching(UserFilter filter){
+        IntPredicate predicate = row -> true;
+        if(filter == null){
+            return predicate;
+        }
+        if(filter.getLastName() != null){
+            int code = findNameCode(filter.getLastName());
+            if(code < 0){
+                return row -> false;
+            }
+            predicate = predicate.and(row -> getLastNameCode(row) == code);
+        }
+        if(filter.getEmailDomain() != null){
+            byte[] suffix = ("@" + filter.getEmailDomain()).getBytes(StandardCharsets.UTF_8);
+            predicate = predicate.and(row -> emailEndsWith(row, suffix));
+        }
+        if(filter.getCreatedFrom() != null){
+            long from = toMicros(filter.getCreatedFrom());
+            predicate = predicate.and(row -> {
+                long createdAt = getCreatedAtMicros(row);
+                return createdAt != NULL_TIMESTAMP && createdAt >= from;
+            });
+        }
+        if(filter.getCreatedTo() != null){
+            long to = toMicros(filter.getCreatedTo());
+            predicate = predicate.and(row -> {
+                long createdAt = getCreatedAtMicros(row);
+                return createdAt != NULL_TIMESTAMP && createdAt < to;
+            });
+        }
+        return predicate;
+    }
+
+    /**
+     * Compares the end of a row's email with suffix without decoding it.
+     */
+    public boolean emailEndsWith(int row, byte[] suffix){
+        int start = emailStart(row);
+        int end = emailStart(row + 1);
+        if(end - start < suffix.length){
+            return false;
+        }
+        return bytesEqual(emailBytesStart + end - suffix.length, suffix.length, suffix);
+    }
+
+    int emailStart(int row){
+        return data.getInt(emailOffsetsStart + row * Integer.BYTES);
+    }
+
+    int emailBytesStart(){
+        return emailBytesStart;
+    }
+
+    ByteBuffer data(){
+        return data;
+    }
+
+    String word(int code){
+        if(code < 0){
+            return null;
+        }
+        String word = words[code];
+        if(word == null){
+            int start = wordStart(code);
+            word = decode(dictionaryBytesStart + start, wordStart(code + 1) - start);
+            // Racing threads decode the same immutable string; either copy is fine
+            words[code] = word;
+        }
+        return word;
+    }
+
+    private int wordStart(int code){
+        return data.getInt(dictionaryOffsetsStart + code * Integer.BYTES);
+    }
+
+    private boolean bytesEqual(int position, int length, byte[] expected){
+        if(length != expected.length){
+            return false;
+        }
+        for(int i = 0; i < length; i++){
+            if(data.get(position + i) != expected[i]){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String decode(int position, int length){
+        byte[] bytes = new byte[length];
+        data.get(position, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static long toMicros(LocalDateTime value){
+        if(value == null){
+            return NULL_TIMESTAMP;
+        }
+        return ChronoUnit.MICROS.between(LocalDateTime.ofEpochSecond(0, 0, ZoneOffset.UTC), value);
+    }
+
+    static LocalDateTime fromMicros(long micros){
+        if(micros == NULL_TIMESTAMP){
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+
+    /**
+     * Closes the file. The mapping itself is released by the garbage collector once no scan references it.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,229 @@
+package com.deepmodi.app.snapshot;
+
+import com.deepmodi.app.config.DatabaseConfig;
+import com.deepmodi.app.dao.UserRowMapper;
+import com.deepmodi.app.metrics.DaoMetrics;
+import com.deepmodi.app.metrics.OperationTimer;
+import com.deepmodi.app.model.UserRow;
+import com.deepmodi.app.util.AppLogger;
+import com.deepmodi.app.util.DatabaseUtil;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes {@link UserSnapshot} files from the users table.
+ *
+ * {@link #export} streams the whole table through a cursor on a read connection (a replica when one is
+ * configured). {@link #refresh} brings an existing snapshot up to date without reading every row again:
+ * it fetches only rows whose updated_at is newer than the snapshot's watermark, plus the bare id column
+ * (an index-only scan of the primary key) to drop rows deleted since, and merges both with the old file.
+ *
+ * The watermark is pushed back by snapshot.refreshOverlapSeconds because updated_at is set from the
+ * transaction's start time: a transaction that commits after the previous refresh can carry an older
+ * timestamp. Re-reading the overlap is harmless, the rows just replace themselves. Writes that do not
+ * touch updated_at are not picked up until the next full export.
+ *
+ * Both queries of a refresh run in one REPEATABLE READ transaction, so they see the same data.
+ */
+public class UserSnapshotExporter {
+    private static final AppLogger log = AppLogger.getLogger(UserSnapshotExporter.class);
+
+    public static final String OP_EXPORT = "snapshot.export";
+    public static final String OP_REFRESH = "snapshot.refresh";
+
+    private static final String SELECT_ALL_SQL =
+            "SELECT id, first_name, last_name, email, created_at, updated_at FROM users ORDER BY id";
+    private static final String SELECT_CHANGED_SQL =
+            "SELECT id, first_name, last_name, email, created_at, updated_at FROM users WHERE updated_at > ? ORDER BY id";
+    private static final String SELECT_IDS_SQL = "SELECT id FROM users ORDER BY id";
+
+    private final DaoMetrics metrics = DaoMetrics.getInstance();
+    private final int fetchSize;
+    private final long overlapMicros;
+
+    public UserSnapshotExporter() {
+        DatabaseConfig config = DatabaseConfig.getInstance();
+        this.fetchSize = config.getFetchSize();
+        this.overlapMicros = TimeUnit.SECONDS.toMicros(config.getSnapshotRefreshOverlapSeconds());
+    }
+
+    /**
+     * Writes a snapshot of the whole users table to target and maps it.
+     * @return the new snapshot, or null when the export failed (the old file, if any, is left alone)
+     */
+    public UserSnapshot export(Path target){
+        log.info("Exporting users snapshot to {}...", target);
+        long start = System.nanoTime();
+
+        try(OperationTimer timer = metrics.start(OP_EXPORT)){
+            try{
+                SnapshotBuilder builder = new SnapshotBuilder();
+                try(Connection connection = DatabaseUtil.getReadConnection()){
+                    try{
+                        connection.setAutoCommit(false);
+                        try(PreparedStatement statement = connection.prepareStatement(SELECT_ALL_SQL)){
+                            statement.setFetchSize(fetchSize);
+                            try(ResultSet rs = statement.executeQuery()){
+                                UserRowMapper mapper = new UserRowMapper();
+                                UserRow row = new UserRow();
+                                while(rs.next()){
+                                    mapper.mapInto(rs, row);
+                                    add(builder, row);
+                                }
+                            }
+                        }
+                    }finally {
+                        // Nothing was written; commit is a no-op inside a UnitOfWork where rollback is not
+                        connection.commit();
+                    }
+                }
+                long bytes = builder.writeTo(target);
+                log.info("✓ Snapshot of {} users written to {} ({} bytes) in {}ms",
+                        builder.size(), target, bytes, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                return UserSnapshot.open(target);
+            }catch (SQLException | IOException | RuntimeException e){
+                timer.failed();
+                log.error("✗ Error exporting users snapshot: {}", e.getMessage());
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Writes current merged with the users changed since it was taken to target and maps the result.
+     * target may be current's own path: the file is replaced atomically and current stays readable
+     * until it is closed.
+     * @return the refreshed snapshot, or null when the refresh failed
+     */
+    public UserSnapshot refresh(UserSnapshot current, Path target){
+        long start = System.nanoTime();
+        long since = current.getWatermarkMicros() == UserSnapshot.NULL_TIMESTAMP
+                ? UserSnapshot.NULL_TIMESTAMP
+                : current.getWatermarkMicros() - overlapMicros;
+
+        try(OperationTimer timer = metrics.start(OP_REFRESH)){
+            try{
+                SnapshotBuilder builder = new SnapshotBuilder();
+                int changed = 0;
+                try(Connection connection = DatabaseUtil.getReadConnection()){
+                    try{
+                        connection.setAutoCommit(false);
+                        try(Statement statement = connection.createStatement()){
+                            statement.execute("SET TRANSACTION ISOLATION LEVEL REPEATABLE READ");
+                        }
+                        long[] liveIds = readIds(connection);
+                        changed = merge(connection, current, since, liveIds, builder);
+                    }finally {
+                        connection.commit();
+                    }
+                }
+                long bytes = builder.writeTo(target);
+                log.info("✓ Snapshot refreshed with {} changed users, {} users total ({} bytes) in {}ms",
+                        changed, builder.size(), bytes, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                return UserSnapshot.open(target);
+            }catch (SQLException | IOException | RuntimeException e){
+                timer.failed();
+                log.error("✗ Error refreshing users snapshot: {}", e.getMessage());
+                return null;
+            }
+        }
+    }
+
+    private long[] readIds(Connection connection) throws SQLException {
+        long[] ids = new long[1024];
+        int count = 0;
+        try(PreparedStatement statement = connection.prepareStatement(SELECT_IDS_SQL)){
+            statement.setFetchSize(fetchSize * 10);
+            try(ResultSet rs = statement.executeQuery()){
+                while(rs.next()){
+                    if(count == ids.length){
+                        ids = Arrays.copyOf(ids, count * 2);
+                    }
+                    ids[count++] = rs.getLong(1);
+                }
+            }
+        }
+        return Arrays.copyOf(ids, count);
+    }
+
+    /**
+     * Source of the changed rows a refresh merges in, in id order.
+     */
+    @FunctionalInterface
+    interface ChangedRows {
+        /**
+         * Fills row with the next changed row.
+         * @return false when there are no more
+         */
+        boolean next(UserRow row) throws SQLException;
+    }
+
+    private int merge(Connection connection, UserSnapshot current, long since, long[] liveIds,
+                      SnapshotBuilder builder) throws SQLException {
+        try(PreparedStatement statement = connection.prepareStatement(SELECT_CHANGED_SQL)){
+            statement.setFetchSize(fetchSize);
+            statement.setObject(1, UserSnapshot.fromMicros(since == UserSnapshot.NULL_TIMESTAMP ? 0 : since));
+            try(ResultSet rs = statement.executeQuery()){
+                UserRowMapper mapper = new UserRowMapper();
+                return merge(current, row -> {
+                    if(!rs.next()){
+                        return false;
+                    }
+                    mapper.mapInto(rs, row);
+                    return true;
+                }, liveIds, builder);
+            }
+        }
+    }
+
+    /**
+     * Walks the old snapshot and the changed rows together in id order: a changed row replaces or
+     * inserts, an old row is kept only while its id is still live.
+     * @return number of changed rows merged in
+     */
+    static int merge(UserSnapshot current, ChangedRows changedRows, long[] liveIds,
+                     SnapshotBuilder builder) throws SQLException {
+        int changed = 0;
+        int row = 0;
+        int[] live = {0};
+        UserRow changedRow = new UserRow();
+        while(changedRows.next(changedRow)){
+            long id = changedRow.getId();
+            while(row < current.size() && current.getId(row) < id){
+                copyIfLive(current, row++, liveIds, live, builder);
+            }
+            if(row < current.size() && current.getId(row) == id){
+                row++;
+            }
+            add(builder, changedRow);
+            changed++;
+        }
+        while(row < current.size()){
+            copyIfLive(current, row++, liveIds, live, builder);
+        }
+        return changed;
+    }
+
+    private static void copyIfLive(UserSnapshot current, int row, long[] liveIds, int[] live, SnapshotBuilder builder){
+        long id = current.getId(row);
+        while(live[0] < liveIds.length && liveIds[live[0]] < id){
+            live[0]++;
+        }
+        if(live[0] < liveIds.length && liveIds[live[0]] == id){
+            builder.copy(current, row);
+        }
+    }
+
+    private static void add(SnapshotBuilder builder, UserRow row){
+        builder.add(row.getId(), row.getFirstName(), row.getLastName(), row.getEmail(),
+                UserSnapshot.toMicros(row.getCreatedAt()), UserSnapshot.toMicros(row.getUpdatedAt()));
+    }
+}
@@ -0,0 +1,349 @@
+package com.deepmodi.app.util;
+
+import com.deepmodi.app.config.DatabaseConfig;
+import com.deepmodi.app.metrics.DaoMetrics;
+import com.deepmodi.app.metrics.OperationTimer;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Decides how many operations may use the primary at once, so that when PostgreSQL slows down callers
+ * queue briefly or fail fast instead of all piling onto it and making every request slow.
+ *
+ * A permit is taken before a connection is borrowed and given back when the connection is closed. The
+ * latency sample is the time that connection spent in database calls, not the whole borrow: a caller
+ * that holds its connection while doing other work says nothing about how the database is doing, and a
+ * borrow without any database call gives no sample at all. The limit adapts to those samples (gradient method): it
+ * compares the recent average latency with a slowly moving baseline and shrinks the limit as latency
+ * rises above 1.5x the baseline, growing it again by about sqrt(limit) per window while latency stays
+ * near the baseline. Windows in which less than half of the limit was used do not grow it, since
+ * latency says nothing about a limit nobody reaches.
+ *
+ * Callers over the limit wait in a FIFO queue of at most admission.maxQueueSize for up to
+ * admission.queueTimeoutMs; when the queue is full they are rejected at once.
+ *
+ * A circuit breaker opens after admission.failureThreshold consecutive connection failures (connections
+ * the driver could not open, or connections that broke with a class 08 error). A pool that is merely
+ * saturated, closed or interrupted says nothing about the database and does not count. While open every caller is rejected
+ * without touching the database; after admission.openMs one trial call is let through, and its
+ * outcome closes the circuit or opens it again.
+ *
+ * Rejections are {@link AdmissionRejectedException}s. Waiting time is recorded as the
+ * {@value #OP_ACQUIRE} operation; {@link #stats()} has the limit, queue and breaker state.
+ */
+public class AdmissionController {
+    private static final AppLogger log = AppLogger.getLogger(AdmissionController.class);
+
+    public static final String OP_ACQUIRE = "admission.acquire";
+
+    public enum CircuitState {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    // Latency samples averaged per limit update
+    private static final int WINDOW_SAMPLES = 10;
+    // Windows it takes the baseline to follow a lasting change in latency
+    private static final double BASELINE_WINDOWS = 100;
+    private static final double TOLERANCE = 1.5;
+    private static final double SMOOTHING = 0.2;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final int maxQueueSize;
+    private final long queueTimeoutNanos;
+    private final int failureThreshold;
+    private final long openNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition admittable = lock.newCondition();
+
+    // Guarded by lock
+    private double limit;
+    private int inFlight;
+    private int waiting;
+    private double baselineNanos;
+    private double windowSumNanos;
+    private int windowSamples;
+    private int windowMaxInFlight;
+    private CircuitState state = CircuitState.CLOSED;
+    private int consecutiveFailures;
+    private long openedAtNanos;
+    private boolean trialInFlight;
+    private long admitted;
+    private long rejectedQueueFull;
+    private long rejectedTimeout;
+    private long rejectedCircuitOpen;
+    private long circuitOpens;
+
+    public AdmissionController(DatabaseConfig config) {
+        int poolSize = Math.max(1, config.getPoolMaxSize());
+        this.maxLimit = config.getAdmissionMaxLimit() > 0 ? config.getAdmissionMaxLimit() : poolSize;
+        this.minLimit = Math.max(1, Math.min(config.getAdmissionMinLimit(), maxLimit));
+        this.maxQueueSize = Math.max(0, config.getAdmissionMaxQueueSize());
+        this.queueTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, config.getAdmissionQueueTimeoutMs()));
+        this.failureThreshold = Math.max(1, config.getAdmissionFailureThreshold());
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, config.getAdmissionOpenMs()));
+        this.limit = maxLimit;
+    }
+
+    /**
+     * Admission for one operation, handed back through {@link #release}, {@link #connectionFailed} or {@link #cancel}.
+     */
+    public final class Permit {
+        private final boolean trial;
+        private boolean released;
+
+        private Permit(boolean trial) {
+            this.trial = trial;
+        }
+
+        /**
+         * The operation finished; its database time becomes a latency sample.
+         * @param broken the connection failed with a connection error while in use
+         * @param databaseNanos time the operation spent in database calls
+         */
+        public void release(boolean broken, long databaseNanos){
+            if(!released){
+                released = true;
+                AdmissionController.this.release(this, databaseNanos, broken);
+            }
+        }
+
+        /**
+         * No connection could be opened; counts towards opening the circuit, gives no latency sample.
+         */
+        public void connectionFailed(){
+            if(!released){
+                released = true;
+                AdmissionController.this.release(this, -1, true);
+            }
+        }
+
+        /**
+         * No connection was borrowed for a reason that is not the database's (the pool timed out, was
+         * closed or the caller was interrupted); counts as neither success nor failure.
+         */
+        public void cancel(){
+            if(!released){
+                released = true;
+                AdmissionController.this.cancel(this);
+            }
+        }
+    }
+
+    /**
+     * Waits for admission.
+     * @throws AdmissionRejectedException when saturated, timed out or the circuit is open
+     */
+    public Permit acquire() throws SQLException {
+        try(OperationTimer timer = DaoMetrics.getInstance().start(OP_ACQUIRE)){
+            try{
+                return admit();
+            }catch (SQLException e){
+                timer.failed();
+                throw e;
+            }
+        }
+    }
+
+    private Permit admit() throws SQLException {
+        lock.lock();
+        boolean trial = false;
+        boolean granted = false;
+        try{
+            trial = checkCircuit();
+            if(waiting == 0 && inFlight < currentLimit()){
+                granted = true;
+                return grant(trial);
+            }
+            if(waiting >= maxQueueSize){
+                rejectedQueueFull++;
+                throw new AdmissionRejectedException(AdmissionRejectedException.Reason.QUEUE_FULL,
+                        "Database saturated: " + inFlight + " operations running, " + waiting + " waiting");
+            }
+
+            waiting++;
+            try{
+                long remaining = queueTimeoutNanos;
+                while(true){
+                    if(state == CircuitState.OPEN){
+                        rejectedCircuitOpen++;
+                        throw circuitOpen();
+                    }
+                    if(inFlight < currentLimit()){
+                        granted = true;
+                        return grant(trial);
+                    }
+                    if(remaining <= 0){
+                        rejectedTimeout++;
+                        throw new AdmissionRejectedException(AdmissionRejectedException.Reason.TIMEOUT,
+                                "Timed out after " + TimeUnit.NANOSECONDS.toMillis(queueTimeoutNanos)
+                                        + "ms waiting for admission (limit=" + currentLimit() + ")");
+                    }
+                    remaining = admittable.awaitNanos(remaining);
+                }
+            }catch (InterruptedException e){
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for admission", "08001", e);
+            }finally {
+                waiting--;
+            }
+        }finally {
+            if(trial && !granted && state == CircuitState.HALF_OPEN){
+                // The trial never reached the database; let the next caller try
+                trialInFlight = false;
+            }
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return true when this caller is the half-open circuit's trial call
+     */
+    private boolean checkCircuit() throws AdmissionRejectedException {
+        if(state == CircuitState.OPEN){
+            if(System.nanoTime() - openedAtNanos < openNanos){
+                rejectedCircuitOpen++;
+                throw circuitOpen();
+            }
+            state = CircuitState.HALF_OPEN;
+            trialInFlight = false;
+        }
+        if(state == CircuitState.HALF_OPEN){
+            if(trialInFlight){
+                rejectedCircuitOpen++;
+                throw circuitOpen();
+            }
+            trialInFlight = true;
+            return true;
+        }
+        return false;
+    }
+
+    private AdmissionRejectedException circuitOpen(){
+        return new AdmissionRejectedException(AdmissionRejectedException.Reason.CIRCUIT_OPEN,
+                "Circuit breaker open after repeated connection failures");
+    }
+
+    private Permit grant(boolean trial){
+        inFlight++;
+        admitted++;
+        windowMaxInFlight = Math.max(windowMaxInFlight, inFlight);
+        return new Permit(trial);
+    }
+
+    private void release(Permit permit, long latencyNanos, boolean failed){
+        lock.lock();
+        try{
+            inFlight--;
+            if(failed){
+                onFailure(permit);
+            }else {
+                onSuccess(permit);
+                if(latencyNanos > 0){
+                    sample(latencyNanos);
+                }
+            }
+            signalAdmittable();
+        }finally {
+            lock.unlock();
+        }
+    }
+
+    private void cancel(Permit permit){
+        lock.lock();
+        try{
+            inFlight--;
+            if(permit.trial && state == CircuitState.HALF_OPEN){
+                // The trial never reached the database; let the next caller try
+                trialInFlight = false;
+            }
+            signalAdmittable();
+        }finally {
+            lock.unlock();
+        }
+    }
+
+    private void onFailure(Permit permit){
+        consecutiveFailures++;
+        if(permit.trial && state == CircuitState.HALF_OPEN){
+            open();
+        }else if(state == CircuitState.CLOSED && consecutiveFailures >= failureThreshold){
+            open();
+        }
+    }
+
+    private void onSuccess(Permit permit){
+        consecutiveFailures = 0;
+        if(permit.trial && state == CircuitState.HALF_OPEN){
+            state = CircuitState.CLOSED;
+            log.info("✓ Circuit breaker closed; database reachable again");
+        }
+    }
+
+    private void open(){
+        state = CircuitState.OPEN;
+        openedAtNanos = System.nanoTime();
+        trialInFlight = false;
+        circuitOpens++;
+        log.warn("⚠ Circuit breaker opened after {} consecutive connection failures; rejecting for {}ms",
+                consecutiveFailures, TimeUnit.NANOSECONDS.toMillis(openNanos));
+        // Waiters must not sit out their timeout for a database that is down
+        admittable.signalAll();
+    }
+
+    private void sample(long latencyNanos){
+        windowSumNanos += latencyNanos;
+        if(++windowSamples < WINDOW_SAMPLES){
+            return;
+        }
+        double recentNanos = windowSumNanos / windowSamples;
+        boolean limitReached = windowMaxInFlight >= limit / 2;
+        windowSumNanos = 0;
+        windowSamples = 0;
+        windowMaxInFlight = inFlight;
+
+        if(baselineNanos == 0){
+            baselineNanos = recentNanos;
+            return;
+        }
+        baselineNanos += (recentNanos - baselineNanos) / BASELINE_WINDOWS;
+        if(baselineNanos > 2 * recentNanos){
+            // Latency dropped for good (e.g. the database recovered); let the baseline catch up faster
+            baselineNanos *= 0.95;
+        }
+        if(!limitReached){
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * baselineNanos / recentNanos));
+        double target = limit * gradient + Math.sqrt(limit);
+        limit = Math.max(minLimit, Math.min(maxLimit, limit * (1 - SMOOTHING) + target * SMOOTHING));
+    }
+
+    private void signalAdmittable(){
+        // Condition queues are FIFO, so the longest waiters go first
+        for(int free = currentLimit() - inFlight; free > 0 && waiting > 0; free--){
+            admittable.signal();
+        }
+    }
+
+    private int currentLimit(){
+        return (int) limit;
+    }
+
+    public AdmissionStats stats(){
+        lock.lock();
+        try{
+            return new AdmissionStats(currentLimit(), inFlight, waiting, state, admitted, rejectedQueueFull,
+                    rejectedTimeout, rejectedCircuitOpen, circuitOpens, baselineNanos / 1_000_000.0);
+        }finally {
+            lock.unlock();
+        }
+    }
+}
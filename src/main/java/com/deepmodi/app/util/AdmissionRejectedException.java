@@ -0,0 +1,32 @@
+package com.deepmodi.app.util;
+
+import java.sql.SQLException;
+
+/**
+ * Thrown by {@link DatabaseUtil#getConnection()} when {@link AdmissionController} turns a caller away.
+ * It is an SQLException so DAO methods fail the way they do when no connection can be had.
+ */
+public class AdmissionRejectedException extends SQLException {
+    private static final long serialVersionUID = 1L;
+
+    public enum Reason {
+        /** The concurrency limit is reached and the wait queue is full. */
+        QUEUE_FULL,
+        /** Waited admission.queueTimeoutMs in the queue without getting in. */
+        TIMEOUT,
+        /** The circuit breaker is open after repeated connection failures. */
+        CIRCUIT_OPEN
+    }
+
+    private final Reason reason;
+
+    public AdmissionRejectedException(Reason reason, String message) {
+        // 53300 too_many_connections for saturation, 08001 for a database we cannot reach
+        super(message, reason == Reason.CIRCUIT_OPEN ? "08001" : "53300");
+        this.reason = reason;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+}
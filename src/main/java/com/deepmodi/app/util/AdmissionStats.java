@@ -0,0 +1,21 @@
+package com.deepmodi.app.util;
+
+/**
+ * Point-in-time state and counters of an {@link AdmissionController}.
+ */
+public record AdmissionStats(int limit, int inFlight, int waiting, AdmissionController.CircuitState circuitState,
+                             long admitted, long rejectedQueueFull, long rejectedTimeout, long rejectedCircuitOpen,
+                             long circuitOpens, double baselineLatencyMs) {
+
+    public long rejected() {
+        return rejectedQueueFull + rejectedTimeout + rejectedCircuitOpen;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("AdmissionStats{limit=%d, inFlight=%d, waiting=%d, circuit=%s, admitted=%d, rejected=%d "
+                        + "(queueFull=%d, timeout=%d, circuitOpen=%d), circuitOpens=%d, baselineLatency=%.2fms}",
+                limit, inFlight, waiting, circuitState, admitted, rejected(), rejectedQueueFull, rejectedTimeout,
+                rejectedCircuitOpen, circuitOpens, baselineLatencyMs);
+    }
+}
@@ -0,0 +1,114 @@
+package com.deepmodi.app.util;
+
+import com.deepmodi.app.config.DatabaseConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.helpers.FormattingTuple;
+import org.slf4j.helpers.MessageFormatter;
+
+/**
+ * Logging front for the DAO layer.
+ * The mode comes from logging.mode in DatabaseConfig:
+ * <ul>
+ *     <li>console - print to System.out/System.err (the default, same output as before)</li>
+ *     <li>slf4j - route through SLF4J so the backend decides levels and destinations</li>
+ *     <li>off - drop everything, for throughput-sensitive deployments</li>
+ * </ul>
+ * Messages use SLF4J's {} placeholders, so nothing is formatted when the message is dropped.
+ */
+public final class AppLogger {
+
+    public enum Mode { CONSOLE, SLF4J, OFF }
+
+    private static volatile Mode mode = parseMode(DatabaseConfig.getInstance().getLoggingMode());
+
+    private final Logger logger;
+
+    private AppLogger(Class<?> owner) {
+        this.logger = LoggerFactory.getLogger(owner);
+    }
+
+    public static AppLogger getLogger(Class<?> owner){
+        return new AppLogger(owner);
+    }
+
+    public static Mode getMode(){
+        return mode;
+    }
+
+    public static void setMode(Mode newMode){
+        mode = newMode;
+    }
+
+    public boolean isInfoEnabled(){
+        Mode current = mode;
+        return current == Mode.CONSOLE || (current == Mode.SLF4J && logger.isInfoEnabled());
+    }
+
+    public void info(String message){
+        switch (mode){
+            case CONSOLE -> System.out.println(message);
+            case SLF4J -> logger.info(message);
+            default -> { }
+        }
+    }
+
+    public void info(String pattern, Object arg){
+        switch (mode){
+            case CONSOLE -> System.out.println(MessageFormatter.format(pattern, arg).getMessage());
+            case SLF4J -> logger.info(pattern, arg);
+            default -> { }
+        }
+    }
+
+    public void info(String pattern, Object arg1, Object arg2){
+        switch (mode){
+            case CONSOLE -> System.out.println(MessageFormatter.format(pattern, arg1, arg2).getMessage());
+            case SLF4J -> logger.info(pattern, arg1, arg2);
+            default -> { }
+        }
+    }
+
+    public void info(String pattern, Object... args){
+        switch (mode){
+            case CONSOLE -> System.out.println(MessageFormatter.arrayFormat(pattern, args).getMessage());
+            case SLF4J -> logger.info(pattern, args);
+            default -> { }
+        }
+    }
+
+    public void warn(String pattern, Object... args){
+        switch (mode){
+            case CONSOLE -> printError(MessageFormatter.arrayFormat(pattern, args));
+            case SLF4J -> logger.warn(pattern, args);
+            default -> { }
+        }
+    }
+
+    public void error(String pattern, Object... args){
+        switch (mode){
+            case CONSOLE -> printError(MessageFormatter.arrayFormat(pattern, args));
+            case SLF4J -> logger.error(pattern, args);
+            default -> { }
+        }
+    }
+
+    private static void printError(FormattingTuple message){
+        System.err.println(message.getMessage());
+        if(message.getThrowable() != null){
+            message.getThrowable().printStackTrace();
+        }
+    }
+
+    private static Mode parseMode(String value){
+        if(value == null){
+            return Mode.CONSOLE;
+        }
+        try{
+            return Mode.valueOf(value.trim().toUpperCase());
+        }catch (IllegalArgumentException e){
+            System.out.println("⚠ Unknown logging.mode '" + value + "', using console");
+            return Mode.CONSOLE;
+        }
+    }
+}
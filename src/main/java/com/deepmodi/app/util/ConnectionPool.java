@@ -0,0 +1,642 @@
+package com.deepmodi.app.util;
+
+import com.deepmodi.app.config.DatabaseConfig;
+import com.deepmodi.app.metrics.SlowQueryLog;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongConsumer;
+import java.util.logging.Logger;
+
+/**
+ * A small bounded connection pool.
+ * Physical connections are opened once and handed out as proxies; calling close() on a proxy
+ * returns the connection to the pool instead of closing the PostgreSQL session.
+ *
+ * Borrowing is bounded by a semaphore (one permit per connection) and idle connections are kept
+ * in a lock-free deque, used LIFO so the most recently used (warmest) connection is reused first.
+ * A borrower whose permit's connection is still being opened or discarded elsewhere waits on a
+ * condition until it is idle or there is room for a new one.
+ * A background housekeeper evicts idle and expired connections and keeps minIdle connections open.
+ * Each physical connection keeps its own {@link StatementCache}, so prepareStatement() calls for the
+ * same SQL reuse an already prepared statement.
+ */
+public class ConnectionPool implements DataSource, AutoCloseable {
+    private static final AppLogger log = AppLogger.getLogger(ConnectionPool.class);
+
+    // Connections returned within this window are trusted without an isValid() round trip
+    private static final long VALIDATION_BYPASS_MS = 500;
+
+    private final String url;
+    private final Properties connectionProperties;
+    private final int maxPoolSize;
+    private final int minIdle;
+    private final long connectionTimeoutMs;
+    private final long idleTimeoutMs;
+    private final long maxLifetimeMs;
+    private final long leakDetectionThresholdMs;
+    private final int validationTimeoutSeconds;
+    private final int statementCacheSize;
+
+    private final LongAdder statementCacheHits = new LongAdder();
+    private final LongAdder statementCacheMisses = new LongAdder();
+    private final Semaphore permits;
+    private final ConcurrentLinkedDeque<PooledConnection> idleConnections = new ConcurrentLinkedDeque<>();
+    private final Set<PooledConnection> allConnections = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private final ScheduledExecutorService housekeeper;
+
+    // Borrowers that hold a permit but found neither an idle connection nor room for a new one
+    private final ReentrantLock availableLock = new ReentrantLock();
+    private final Condition available = availableLock.newCondition();
+    private final AtomicInteger waitingForAvailable = new AtomicInteger();
+
+    private volatile boolean closed;
+
+    /**
+     * Starts a pool against the configured primary.
+     */
+    public static ConnectionPool create(DatabaseConfig config) throws SQLException {
+        return create(config, config.getUrl());
+    }
+
+    /**
+     * Starts a pool against another server (e.g. a read replica) with the credentials and settings from config.
+     */
+    public static ConnectionPool create(DatabaseConfig config, String url) throws SQLException {
+        ConnectionPool pool = new ConnectionPool(config, url);
+        pool.startHousekeeping();
+        return pool;
+    }
+
+    private ConnectionPool(DatabaseConfig config, String url) throws SQLException {
+        try{
+            // Load the driver once for the lifetime of the pool
+            Class.forName(config.getDriverClassName());
+            log.info("✓ PostgreSQL JDBC driver loaded successfully");
+        }catch (ClassNotFoundException e){
+            String errorMsg = "PostgreSQL JDBC driver not found. Make sure postgresql dependency is in your classpath.";
+            log.error("✗ {}", errorMsg);
+            throw new SQLException(errorMsg, e);
+        }
+
+        this.url = url;
+        this.connectionProperties = new Properties();
+        if(config.getUsername() != null){
+            connectionProperties.setProperty("user", config.getUsername());
+        }
+        if(config.getPassword() != null){
+            connectionProperties.setProperty("password", config.getPassword());
+        }
+        if(config.getPrepareThreshold() != null){
+            // Number of executions before the driver switches to a named server-side statement
+            connectionProperties.setProperty("prepareThreshold", String.valueOf(config.getPrepareThreshold()));
+        }
+        connectionProperties.setProperty("reWriteBatchedInserts", String.valueOf(config.isReWriteBatchedInserts()));
+
+        this.maxPoolSize = Math.max(1, config.getPoolMaxSize());
+        this.minIdle = Math.max(0, Math.min(config.getPoolMinIdle(), maxPoolSize));
+        this.connectionTimeoutMs = config.getPoolConnectionTimeoutMs();
+        this.idleTimeoutMs = config.getPoolIdleTimeoutMs();
+        this.maxLifetimeMs = config.getPoolMaxLifetimeMs();
+        this.leakDetectionThresholdMs = config.getPoolLeakDetectionThresholdMs();
+        this.validationTimeoutSeconds = config.getPoolValidationTimeoutSeconds();
+        this.statementCacheSize = Math.max(0, config.getStatementCacheSize());
+
+        this.permits = new Semaphore(maxPoolSize, true);
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "connection-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private void startHousekeeping(){
+        long period = Math.max(1_000, Math.min(30_000, idleTimeoutMs > 0 ? idleTimeoutMs / 2 : 30_000));
+        housekeeper.scheduleWithFixedDelay(this::houseKeep, period, period, TimeUnit.MILLISECONDS);
+
+        log.info("✓ Connection pool started for {} (max={}, minIdle={}, statementCache={})",
+                url, maxPoolSize, minIdle, statementCacheSize);
+    }
+
+    /**
+     * The pool could not hand out a connection without the database being at fault: it timed out
+     * waiting for one, was closed, or the caller was interrupted. Connect errors from the driver are
+     * thrown as they are.
+     */
+    static final class PoolUnavailableException extends SQLException {
+        private static final long serialVersionUID = 1L;
+
+        private PoolUnavailableException(String reason, String sqlState, Throwable cause) {
+            super(reason, sqlState, cause);
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return getConnection(null);
+    }
+
+    /**
+     * Told when a borrowed connection is closed, see {@link #getConnection(ReturnListener)}.
+     */
+    @FunctionalInterface
+    interface ReturnListener {
+        /**
+         * @param broken true when the connection failed with a connection error (class 08) while borrowed
+         * @param databaseNanos time spent in driver calls while borrowed, not counting the caller's own work
+         */
+        void returned(boolean broken, long databaseNanos);
+    }
+
+    /**
+     * Borrows a connection and calls listener once it has been closed and handed back.
+     */
+    Connection getConnection(ReturnListener listener) throws SQLException {
+        if(closed){
+            throw new PoolUnavailableException("Connection pool is closed", null, null);
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(connectionTimeoutMs);
+        try{
+            if(!permits.tryAcquire(connectionTimeoutMs, TimeUnit.MILLISECONDS)){
+                throw new PoolUnavailableException("Timed out after " + connectionTimeoutMs + "ms waiting for a connection (active="
+                        + getActiveConnections() + ", max=" + maxPoolSize + ")", "08001", null);
+            }
+        }catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new PoolUnavailableException("Interrupted while waiting for a connection", "08001", e);
+        }
+
+        try{
+            PooledConnection pooled = takeConnection(deadline);
+            return pooled.borrow(listener);
+        }catch (SQLException | RuntimeException e){
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Takes an idle connection or opens a new one. The caller already holds a permit, so either an
+     * idle connection exists, one is about to be returned, or there is room for a new one.
+     */
+    private PooledConnection takeConnection(long deadline) throws SQLException {
+        while(true){
+            PooledConnection pooled = idleConnections.pollFirst();
+            if(pooled != null){
+                if(isUsable(pooled)){
+                    return pooled;
+                }
+                discard(pooled);
+                continue;
+            }
+
+            int total = totalConnections.get();
+            if(total < maxPoolSize){
+                if(totalConnections.compareAndSet(total, total + 1)){
+                    try{
+                        return openConnection();
+                    }catch (SQLException e){
+                        totalConnections.decrementAndGet();
+                        signalAvailable();
+                        log.error("✗ Failed to connect to database: {}", e.getMessage());
+                        throw e;
+                    }
+                }
+                continue;
+            }
+
+            awaitAvailable(deadline);
+        }
+    }
+
+    /**
+     * Waits until a connection goes idle or one is discarded, e.g. while the housekeeper is still
+     * opening the connection that belongs to this caller's permit.
+     */
+    private void awaitAvailable(long deadline) throws SQLException {
+        waitingForAvailable.incrementAndGet();
+        availableLock.lock();
+        try{
+            // Checked under the lock that signalAvailable() takes, so a wake-up cannot slip in between
+            while(idleConnections.isEmpty() && totalConnections.get() >= maxPoolSize){
+                long remaining = deadline - System.nanoTime();
+                if(remaining <= 0){
+                    throw new PoolUnavailableException("Timed out waiting for a connection to be returned", "08001", null);
+                }
+                available.awaitNanos(remaining);
+            }
+        }catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new PoolUnavailableException("Interrupted while waiting for a connection", "08001", e);
+        }finally {
+            availableLock.unlock();
+            waitingForAvailable.decrementAndGet();
+        }
+    }
+
+    private void signalAvailable(){
+        if(waitingForAvailable.get() == 0){
+            return;
+        }
+        availableLock.lock();
+        try{
+            available.signalAll();
+        }finally {
+            availableLock.unlock();
+        }
+    }
+
+    private boolean isUsable(PooledConnection pooled){
+        long now = System.currentTimeMillis();
+        if(pooled.isExpired(now, maxLifetimeMs)){
+            return false;
+        }
+        if(now - pooled.lastReturnedAt < VALIDATION_BYPASS_MS){
+            return true;
+        }
+        try{
+            return pooled.physical.isValid(validationTimeoutSeconds);
+        }catch (SQLException e){
+            return false;
+        }
+    }
+
+    private PooledConnection openConnection() throws SQLException {
+        Connection physical = DriverManager.getConnection(url, connectionProperties);
+        physical.setAutoCommit(false);
+        PooledConnection pooled = new PooledConnection(physical);
+        allConnections.add(pooled);
+        return pooled;
+    }
+
+    private void discard(PooledConnection pooled){
+        allConnections.remove(pooled);
+        totalConnections.decrementAndGet();
+        signalAvailable();
+        try{
+            pooled.physical.close();
+        }catch (SQLException e){
+            log.warn("⚠ Error closing pooled connection: {}", e.getMessage());
+        }
+    }
+
+    private void release(PooledConnection pooled){
+        try{
+            if(pooled.broken || closed || pooled.isExpired(System.currentTimeMillis(), maxLifetimeMs)){
+                discard(pooled);
+                return;
+            }
+            try{
+                pooled.reset();
+            }catch (SQLException e){
+                log.warn("⚠ Discarding connection that failed to reset: {}", e.getMessage());
+                discard(pooled);
+                return;
+            }
+            pooled.lastReturnedAt = System.currentTimeMillis();
+            idleConnections.offerFirst(pooled);
+            signalAvailable();
+        }finally {
+            // Release the permit only after the connection is back in the idle deque
+            permits.release();
+        }
+    }
+
+    private void houseKeep(){
+        if(closed){
+            return;
+        }
+        long now = System.currentTimeMillis();
+
+        // Oldest idle connections sit at the tail of the deque
+        for(PooledConnection pooled : idleConnections){
+            boolean idleTooLong = idleTimeoutMs > 0
+                    && now - pooled.lastReturnedAt > idleTimeoutMs
+                    && totalConnections.get() > minIdle;
+            if((idleTooLong || pooled.isExpired(now, maxLifetimeMs)) && idleConnections.remove(pooled)){
+                discard(pooled);
+            }
+        }
+
+        fillToMinimumIdle();
+    }
+
+    /**
+     * Opens connections until at least minIdle connections are idle (bounded by the pool size).
+     * @return number of connections opened
+     */
+    public int fillToMinimumIdle(){
+        int opened = 0;
+        while(!closed && idleConnections.size() < minIdle){
+            int total = totalConnections.get();
+            if(total >= maxPoolSize){
+                break;
+            }
+            if(!totalConnections.compareAndSet(total, total + 1)){
+                continue;
+            }
+            try{
+                PooledConnection pooled = openConnection();
+                pooled.lastReturnedAt = System.currentTimeMillis();
+                idleConnections.offerLast(pooled);
+                signalAvailable();
+                opened++;
+            }catch (SQLException e){
+                totalConnections.decrementAndGet();
+                log.warn("⚠ Could not open idle connection: {}", e.getMessage());
+                break;
+            }
+        }
+        return opened;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public int getMaxPoolSize() {
+        return maxPoolSize;
+    }
+
+    public int getTotalConnections() {
+        return totalConnections.get();
+    }
+
+    public int getIdleConnections() {
+        return idleConnections.size();
+    }
+
+    public int getActiveConnections() {
+        return maxPoolSize - permits.availablePermits();
+    }
+
+    public int getThreadsAwaitingConnection() {
+        return permits.getQueueLength();
+    }
+
+    public long getStatementCacheHits() {
+        return statementCacheHits.sum();
+    }
+
+    public long getStatementCacheMisses() {
+        return statementCacheMisses.sum();
+    }
+
+    public double getStatementCacheHitRate() {
+        long hits = statementCacheHits.sum();
+        long total = hits + statementCacheMisses.sum();
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    @Override
+    public void close() {
+        if(closed){
+            return;
+        }
+        closed = true;
+        housekeeper.shutdownNow();
+
+        PooledConnection pooled;
+        while((pooled = idleConnections.pollFirst()) != null){
+            discard(pooled);
+        }
+        // Borrowed connections are discarded as they are returned
+        log.info("✓ Connection pool closed");
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Pooled connections use the configured credentials");
+    }
+
+    @Override
+    public PrintWriter getLogWriter() {
+        return DriverManager.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) {
+        DriverManager.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) {
+        DriverManager.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() {
+        return DriverManager.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if(iface.isInstance(this)){
+            return iface.cast(this);
+        }
+        throw new SQLException("ConnectionPool is not a wrapper for " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+
+    /**
+     * A physical connection plus the bookkeeping the pool needs for it.
+     */
+    private final class PooledConnection {
+        private final Connection physical;
+        private final StatementCache statementCache;
+        private final long createdAt = System.currentTimeMillis();
+        private volatile long lastReturnedAt = createdAt;
+        private volatile boolean broken;
+        private ScheduledFuture<?> leakTask;
+
+        private PooledConnection(Connection physical) {
+            this.physical = physical;
+            this.statementCache = statementCacheSize > 0
+                    ? new StatementCache(physical, statementCacheSize, statementCacheHits, statementCacheMisses)
+                    : null;
+        }
+
+        private boolean isExpired(long now, long maxLifetime){
+            return maxLifetime > 0 && now - createdAt > maxLifetime;
+        }
+
+        private Connection borrow(ReturnListener listener){
+            BorrowedConnection handler = new BorrowedConnection(this, listener);
+            if(leakDetectionThresholdMs > 0){
+                Exception borrowSite = new Exception("Connection borrowed here");
+                leakTask = housekeeper.schedule(() -> {
+                    // The trailing Throwable argument is logged with its stack trace
+                    log.warn("⚠ Possible connection leak: connection held for more than {}ms",
+                            leakDetectionThresholdMs, borrowSite);
+                }, leakDetectionThresholdMs, TimeUnit.MILLISECONDS);
+            }
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, handler);
+        }
+
+        private void giveBack(){
+            if(leakTask != null){
+                leakTask.cancel(false);
+                leakTask = null;
+            }
+            release(this);
+        }
+
+        /**
+         * Restores the session state the DAO layer expects: manual commit, read-write, no open transaction.
+         * The driver skips the ROLLBACK round trip when no transaction is in progress.
+         */
+        private void reset() throws SQLException {
+            if(!physical.getAutoCommit()){
+                physical.rollback();
+            }else{
+                physical.setAutoCommit(false);
+            }
+            if(physical.isReadOnly()){
+                physical.setReadOnly(false);
+            }
+        }
+    }
+
+    /**
+     * Handler behind the Connection proxy handed to callers. Each borrow gets its own handler,
+     * so a proxy that was already closed cannot touch a connection someone else has borrowed since.
+     */
+    private static final class BorrowedConnection implements InvocationHandler {
+        private final PooledConnection pooled;
+        private final ReturnListener listener;
+        private boolean closed;
+        private long databaseNanos;
+
+        private BorrowedConnection(PooledConnection pooled, ReturnListener listener) {
+            this.pooled = pooled;
+            this.listener = listener;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()){
+                case "close":
+                    if(!closed){
+                        closed = true;
+                        boolean broken = pooled.broken;
+                        pooled.giveBack();
+                        if(listener != null){
+                            listener.returned(broken, databaseNanos);
+                        }
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || pooled.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + pooled.physical + "]";
+                default:
+                    break;
+            }
+
+            if(closed){
+                throw new SQLException("Connection is closed", "08003");
+            }
+
+            long start = System.nanoTime();
+            try{
+                return timed(method, args, prepareOrInvoke(method, args));
+            }catch (InvocationTargetException e){
+                throw markIfBroken(e.getCause());
+            }catch (SQLException e){
+                throw markIfBroken(e);
+            }finally {
+                // commit(), rollback() and the like; statements report their executions themselves
+                databaseNanos += System.nanoTime() - start;
+            }
+        }
+
+        private void addDatabaseTime(long nanos){
+            databaseNanos += nanos;
+        }
+
+        private Object prepareOrInvoke(Method method, Object[] args) throws Throwable {
+            if(pooled.statementCache != null && method.getName().equals("prepareStatement")){
+                Class<?>[] types = method.getParameterTypes();
+                if(types.length == 1){
+                    return pooled.statementCache.prepare((String) args[0], Statement.NO_GENERATED_KEYS);
+                }
+                if(types.length == 2 && types[1] == int.class){
+                    return pooled.statementCache.prepare((String) args[0], (Integer) args[1]);
+                }
+            }
+            return method.invoke(pooled.physical, args);
+        }
+
+        /**
+         * Wraps statements so their executions are timed for the slow-query log and the listener.
+         */
+        private Object timed(Method method, Object[] args, Object result){
+            SlowQueryLog slowQueryLog = SlowQueryLog.getInstance();
+            if((!slowQueryLog.isEnabled() && listener == null) || !(result instanceof Statement statement)){
+                return result;
+            }
+            LongConsumer databaseTime = listener != null ? this::addDatabaseTime : null;
+            switch (method.getName()){
+                case "prepareStatement":
+                    return TimedStatement.wrap(statement, pooled.physical, (String) args[0], slowQueryLog, databaseTime);
+                case "createStatement":
+                    return TimedStatement.wrap(statement, pooled.physical, null, slowQueryLog, databaseTime);
+                default:
+                    return result;
+            }
+        }
+
+        private Throwable markIfBroken(Throwable cause){
+            if(cause instanceof SQLException sqlException){
+                String state = sqlException.getSQLState();
+                // Class 08 = connection exception; the session cannot be trusted anymore
+                if(state != null && state.startsWith("08")){
+                    pooled.broken = true;
+                }
+            }
+            return cause;
+        }
+    }
+}
@@ -1,57 +1,276 @@
 package com.deepmodi.app.util;
 
 import com.deepmodi.app.config.DatabaseConfig;
+import com.deepmodi.app.metrics.DaoMetrics;
+import com.deepmodi.app.metrics.OperationMetrics;
+import com.deepmodi.app.metrics.OperationTimer;
 
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 public class DatabaseUtil {
+    private static final AppLogger log = AppLogger.getLogger(DatabaseUtil.class);
 
     private static final DatabaseConfig config = DatabaseConfig.getInstance();
 
-    public static Connection getConnection() throws SQLException {
-        try{
+    /**
+     * Text the trigram search index covers. Queries must use this exact expression to hit the index.
+     */
+    public static final String USER_SEARCH_DOCUMENT = "lower(first_name || ' ' || last_name || ' ' || email)";
+
+    private static final OperationMetrics connectionAcquire =
+            DaoMetrics.getInstance().operation(DaoMetrics.CONNECTION_ACQUIRE);
+
+    // Created on first use so that a missing driver surfaces as an SQLException to the caller
+    private static volatile ConnectionPool pool;
+
+    private static volatile ReplicaRouter replicaRouter;
+
+    // Whether pg_trgm is installed; null until checked
+    private static volatile Boolean trigramAvailable;
+    // Only a positive answer is remembered: the counter can be installed later, by us or someone else
+    private static volatile boolean userCounterInstalled;
+
+    // Null when admission.enabled is false
+    private static final AdmissionController admission =
+            config.isAdmissionEnabled() ? new AdmissionController(config) : null;
 
-            // Step 1: Load the PostgreSQL JDBC driver
-            Class.forName(config.getDriverClassName());
-            System.out.println("✓ PostgreSQL JDBC driver loaded successfully");
+    // Connection of the unit of work running on the current thread, if any (see UnitOfWork)
+    private static final ThreadLocal<Connection> boundConnection = new ThreadLocal<>();
+    private static final ThreadLocal<Boolean> boundReadOnly = ThreadLocal.withInitial(() -> false);
+
+    // When the current thread last committed a write (System.nanoTime()), 0 if never
+    private static final ThreadLocal<Long> lastWriteNanos = ThreadLocal.withInitial(() -> 0L);
+
+    /**
+     * Returns the shared connection pool, starting it on first use.
+     */
+    public static ConnectionPool getDataSource() throws SQLException {
+        ConnectionPool current = pool;
+        if(current == null){
+            synchronized (DatabaseUtil.class){
+                current = pool;
+                if(current == null){
+                    current = ConnectionPool.create(config);
+                    pool = current;
+                }
+            }
+        }
+        return current;
+    }
 
-            // Step 2:
-            Connection connection = DriverManager.getConnection(
-                    config.getUrl(),
-                    config.getUsername(),
-                    config.getPassword()
-            );
+    /**
+     * Borrows a connection from the pool. Connections come with auto-commit disabled;
+     * closing them returns them to the pool.
+     *
+     * Callers must first get past the {@link AdmissionController}, which may make them wait briefly
+     * or reject them with an {@link AdmissionRejectedException} when the primary is saturated or down.
+     */
+    public static Connection getConnection() throws SQLException {
+        Connection bound = boundConnection.get();
+        if(bound != null){
+            if(boundReadOnly.get()){
+                throw new SQLException("Cannot write inside a read-only unit of work", "25006");
+            }
+            return bound;
+        }
+        AdmissionController.Permit permit = admission != null ? admission.acquire() : null;
+        try(OperationTimer timer = connectionAcquire.start()){
+            try{
+                if(permit == null){
+                    return getDataSource().getConnection();
+                }
+                return getDataSource().getConnection(permit::release);
+            }catch (SQLException e){
+                timer.failed();
+                if(permit != null){
+                    // Only a database that cannot be reached should open the circuit, not a busy pool
+                    if(e instanceof ConnectionPool.PoolUnavailableException){
+                        permit.cancel();
+                    }else {
+                        permit.connectionFailed();
+                    }
+                }
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * @return admission control state, or null when admission.enabled is false
+     */
+    public static AdmissionStats getAdmissionStats(){
+        return admission != null ? admission.stats() : null;
+    }
 
-            // Step 3:
-            connection.setAutoCommit(false);
-            System.out.println("✓ Database connection established successfully");
+    /**
+     * Borrows a connection for a read-only query. Goes to a read replica when one is configured
+     * and usable, unless the current thread wrote within database.replica.stickinessMs, in which
+     * case the replica might not have the write yet and the primary is used (read-your-writes).
+     */
+    public static Connection getReadConnection() throws SQLException {
+        Connection bound = boundConnection.get();
+        if(bound != null){
+            return bound;
+        }
+        ReplicaRouter router = getReplicaRouter();
+        if(!router.hasReplicas() || wroteRecently()){
+            return getConnection();
+        }
+        long start = System.nanoTime();
+        Connection connection = router.getConnection();
+        if(connection != null){
+            connectionAcquire.record(System.nanoTime() - start, true);
             return connection;
+        }
+        // No usable replica: the primary borrow records its own sample
+        return getConnection();
+    }
+
+    /**
+     * Tells whether a connection from {@link #getReadConnection()} reads from a replica, whose rows may be
+     * up to database.replica.maxLagMs behind the primary. Works through the pool's and UnitOfWork's
+     * wrappers; the URL is known client-side, so this costs no round trip.
+     */
+    public static boolean isReplica(Connection connection) throws SQLException {
+        ReplicaRouter router = replicaRouter;
+        return router != null && router.hasReplicas() && router.isReplicaUrl(connection.getMetaData().getURL());
+    }
+
+    /**
+     * Makes getConnection() and getReadConnection() return this connection on the current thread
+     * until {@link #unbindConnection()}. Used by UnitOfWork; the connection should ignore close().
+     * @param readOnly when true, getConnection() (the write path) fails instead of returning it
+     */
+    public static void bindConnection(Connection connection, boolean readOnly){
+        boundConnection.set(connection);
+        boundReadOnly.set(readOnly);
+    }
+
+    public static void unbindConnection(){
+        boundConnection.remove();
+        boundReadOnly.remove();
+    }
+
+    /**
+     * Records that the current thread just committed a write, so its next reads see it.
+     */
+    public static void markWrite(){
+        lastWriteNanos.set(System.nanoTime());
+    }
+
+    /**
+     * @return when the current thread last wrote, for handing read-your-writes over to another thread
+     */
+    public static long getLastWriteNanos(){
+        return lastWriteNanos.get();
+    }
+
+    public static void setLastWriteNanos(long nanos){
+        lastWriteNanos.set(nanos);
+    }
+
+    private static boolean wroteRecently(){
+        long last = lastWriteNanos.get();
+        return last != 0 && System.nanoTime() - last < TimeUnit.MILLISECONDS.toNanos(config.getReplicaStickinessMs());
+    }
+
+    public static ReplicaRouter getReplicaRouter() throws SQLException {
+        ReplicaRouter current = replicaRouter;
+        if(current == null){
+            synchronized (DatabaseUtil.class){
+                current = replicaRouter;
+                if(current == null){
+                    current = new ReplicaRouter(config);
+                    replicaRouter = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Work to run once on each pooled connection, see {@link #forEachIdleConnection}.
+     */
+    @FunctionalInterface
+    public interface ConnectionWork {
+        void run(Connection connection) throws SQLException;
+    }
 
-        }catch (ClassNotFoundException e){
-            String errorMsg = "PostgreSQL JDBC driver not found. Make sure postgresql dependency is in your classpath.";
-            System.err.println("✗ " + errorMsg);
-            throw new SQLException(errorMsg, e);
-        } catch (SQLException e) {
-            System.err.println("✗ Failed to connect to database: " + e.getMessage());
-            throw e; // Re-throw to let caller handle
+    /**
+     * Borrows every idle connection of the primary pool at once, so each physical connection is
+     * visited exactly once, runs work on it and returns them all.
+     * @return number of connections the work succeeded on
+     */
+    public static int forEachIdleConnection(ConnectionWork work) throws SQLException {
+        return forEachIdleConnection(getDataSource(), work);
+    }
+
+    /**
+     * {@link #forEachIdleConnection(ConnectionWork)} for any pool, e.g. a replica's.
+     */
+    public static int forEachIdleConnection(ConnectionPool dataSource, ConnectionWork work) throws SQLException {
+        int idle = dataSource.getIdleConnections();
+        List<Connection> borrowed = new ArrayList<>(idle);
+        int succeeded = 0;
+        try{
+            for(int i = 0; i < idle; i++){
+                borrowed.add(dataSource.getConnection());
+            }
+            for(Connection connection : borrowed){
+                try{
+                    work.run(connection);
+                    succeeded++;
+                }catch (SQLException e){
+                    log.warn("⚠ Connection work failed: {}", e.getMessage());
+                }
+            }
+        }finally {
+            // One failed close must not keep the rest from going back to the pool
+            for(Connection connection : borrowed){
+                try{
+                    connection.close();
+                }catch (SQLException e){
+                    log.warn("⚠ Error closing Connection: {}", e.getMessage());
+                }
+            }
+        }
+        return succeeded;
+    }
+
+    /**
+     * Closes the pool and every idle connection. Call once when the application exits.
+     */
+    public static void shutdown(){
+        synchronized (DatabaseUtil.class){
+            if(replicaRouter != null){
+                replicaRouter.close();
+                replicaRouter = null;
+            }
+            if(pool != null){
+                pool.close();
+                pool = null;
+            }
         }
     }
 
     public static boolean testConnection(){
-        System.out.println("Testing database connection...");
+        log.info("Testing database connection...");
 
         try(Connection connection = getConnection()){
             try(Statement statement = connection.createStatement();
             ResultSet rs = statement.executeQuery("SELECT version()")){
                 if(rs.next()){
-                    System.out.println("✓ Connection test successful!");
-                    System.out.println("  PostgreSQL version: " + rs.getString(1));
+                    log.info("✓ Connection test successful!");
+                    log.info("  PostgreSQL version: {}", rs.getString(1));
                     connection.commit();
                     return true;
                 }
             }
         }catch (SQLException e){
-            System.err.println("✗ Connection test failed: " + e.getMessage());
+            log.error("✗ Connection test failed: {}", e.getMessage());
         }
 
         return false;
@@ -75,21 +294,166 @@ public class DatabaseUtil {
             statement.executeUpdate(createTableSQL);
             connection.commit();
 
-            System.out.println("✓ Users table created or already exists");
+            log.info("✓ Users table created or already exists");
         } catch (SQLException e){
-            System.err.println("✗ Failed to create users table: " + e.getMessage());
+            log.error("✗ Failed to create users table: {}", e.getMessage());
+            return;
+        }
+
+        createUserSearchIndexesIfNotExist();
+
+        if(config.isUserCounterEnabled()){
+            installUserCounter();
+        }
+    }
+
+    /**
+     * Indexes behind UserDao.searchUsers: lower() prefix indexes (text_pattern_ops, so LIKE 'abc%'
+     * is a range scan under any collation) and a trigram GiST index over names and email, which also
+     * returns rows in similarity order so a LIMIT stops early. The trigram part needs the pg_trgm
+     * extension; without it fuzzy search falls back to substring matching (see {@link #isTrigramAvailable}).
+     */
+    public static void createUserSearchIndexesIfNotExist(){
+        try(Connection connection = getConnection();
+            Statement statement = connection.createStatement()){
+            statement.execute("CREATE INDEX IF NOT EXISTS users_email_prefix_idx ON users (lower(email) text_pattern_ops)");
+            statement.execute("CREATE INDEX IF NOT EXISTS users_first_name_prefix_idx ON users (lower(first_name) text_pattern_ops)");
+            statement.execute("CREATE INDEX IF NOT EXISTS users_last_name_prefix_idx ON users (lower(last_name) text_pattern_ops)");
+            connection.commit();
+            log.info("✓ User prefix search indexes created or already exist");
+
+            try{
+                statement.execute("CREATE EXTENSION IF NOT EXISTS pg_trgm");
+                statement.execute("CREATE INDEX IF NOT EXISTS users_search_trgm_idx ON users USING gist ("
+                        + USER_SEARCH_DOCUMENT + " gist_trgm_ops)");
+                connection.commit();
+                trigramAvailable = true;
+                log.info("✓ User trigram search index created or already exists");
+            }catch (SQLException e){
+                connection.rollback();
+                // The extension may exist even though the index could not be built; check again on first use
+                trigramAvailable = null;
+                log.warn("⚠ Trigram search index not available, fuzzy search may fall back to substring matching: {}",
+                        e.getMessage());
+            }
+        }catch (SQLException e){
+            log.error("✗ Failed to create user search indexes: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Tells whether the pg_trgm extension is installed. Its operators do not exist without it, so fuzzy
+     * search must use a different query. Checked on the given connection the first time, then remembered.
+     */
+    public static boolean isTrigramAvailable(Connection connection) throws SQLException {
+        Boolean available = trigramAvailable;
+        if(available == null){
+            try(Statement statement = connection.createStatement();
+                ResultSet rs = statement.executeQuery("SELECT EXISTS (SELECT 1 FROM pg_extension WHERE extname = 'pg_trgm')")){
+                available = rs.next() && rs.getBoolean(1);
+            }
+            trigramAvailable = available;
+            if(!available){
+                log.warn("⚠ pg_trgm is not installed; fuzzy search falls back to substring matching");
+            }
         }
+        return available;
     }
 
+    /**
+     * Installs a user count kept up to date by statement-level triggers on users, so that counting
+     * does not scan the table. The triggers see every path that adds or removes rows (createUser,
+     * batch inserts, upserts, COPY, deletes, TRUNCATE) and add one delta per statement.
+     *
+     * The count is spread over a few slots chosen by backend pid, so concurrent writers rarely wait on
+     * the same counter row; readers sum the slots. The first install seeds the count with COUNT(*)
+     * while holding off writers. Safe to call repeatedly.
+     */
+    public static void installUserCounter(){
+        String functionSQL = """
+                CREATE OR REPLACE FUNCTION users_count_trigger() RETURNS trigger LANGUAGE plpgsql AS $$
+                DECLARE
+                    delta BIGINT;
+                BEGIN
+                    IF TG_OP = 'TRUNCATE' THEN
+                        UPDATE user_count_slots SET row_count = 0;
+                        RETURN NULL;
+                    ELSIF TG_OP = 'INSERT' THEN
+                        SELECT count(*) INTO delta FROM new_rows;
+                    ELSE
+                        SELECT -count(*) INTO delta FROM old_rows;
+                    END IF;
+                    IF delta <> 0 THEN
+                        INSERT INTO user_count_slots (slot, row_count) VALUES (pg_backend_pid() % 16, delta)
+                        ON CONFLICT (slot) DO UPDATE SET row_count = user_count_slots.row_count + EXCLUDED.row_count;
+                    END IF;
+                    RETURN NULL;
+                END $$
+                """;
+
+        try(Connection connection = getConnection();
+            Statement statement = connection.createStatement()){
+            boolean installed;
+            try(ResultSet rs = statement.executeQuery("SELECT to_regclass('user_count_slots') IS NOT NULL")){
+                installed = rs.next() && rs.getBoolean(1);
+            }
+
+            // Block writers so no insert slips in between the seed count and the triggers
+            statement.execute("LOCK TABLE users IN SHARE ROW EXCLUSIVE MODE");
+            statement.execute("CREATE TABLE IF NOT EXISTS user_count_slots (slot INT PRIMARY KEY, row_count BIGINT NOT NULL)");
+            statement.execute(functionSQL);
+            statement.execute("DROP TRIGGER IF EXISTS users_count_insert ON users");
+            statement.execute("CREATE TRIGGER users_count_insert AFTER INSERT ON users REFERENCING NEW TABLE AS new_rows "
+                    + "FOR EACH STATEMENT EXECUTE FUNCTION users_count_trigger()");
+            statement.execute("DROP TRIGGER IF EXISTS users_count_delete ON users");
+            statement.execute("CREATE TRIGGER users_count_delete AFTER DELETE ON users REFERENCING OLD TABLE AS old_rows "
+                    + "FOR EACH STATEMENT EXECUTE FUNCTION users_count_trigger()");
+            statement.execute("DROP TRIGGER IF EXISTS users_count_truncate ON users");
+            statement.execute("CREATE TRIGGER users_count_truncate AFTER TRUNCATE ON users "
+                    + "FOR EACH STATEMENT EXECUTE FUNCTION users_count_trigger()");
+            if(!installed){
+                statement.execute("INSERT INTO user_count_slots (slot, row_count) SELECT 0, count(*) FROM users");
+            }
+            connection.commit();
+            userCounterInstalled = true;
+
+            log.info("✓ User counter {}", installed ? "triggers refreshed" : "installed and seeded");
+        }catch (SQLException e){
+            log.error("✗ Failed to install user counter: {}", e.getMessage());
+        }
+    }
+
+
+    /**
+     * Tells whether the user counter behind CountMode.MAINTAINED is installed. Checked on the given
+     * connection until it is found, then remembered so counting costs one query.
+     */
+    public static boolean isUserCounterInstalled(Connection connection) throws SQLException {
+        if(userCounterInstalled){
+            return true;
+        }
+        try(Statement statement = connection.createStatement();
+            ResultSet rs = statement.executeQuery("SELECT to_regclass('user_count_slots') IS NOT NULL")){
+            userCounterInstalled = rs.next() && rs.getBoolean(1);
+        }
+        return userCounterInstalled;
+    }
+
+    /**
+     * Forgets that the user counter is installed, after reading it failed because its table is gone.
+     */
+    public static void userCounterDropped(){
+        userCounterInstalled = false;
+    }
 
     public static void closeResources(Connection conn, Statement stmt, ResultSet rs){
         // Close in reverse order of creation
         if(rs != null){
             try{
                 rs.close();
-                System.out.println("✓ ResultSet closed");
+                log.info("✓ ResultSet closed");
             } catch (SQLException e){
-                System.err.println("⚠ Error closing ResultSet: " + e.getMessage());
+                log.warn("⚠ Error closing ResultSet: {}", e.getMessage());
             }
         }
 
@@ -97,21 +461,22 @@ public class DatabaseUtil {
             try{
                 stmt.close();
             }catch (SQLException e){
-                System.err.println("⚠ Error closing Statement: " + e.getMessage());
+                log.warn("⚠ Error closing Statement: {}", e.getMessage());
             }
         }
 
         if(conn != null){
             try{
-                // If there's an uncommitted transaction, rollback before closing
-                if(!conn.getAutoCommit()){
+                // If there's an uncommitted transaction, rollback before closing. A unit of work's
+                // connection is left alone: its transaction is the unit's to commit or roll back.
+                if(!conn.getAutoCommit() && conn != boundConnection.get()){
                     conn.rollback();
-                    System.out.println("✓ Uncommitted transaction rolled back");
+                    log.info("✓ Uncommitted transaction rolled back");
                 }
                 conn.close();
-                System.out.println("✓ Connection closed");
+                log.info("✓ Connection closed");
             }catch (SQLException e){
-                System.err.println("⚠ Error closing Connection: " + e.getMessage());
+                log.warn("⚠ Error closing Connection: {}", e.getMessage());
             }
         }
     }
@@ -0,0 +1,204 @@
+package com.deepmodi.app.util;
+
+import com.deepmodi.app.config.DatabaseConfig;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Picks the connection pool a read should use: one of the read replicas, or the primary.
+ *
+ * Each replica gets its own {@link ConnectionPool}. A background check measures every replica's
+ * replication lag; replicas that are down or lag more than database.replica.maxLagMs are skipped
+ * until a later check finds them healthy again. Among the usable replicas reads are spread
+ * round-robin or to the replica with the fewest busy and waiting connections (least-busy).
+ * When no replica is usable the read goes to the primary.
+ */
+public class ReplicaRouter implements AutoCloseable {
+    private static final AppLogger log = AppLogger.getLogger(ReplicaRouter.class);
+
+    public static final String ROUND_ROBIN = "round-robin";
+    public static final String LEAST_BUSY = "least-busy";
+
+    // Zero when the replica has replayed everything it received (an idle primary does not count as lag),
+    // otherwise the age of the last replayed transaction
+    private static final String REPLICATION_LAG_SQL = """
+            SELECT CASE
+                WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0)
+            END
+            """;
+
+    private final List<Replica> replicas = new ArrayList<>();
+    private final boolean leastBusy;
+    private final long maxLagMs;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final ScheduledExecutorService healthChecker;
+
+    public ReplicaRouter(DatabaseConfig config) throws SQLException {
+        this.leastBusy = LEAST_BUSY.equalsIgnoreCase(config.getReplicaStrategy());
+        this.maxLagMs = config.getReplicaMaxLagMs();
+        try{
+            for(String url : config.getReplicaUrls()){
+                replicas.add(new Replica(ConnectionPool.create(config, url)));
+            }
+        }catch (SQLException e){
+            replicas.forEach(replica -> replica.pool.close());
+            throw e;
+        }
+
+        this.healthChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-health-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if(!replicas.isEmpty()){
+            long period = Math.max(100, config.getReplicaHealthCheckIntervalMs());
+            healthChecker.scheduleWithFixedDelay(this::checkReplicas, 0, period, TimeUnit.MILLISECONDS);
+        }
+        log.info("✓ Replica router started ({} replicas, {}, maxLag={}ms)",
+                replicas.size(), leastBusy ? LEAST_BUSY : ROUND_ROBIN, maxLagMs);
+    }
+
+    public boolean hasReplicas(){
+        return !replicas.isEmpty();
+    }
+
+    /**
+     * Borrows a connection from a usable replica.
+     * A replica whose pool fails to hand out a connection is marked down and the next one is tried.
+     * @return the connection, or null when no replica is usable and the caller should use the primary
+     */
+    public Connection getConnection(){
+        for(int attempt = 0; attempt < replicas.size(); attempt++){
+            Replica replica = pick();
+            if(replica == null){
+                return null;
+            }
+            try{
+                return replica.pool.getConnection();
+            }catch (SQLException e){
+                markDown(replica, e.getMessage());
+            }
+        }
+        return null;
+    }
+
+    private Replica pick(){
+        Replica best = null;
+        int size = replicas.size();
+        int start = leastBusy ? 0 : Math.floorMod(nextReplica.getAndIncrement(), size);
+        for(int i = 0; i < size; i++){
+            Replica replica = replicas.get((start + i) % size);
+            if(!replica.isUsable(maxLagMs)){
+                continue;
+            }
+            if(!leastBusy){
+                return replica;
+            }
+            if(best == null || replica.load() < best.load()){
+                best = replica;
+            }
+        }
+        return best;
+    }
+
+    private void checkReplicas(){
+        for(Replica replica : replicas){
+            try(Connection connection = replica.pool.getConnection();
+                Statement statement = connection.createStatement();
+                ResultSet rs = statement.executeQuery(REPLICATION_LAG_SQL)){
+                rs.next();
+                long lagMs = (long) rs.getDouble(1);
+                connection.commit();
+                replica.lagMs = lagMs;
+                if(!replica.up){
+                    log.info("✓ Replica {} is back (lag {}ms)", replica.pool.getUrl(), lagMs);
+                }
+                replica.up = true;
+                if(lagMs > maxLagMs){
+                    log.warn("⚠ Replica {} lags {}ms, reads go elsewhere", replica.pool.getUrl(), lagMs);
+                }
+            }catch (SQLException | RuntimeException e){
+                markDown(replica, e.getMessage());
+            }
+        }
+    }
+
+    private void markDown(Replica replica, String reason){
+        if(replica.up){
+            log.warn("⚠ Replica {} is down, reads go elsewhere: {}", replica.pool.getUrl(), reason);
+        }
+        replica.up = false;
+    }
+
+    /**
+     * @return the replicas' pools, in configuration order
+     */
+    public List<ConnectionPool> getReplicaPools(){
+        List<ConnectionPool> pools = new ArrayList<>(replicas.size());
+        for(Replica replica : replicas){
+            pools.add(replica.pool);
+        }
+        return pools;
+    }
+
+    /**
+     * @param url a connection's URL, as reported by its DatabaseMetaData
+     * @return true when it is one of the replicas' URLs
+     */
+    boolean isReplicaUrl(String url){
+        for(Replica replica : replicas){
+            if(replica.pool.getUrl().equals(url)){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return number of replicas that currently take reads
+     */
+    public int getUsableReplicas(){
+        int usable = 0;
+        for(Replica replica : replicas){
+            if(replica.isUsable(maxLagMs)){
+                usable++;
+            }
+        }
+        return usable;
+    }
+
+    @Override
+    public void close() {
+        healthChecker.shutdownNow();
+        replicas.forEach(replica -> replica.pool.close());
+    }
+
+    private static final class Replica {
+        private final ConnectionPool pool;
+        // Not trusted until the first health check has measured it
+        private volatile boolean up;
+        private volatile long lagMs = Long.MAX_VALUE;
+
+        private Replica(ConnectionPool pool) {
+            this.pool = pool;
+        }
+
+        private boolean isUsable(long maxLagMs){
+            return up && lagMs <= maxLagMs;
+        }
+
+        private int load(){
+            return pool.getActiveConnections() + pool.getThreadsAwaitingConnection();
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.deepmodi.app.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LRU cache of prepared statements for one physical connection.
+ * Statements are keyed by SQL text and generated-keys flag and survive across borrows of the
+ * connection, so the driver can promote them to named server-side statements and skip parse/plan.
+ *
+ * A connection is only ever used by one borrower at a time, so the cache itself is not synchronized;
+ * the hit/miss counters are shared by every cache in the pool.
+ *
+ * A statement goes back to the cache with no parameters, no batch and the settings it was prepared
+ * with: fetch size, max rows, query timeout, fetch direction, max field size and escape processing that
+ * a borrower changed are restored, so they do not carry over to the next caller of the same SQL.
+ */
+final class StatementCache {
+    private static final AppLogger log = AppLogger.getLogger(StatementCache.class);
+
+    // Statement settings a borrower may change, restored before the statement is reused
+    private static final Set<String> SETTINGS = Set.of("setFetchSize", "setMaxRows", "setLargeMaxRows",
+            "setQueryTimeout", "setFetchDirection", "setMaxFieldSize", "setEscapeProcessing");
+
+    private record Key(String sql, int autoGeneratedKeys) {
+    }
+
+    private static final class Entry {
+        private final PreparedStatement statement;
+        // The driver's defaults, read client-side when the statement is prepared
+        private final int fetchSize;
+        private final int maxRows;
+        private final int queryTimeout;
+        private final int fetchDirection;
+        private final int maxFieldSize;
+        private boolean inUse;
+        private boolean evicted;
+
+        private Entry(PreparedStatement statement) throws SQLException {
+            this.statement = statement;
+            this.fetchSize = statement.getFetchSize();
+            this.maxRows = statement.getMaxRows();
+            this.queryTimeout = statement.getQueryTimeout();
+            this.fetchDirection = statement.getFetchDirection();
+            this.maxFieldSize = statement.getMaxFieldSize();
+        }
+
+        private void restoreSettings() throws SQLException {
+            statement.setFetchSize(fetchSize);
+            statement.setMaxRows(maxRows);
+            statement.setQueryTimeout(queryTimeout);
+            statement.setFetchDirection(fetchDirection);
+            statement.setMaxFieldSize(maxFieldSize);
+            // Has no getter; JDBC drivers start with it on
+            statement.setEscapeProcessing(true);
+        }
+    }
+
+    private final Connection physical;
+    private final int maxSize;
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    StatementCache(Connection physical, int maxSize, LongAdder hits, LongAdder misses) {
+        this.physical = physical;
+        this.maxSize = maxSize;
+        this.hits = hits;
+        this.misses = misses;
+    }
+
+    PreparedStatement prepare(String sql, int autoGeneratedKeys) throws SQLException {
+        Key key = new Key(sql, autoGeneratedKeys);
+        Entry entry = entries.get(key);
+        if(entry != null && entry.statement.isClosed()){
+            entries.remove(key);
+            entry = null;
+        }
+
+        if(entry != null && !entry.inUse){
+            hits.increment();
+            entry.inUse = true;
+            return wrap(entry);
+        }
+
+        misses.increment();
+        PreparedStatement statement = physical.prepareStatement(sql, autoGeneratedKeys);
+        if(entry != null && entry.inUse){
+            // Same SQL is already open on this connection (e.g. nested use): hand out an uncached statement
+            return statement;
+        }
+
+        Entry created;
+        try{
+            created = new Entry(statement);
+        }catch (SQLException e){
+            closeQuietly(statement);
+            throw e;
+        }
+        created.inUse = true;
+        entries.put(key, created);
+        evictIfNeeded();
+        return wrap(created);
+    }
+
+    private void evictIfNeeded(){
+        Iterator<Map.Entry<Key, Entry>> iterator = entries.entrySet().iterator();
+        while(entries.size() > maxSize && iterator.hasNext()){
+            Entry eldest = iterator.next().getValue();
+            iterator.remove();
+            if(eldest.inUse){
+                // Closed for real when the borrower closes it
+                eldest.evicted = true;
+            }else{
+                closeQuietly(eldest.statement);
+            }
+        }
+    }
+
+    private PreparedStatement wrap(Entry entry){
+        return (PreparedStatement) Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                new CachedStatement(entry));
+    }
+
+    private static void closeQuietly(Statement statement){
+        try{
+            statement.close();
+        }catch (SQLException e){
+            log.warn("⚠ Error closing cached statement: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Handler that turns close() into "return to cache" for one use of a cached statement.
+     */
+    private static final class CachedStatement implements InvocationHandler {
+        private final Entry entry;
+        private boolean closed;
+        private boolean settingsChanged;
+
+        private CachedStatement(Entry entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()){
+                case "close":
+                    if(!closed){
+                        closed = true;
+                        giveBack();
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || entry.statement.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+
+            if(closed){
+                throw new SQLException("Statement is closed");
+            }
+            if(SETTINGS.contains(method.getName())){
+                settingsChanged = true;
+            }
+
+            try{
+                return method.invoke(entry.statement, args);
+            }catch (InvocationTargetException e){
+                throw e.getCause();
+            }
+        }
+
+        private void giveBack() throws SQLException {
+            PreparedStatement statement = entry.statement;
+            if(entry.evicted){
+                statement.close();
+                return;
+            }
+            try{
+                ResultSet open = statement.getResultSet();
+                if(open != null){
+                    open.close();
+                }
+                statement.clearParameters();
+                statement.clearBatch();
+                if(settingsChanged){
+                    entry.restoreSettings();
+                }
+                entry.inUse = false;
+            }catch (SQLException e){
+                // A closed statement is dropped from the cache on the next lookup
+                statement.close();
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,393 @@
+package com.deepmodi.app.util;
+
+import com.deepmodi.app.metrics.DaoMetrics;
+import com.deepmodi.app.metrics.OperationTimer;
+import com.deepmodi.app.metrics.SlowQueryEntry;
+import com.deepmodi.app.metrics.SlowQueryLog;
+import org.postgresql.core.BaseConnection;
+import org.postgresql.core.TransactionState;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongConsumer;
+
+/**
+ * Statement proxy that times every execution for the {@link SlowQueryLog}, and reports the time spent
+ * in the driver to the connection that created it (the admission controller's latency sample).
+ *
+ * An execution runs from execute*() until its ResultSet is closed, or until the update count is known,
+ * but only the time spent in the driver counts: the execute*() call plus every ResultSet.next() and
+ * close(), which is where a cursor fetches its next rows. What the caller does between rows does not,
+ * so streaming a table to a slow consumer is not a slow query. Bound parameters are remembered so that
+ * a slow statement can be explained with the same values; only their types and sizes end up in the log.
+ *
+ * The EXPLAIN runs on the same physical connection right after the slow execution, inside a savepoint
+ * when a transaction is open so a failing EXPLAIN cannot abort the caller's transaction. A sampled share
+ * of slow SELECTs is explained with ANALYZE, which runs the query again; that is only done inside a
+ * transaction, where the savepoint rolls back whatever the query did. Nothing is explained after a
+ * statement failed or when the transaction is already aborted.
+ */
+final class TimedStatement implements InvocationHandler {
+    private static final AppLogger log = AppLogger.getLogger(TimedStatement.class);
+
+    private final Statement target;
+    private final Connection physical;
+    private final String preparedSql;
+    private final SlowQueryLog slowQueryLog;
+    private final LongConsumer databaseTime;
+
+    // Bound parameters by index: the set*() method and its arguments, to replay on the EXPLAIN
+    private final Map<Integer, Object[]> parameters = new TreeMap<>();
+    private int batchSize;
+
+    // The execution being timed
+    private boolean running;
+    private String runningSql;
+    private long databaseNanos;
+    private long rowCount;
+    private int runningBatchSize;
+
+    private record Plan(String text, boolean analyzed) {
+    }
+
+    private TimedStatement(Statement target, Connection physical, String preparedSql, SlowQueryLog slowQueryLog,
+                           LongConsumer databaseTime) {
+        this.target = target;
+        this.physical = physical;
+        this.preparedSql = preparedSql;
+        this.slowQueryLog = slowQueryLog;
+        this.databaseTime = databaseTime;
+    }
+
+    /**
+     * @param preparedSql the statement's SQL for a PreparedStatement, null for a plain Statement
+     * @param databaseTime told the nanoseconds of every call that may wait for the server, or null
+     */
+    static Statement wrap(Statement target, Connection physical, String preparedSql, SlowQueryLog slowQueryLog,
+                          LongConsumer databaseTime){
+        Class<?> type = target instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+        return (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[]{type},
+                new TimedStatement(target, physical, preparedSql, slowQueryLog, databaseTime));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+        switch (name){
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "close":
+                try{
+                    return method.invoke(target, args);
+                }catch (InvocationTargetException e){
+                    throw e.getCause();
+                }finally {
+                    finish(null);
+                }
+            case "clearParameters":
+                parameters.clear();
+                break;
+            case "addBatch":
+                batchSize++;
+                break;
+            case "clearBatch":
+                batchSize = 0;
+                break;
+            case "executeQuery":
+                begin(args);
+                return wrapResultSet((ResultSet) call(method, args));
+            case "executeUpdate":
+            case "executeLargeUpdate":
+                begin(args);
+                Object count = call(method, args);
+                rowCount = ((Number) count).longValue();
+                finish(null);
+                return count;
+            case "execute":
+                begin(args);
+                boolean hasResultSet = (Boolean) call(method, args);
+                if(!hasResultSet){
+                    rowCount = target.getUpdateCount();
+                    finish(null);
+                }
+                return hasResultSet;
+            case "executeBatch":
+            case "executeLargeBatch":
+                runningBatchSize = batchSize;
+                batchSize = 0;
+                begin(args);
+                Object counts = call(method, args);
+                rowCount = sum(counts);
+                finish(null);
+                return counts;
+            case "getResultSet":
+                return wrapResultSet((ResultSet) call(method, args));
+            default:
+                if(name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index
+                        && method.getDeclaringClass() == PreparedStatement.class){
+                    parameters.put(index, new Object[]{method, args});
+                }
+                break;
+        }
+        try{
+            return method.invoke(target, args);
+        }catch (InvocationTargetException e){
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Invokes an execute method; a failure ends the timed execution with its error.
+     */
+    private Object call(Method method, Object[] args) throws Throwable {
+        long start = System.nanoTime();
+        try{
+            Object result = method.invoke(target, args);
+            addDatabaseTime(System.nanoTime() - start);
+            return result;
+        }catch (InvocationTargetException e){
+            addDatabaseTime(System.nanoTime() - start);
+            finish(e.getCause());
+            throw e.getCause();
+        }
+    }
+
+    private void addDatabaseTime(long nanos){
+        databaseNanos += nanos;
+        if(databaseTime != null){
+            databaseTime.accept(nanos);
+        }
+    }
+
+    private void begin(Object[] args){
+        // Re-executing closes the previous ResultSet
+        finish(null);
+        running = true;
+        runningSql = args != null && args.length > 0 && args[0] instanceof String sql ? sql : preparedSql;
+        rowCount = -1;
+        databaseNanos = 0;
+    }
+
+    private void finish(Throwable error){
+        if(!running){
+            return;
+        }
+        running = false;
+        long elapsed = databaseNanos;
+        int executedBatch = runningBatchSize;
+        runningBatchSize = 0;
+        if(!slowQueryLog.isEnabled() || !slowQueryLog.isSlow(elapsed) || runningSql == null){
+            return;
+        }
+
+        Plan plan = new Plan(null, false);
+        if(error == null && executedBatch == 0 && slowQueryLog.isExplain() && isExplainable(runningSql)){
+            boolean analyze = slowQueryLog.getAnalyzeSampleRate() > 0
+                    && ThreadLocalRandom.current().nextDouble() < slowQueryLog.getAnalyzeSampleRate()
+                    && firstKeyword(runningSql).equals("SELECT");
+            plan = explain(analyze);
+        }
+        slowQueryLog.record(new SlowQueryEntry(Instant.now(), Thread.currentThread().getName(), runningSql,
+                parameterShapes(), executedBatch, rowCount, elapsed, plan.text(), plan.analyzed(),
+                error != null ? error.getMessage() : null));
+    }
+
+    private Plan explain(boolean analyze){
+        try(OperationTimer timer = DaoMetrics.getInstance().start(SlowQueryLog.OP_EXPLAIN)){
+            try{
+                boolean inTransaction = !physical.getAutoCommit();
+                if(inTransaction && isAborted()){
+                    return new Plan("(not explained: transaction aborted)", false);
+                }
+                if(analyze && !inTransaction){
+                    // Without a savepoint to roll back to, a second run could repeat side effects
+                    analyze = false;
+                }
+                Savepoint savepoint = inTransaction ? physical.setSavepoint() : null;
+                try{
+                    Plan plan = new Plan(runExplain(analyze), analyze);
+                    if(savepoint != null){
+                        if(analyze){
+                            physical.rollback(savepoint);
+                        }
+                        physical.releaseSavepoint(savepoint);
+                    }
+                    return plan;
+                }catch (SQLException e){
+                    if(savepoint != null){
+                        physical.rollback(savepoint);
+                    }
+                    throw e;
+                }
+            }catch (SQLException e){
+                timer.failed();
+                log.warn("⚠ Could not explain slow statement: {}", e.getMessage());
+                return new Plan("(not explained: " + e.getMessage() + ")", false);
+            }
+        }
+    }
+
+    private String runExplain(boolean analyze) throws SQLException {
+        String sql = "EXPLAIN (" + (analyze ? "ANALYZE, BUFFERS, " : "") + "FORMAT TEXT) " + runningSql;
+        List<String> lines = new ArrayList<>();
+        if(preparedSql == null){
+            try(Statement statement = physical.createStatement();
+                ResultSet rs = statement.executeQuery(sql)){
+                while(rs.next()){
+                    lines.add(rs.getString(1));
+                }
+            }
+        }else {
+            try(PreparedStatement statement = physical.prepareStatement(sql)){
+                for(Object[] call : parameters.values()){
+                    ((Method) call[0]).invoke(statement, (Object[]) call[1]);
+                }
+                try(ResultSet rs = statement.executeQuery()){
+                    while(rs.next()){
+                        lines.add(rs.getString(1));
+                    }
+                }
+            }catch (InvocationTargetException e){
+                throw e.getCause() instanceof SQLException sqlException
+                        ? sqlException : new SQLException(e.getCause());
+            }catch (IllegalAccessException e){
+                throw new SQLException(e);
+            }
+        }
+        return String.join("\n", lines);
+    }
+
+    private boolean isAborted() throws SQLException {
+        return physical.isWrapperFor(BaseConnection.class)
+                && physical.unwrap(BaseConnection.class).getTransactionState() == TransactionState.FAILED;
+    }
+
+    private static boolean isExplainable(String sql){
+        return switch (firstKeyword(sql)){
+            case "SELECT", "INSERT", "UPDATE", "DELETE", "WITH", "VALUES" -> true;
+            default -> false;
+        };
+    }
+
+    private static String firstKeyword(String sql){
+        String trimmed = sql.stripLeading();
+        int end = 0;
+        while(end < trimmed.length() && Character.isLetter(trimmed.charAt(end))){
+            end++;
+        }
+        return trimmed.substring(0, end).toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Type and size of each bound parameter; values stay out of the log.
+     */
+    private List<String> parameterShapes(){
+        List<String> shapes = new ArrayList<>(parameters.size());
+        for(Map.Entry<Integer, Object[]> parameter : parameters.entrySet()){
+            Method method = (Method) parameter.getValue()[0];
+            Object[] args = (Object[]) parameter.getValue()[1];
+            shapes.add("$" + parameter.getKey() + "=" + shape(method.getName(), args[1]));
+        }
+        return shapes;
+    }
+
+    private static String shape(String setter, Object value){
+        if(setter.equals("setNull") || value == null){
+            return "null";
+        }
+        if(value instanceof String text){
+            return "String(" + text.length() + ")";
+        }
+        if(value instanceof byte[] bytes){
+            return "bytes(" + bytes.length + ")";
+        }
+        if(value instanceof Array array){
+            try{
+                Object elements = array.getArray();
+                return "Array[" + (elements instanceof Object[] items ? items.length : "?") + "]";
+            }catch (SQLException e){
+                return "Array";
+            }
+        }
+        return value.getClass().getSimpleName();
+    }
+
+    private static long sum(Object counts){
+        long total = 0;
+        if(counts instanceof int[] ints){
+            for(int count : ints){
+                total += Math.max(0, count);
+            }
+        }else if(counts instanceof long[] longs){
+            for(long count : longs){
+                total += Math.max(0, count);
+            }
+        }
+        return total;
+    }
+
+    private ResultSet wrapResultSet(ResultSet resultSet){
+        if(resultSet == null){
+            finish(null);
+            return null;
+        }
+        if(!running){
+            return resultSet;
+        }
+        rowCount = 0;
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()){
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        default:
+                            break;
+                    }
+                    // The calls that may wait for the server; getters only read rows already fetched
+                    boolean roundTrip = method.getName().equals("next") || method.getName().equals("close");
+                    long start = roundTrip ? System.nanoTime() : 0;
+                    try{
+                        Object result = method.invoke(resultSet, args);
+                        if(roundTrip){
+                            addDatabaseTime(System.nanoTime() - start);
+                        }
+                        if(method.getName().equals("close")){
+                            // After the close, so the EXPLAIN does not run while this cursor is open
+                            finish(null);
+                        }
+                        if(method.getName().equals("next") && Boolean.TRUE.equals(result)){
+                            rowCount++;
+                        }
+                        return result;
+                    }catch (InvocationTargetException e){
+                        if(roundTrip){
+                            addDatabaseTime(System.nanoTime() - start);
+                        }
+                        if(e.getCause() instanceof SQLException){
+                            finish(e.getCause());
+                        }
+                        throw e.getCause();
+                    }
+                });
+    }
+}
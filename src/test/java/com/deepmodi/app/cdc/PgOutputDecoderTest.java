@@ -0,0 +1,222 @@
+package com.deepmodi.app.cdc;
+
+import org.junit.jupiter.api.Test;
+import org.postgresql.replication.LogSequenceNumber;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PgOutputDecoderTest {
+    private static final int USERS_OID = 16384;
+    private static final int ORDERS_OID = 16400;
+    private static final String[] USERS_COLUMNS = {"id", "first_name", "last_name", "email", "created_at", "updated_at"};
+
+    @Test
+    void deliversChangesOnlyOnCommit() throws IOException {
+        PgOutputDecoder decoder = new PgOutputDecoder();
+        assertNull(decoder.decode(relation(USERS_OID, "users", USERS_COLUMNS)));
+        assertNull(decoder.decode(begin(0x1000)));
+        assertNull(decoder.decode(insert(USERS_OID, "7", "Ada", "Lovelace", "ada@example.com",
+                "2024-05-01 10:20:30.123456", "2024-05-01 10:20:30")));
+        assertNull(decoder.decode(update(USERS_OID, "7", "Ada", "King", "ada@example.com", null, null)));
+        assertNull(decoder.decode(delete(USERS_OID, "8")));
+
+        PgOutputDecoder.Commit commit = decoder.decode(commit(0x1000, 0x1040));
+        assertNotNull(commit);
+        assertEquals(LogSequenceNumber.valueOf(0x1040), commit.endLsn());
+
+        List<UserChangeEvent> events = commit.events();
+        assertEquals(3, events.size());
+
+        UserChangeEvent inserted = events.get(0);
+        assertEquals(UserChangeEvent.Type.INSERT, inserted.getType());
+        assertEquals(7L, inserted.getId());
+        assertEquals("Ada", inserted.getUser().getFirstName());
+        assertEquals("Lovelace", inserted.getUser().getLastName());
+        assertEquals("ada@example.com", inserted.getUser().getEmail());
+        assertEquals(LocalDateTime.of(2024, 5, 1, 10, 20, 30, 123_456_000), inserted.getUser().getCreatedAt());
+        assertEquals(LocalDateTime.of(2024, 5, 1, 10, 20, 30), inserted.getUser().getUpdatedAt());
+        assertEquals(LogSequenceNumber.valueOf(0x1040), inserted.getCommitLsn());
+
+        UserChangeEvent updated = events.get(1);
+        assertEquals(UserChangeEvent.Type.UPDATE, updated.getType());
+        assertEquals(7L, updated.getId());
+        assertEquals("King", updated.getUser().getLastName());
+        assertNull(updated.getUser().getCreatedAt());
+
+        UserChangeEvent deleted = events.get(2);
+        assertEquals(UserChangeEvent.Type.DELETE, deleted.getType());
+        assertEquals(8L, deleted.getId());
+    }
+
+    @Test
+    void reportsCommitsWithoutUsersChanges() throws IOException {
+        PgOutputDecoder decoder = new PgOutputDecoder();
+        decoder.decode(relation(ORDERS_OID, "orders", new String[]{"id", "total"}));
+        decoder.decode(begin(0x2000));
+        assertNull(decoder.decode(insert(ORDERS_OID, "1", "9.99")));
+
+        PgOutputDecoder.Commit commit = decoder.decode(commit(0x2000, 0x2030));
+        assertNotNull(commit);
+        assertEquals(LogSequenceNumber.valueOf(0x2030), commit.endLsn());
+        assertTrue(commit.events().isEmpty());
+    }
+
+    @Test
+    void tracksWhetherATransactionIsOpen() throws IOException {
+        PgOutputDecoder decoder = new PgOutputDecoder();
+        assertFalse(decoder.isInTransaction());
+        decoder.decode(begin(0x3000));
+        assertTrue(decoder.isInTransaction());
+        decoder.decode(commit(0x3000, 0x3010));
+        assertFalse(decoder.isInTransaction());
+    }
+
+    @Test
+    void dropsChangesOfAnUnfinishedTransactionOnTheNextBegin() throws IOException {
+        PgOutputDecoder decoder = new PgOutputDecoder();
+        decoder.decode(relation(USERS_OID, "users", USERS_COLUMNS));
+        decoder.decode(begin(0x4000));
+        decoder.decode(insert(USERS_OID, "1", "A", "B", "a@example.com", null, null));
+        // A reconnect replays the transaction from its Begin
+        decoder.decode(begin(0x4000));
+        decoder.decode(insert(USERS_OID, "2", "C", "D", "c@example.com", null, null));
+
+        List<UserChangeEvent> events = decoder.decode(commit(0x4000, 0x4020)).events();
+        assertEquals(1, events.size());
+        assertEquals(2L, events.get(0).getId());
+    }
+
+    @Test
+    void decodesTruncate() throws IOException {
+        PgOutputDecoder decoder = new PgOutputDecoder();
+        decoder.decode(relation(USERS_OID, "users", USERS_COLUMNS));
+        decoder.decode(relation(ORDERS_OID, "orders", new String[]{"id"}));
+        decoder.decode(begin(0x5000));
+        decoder.decode(truncate(USERS_OID, ORDERS_OID));
+
+        List<UserChangeEvent> events = decoder.decode(commit(0x5000, 0x5010)).events();
+        assertEquals(1, events.size());
+        assertEquals(UserChangeEvent.Type.TRUNCATE, events.get(0).getType());
+        assertNull(events.get(0).getUser());
+    }
+
+    private static ByteBuffer begin(long finalLsn) throws IOException {
+        Message msg = new Message('B');
+        msg.out.writeLong(finalLsn);
+        msg.out.writeLong(0); // commit timestamp
+        msg.out.writeInt(742); // xid
+        return msg.buffer();
+    }
+
+    private static ByteBuffer commit(long commitLsn, long endLsn) throws IOException {
+        Message msg = new Message('C');
+        msg.out.writeByte(0);
+        msg.out.writeLong(commitLsn);
+        msg.out.writeLong(endLsn);
+        msg.out.writeLong(0); // commit timestamp
+        return msg.buffer();
+    }
+
+    private static ByteBuffer relation(int oid, String name, String[] columns) throws IOException {
+        Message msg = new Message('R');
+        msg.out.writeInt(oid);
+        msg.string("public");
+        msg.string(name);
+        msg.out.writeByte('d');
+        msg.out.writeShort(columns.length);
+        for(int i = 0; i < columns.length; i++){
+            msg.out.writeByte(i == 0 ? 1 : 0); // key flag
+            msg.string(columns[i]);
+            msg.out.writeInt(25); // text
+            msg.out.writeInt(-1);
+        }
+        return msg.buffer();
+    }
+
+    private static ByteBuffer insert(int oid, String... values) throws IOException {
+        Message msg = new Message('I');
+        msg.out.writeInt(oid);
+        msg.out.writeByte('N');
+        msg.tuple(values);
+        return msg.buffer();
+    }
+
+    private static ByteBuffer update(int oid, String... values) throws IOException {
+        Message msg = new Message('U');
+        msg.out.writeInt(oid);
+        // Old key first, as sent when the key columns changed
+        msg.out.writeByte('K');
+        msg.tuple(values[0]);
+        msg.out.writeByte('N');
+        msg.tuple(values);
+        return msg.buffer();
+    }
+
+    private static ByteBuffer delete(int oid, String id) throws IOException {
+        Message msg = new Message('D');
+        msg.out.writeInt(oid);
+        msg.out.writeByte('K');
+        msg.tuple(id);
+        return msg.buffer();
+    }
+
+    private static ByteBuffer truncate(int... oids) throws IOException {
+        Message msg = new Message('T');
+        msg.out.writeInt(oids.length);
+        msg.out.writeByte(0);
+        for(int oid : oids){
+            msg.out.writeInt(oid);
+        }
+        return msg.buffer();
+    }
+
+    /**
+     * A pgoutput message as the replication stream hands it over: tag byte first, big-endian fields.
+     */
+    private static final class Message {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(bytes);
+
+        private Message(char tag) throws IOException {
+            out.writeByte(tag);
+        }
+
+        private void string(String value) throws IOException {
+            out.write(value.getBytes(StandardCharsets.UTF_8));
+            out.writeByte(0);
+        }
+
+        /**
+         * Text columns; null values are sent as NULL ('n').
+         */
+        private void tuple(String... values) throws IOException {
+            out.writeShort(values.length);
+            for(String value : values){
+                if(value == null){
+                    out.writeByte('n');
+                }else {
+                    byte[] text = value.getBytes(StandardCharsets.UTF_8);
+                    out.writeByte('t');
+                    out.writeInt(text.length);
+                    out.write(text);
+                }
+            }
+        }
+
+        private ByteBuffer buffer(){
+            return ByteBuffer.wrap(bytes.toByteArray());
+        }
+    }
+}
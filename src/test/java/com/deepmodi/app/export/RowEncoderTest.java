@@ -0,0 +1,117 @@
+package com.deepmodi.app.export;
+
+import com.deepmodi.app.model.UserRow;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RowEncoderTest {
+
+    @Test
+    void copyBinaryHeaderAndTrailer(){
+        RowEncoder encoder = RowEncoder.of(ExportFormat.BINARY);
+        assertArrayEquals(bytes(
+                'P', 'G', 'C', 'O', 'P', 'Y', 0x0A, 0xFF, 0x0D, 0x0A, 0x00,
+                0, 0, 0, 0, // flags
+                0, 0, 0, 0), // header extension length
+                encoder.header());
+        assertArrayEquals(bytes(0xFF, 0xFF), encoder.trailer());
+    }
+
+    @Test
+    void copyBinaryRow(){
+        UserRow row = row(1, "Ada", null, "a@b", LocalDateTime.of(2000, 1, 1, 0, 0, 1), null);
+        assertArrayEquals(bytes(
+                0x00, 0x06, // field count
+                0, 0, 0, 8, 0, 0, 0, 0, 0, 0, 0, 1, // id
+                0, 0, 0, 3, 'A', 'd', 'a', // first_name
+                0xFF, 0xFF, 0xFF, 0xFF, // last_name NULL
+                0, 0, 0, 3, 'a', '@', 'b', // email
+                0, 0, 0, 8, 0, 0, 0, 0, 0, 0x0F, 0x42, 0x40, // created_at, 1s after 2000-01-01
+                0xFF, 0xFF, 0xFF, 0xFF), // updated_at NULL
+                encode(new CopyBinaryRowEncoder(), row));
+    }
+
+    @Test
+    void copyBinaryTimestampsBeforeThePostgresEpochAreNegative(){
+        UserRow row = row(2, null, null, null, LocalDateTime.of(1999, 12, 31, 23, 59, 59, 999_999_000), null);
+        byte[] encoded = encode(new CopyBinaryRowEncoder(), row);
+        ByteBuffer buffer = ByteBuffer.wrap(encoded, encoded.length - 16, 12);
+        assertEquals(8, buffer.getInt());
+        assertEquals(-1L, buffer.getLong());
+    }
+
+    @Test
+    void csvHeaderAndRow(){
+        RowEncoder encoder = RowEncoder.of(ExportFormat.CSV);
+        assertEquals("id,first_name,last_name,email,created_at,updated_at\n", text(encoder.header()));
+        assertEquals(0, encoder.trailer().length);
+
+        UserRow row = row(7, "Ada", "Lovelace", "ada@example.com",
+                LocalDateTime.of(2024, 5, 1, 10, 20, 30, 123_456_000), null);
+        assertEquals("7,Ada,Lovelace,ada@example.com,2024-05-01T10:20:30.123456,\n",
+                text(encode(encoder, row)));
+    }
+
+    @Test
+    void csvQuotesFieldsThatNeedIt(){
+        UserRow row = row(8, "Mary \"May\"", "Smith, Jr", "line\nbreak@example.com", null, null);
+        assertEquals("8,\"Mary \"\"May\"\"\",\"Smith, Jr\",\"line\nbreak@example.com\",,\n",
+                text(encode(new CsvRowEncoder(), row)));
+    }
+
+    @Test
+    void csvEncodesUtf8(){
+        UserRow row = row(9, "Émile", "Zoë", "émile@example.com", null, null);
+        assertArrayEquals("9,Émile,Zoë,émile@example.com,,\n".getBytes(StandardCharsets.UTF_8),
+                encode(new CsvRowEncoder(), row));
+    }
+
+    @Test
+    void rowsThatDoNotFitLeaveTheBufferUntouched(){
+        UserRow row = row(1, "Ada", "Lovelace", "ada@example.com", null, null);
+        for(RowEncoder encoder : new RowEncoder[]{new CsvRowEncoder(), new CopyBinaryRowEncoder()}){
+            int size = encode(encoder, row).length;
+            ByteBuffer tooSmall = ByteBuffer.allocate(size - 1);
+            assertFalse(encoder.encode(row, tooSmall));
+            assertEquals(0, tooSmall.position());
+
+            ByteBuffer exact = ByteBuffer.allocate(size);
+            assertTrue(encoder.encode(row, exact));
+            assertEquals(size, exact.position());
+        }
+    }
+
+    private static UserRow row(long id, String firstName, String lastName, String email,
+                               LocalDateTime createdAt, LocalDateTime updatedAt){
+        UserRow row = new UserRow();
+        row.set(id, firstName, lastName, email, createdAt, updatedAt);
+        return row;
+    }
+
+    private static byte[] encode(RowEncoder encoder, UserRow row){
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        assertTrue(encoder.encode(row, buffer));
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    private static byte[] bytes(int... values){
+        byte[] bytes = new byte[values.length];
+        for(int i = 0; i < values.length; i++){
+            bytes[i] = (byte) values[i];
+        }
+        return bytes;
+    }
+
+    private static String text(byte[] bytes){
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
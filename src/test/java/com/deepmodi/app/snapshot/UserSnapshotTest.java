@@ -0,0 +1,193 @@
+package com.deepmodi.app.snapshot;
+
+import com.deepmodi.app.model.UserFilter;
+import com.deepmodi.app.model.UserRow;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UserSnapshotTest {
+    private static final LocalDateTime T1 = LocalDateTime.of(2024, 1, 2, 3, 4, 5, 678_000);
+    private static final LocalDateTime T2 = LocalDateTime.of(2024, 3, 1, 12, 0);
+    private static final LocalDateTime T3 = LocalDateTime.of(2024, 6, 30, 23, 59, 59, 999_999_000);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void writesAndMapsEveryColumn() throws IOException {
+        SnapshotBuilder builder = new SnapshotBuilder();
+        add(builder, 1, "Ada", "Lovelace", "ada@example.com", T1, T2);
+        add(builder, 5, "Grace", "Hopper", "grace@navy.mil", T2, T3);
+        add(builder, 9, "Émile", "Lovelace", "émile@example.com", T1, null);
+        add(builder, 12, null, null, null, null, null);
+        Path file = directory.resolve("users.snap");
+        long bytes = builder.writeTo(file);
+        assertEquals(Files.size(file), bytes);
+
+        try(UserSnapshot snapshot = UserSnapshot.open(file)){
+            assertEquals(4, snapshot.size());
+            assertEquals(UserSnapshot.toMicros(T3), snapshot.getWatermarkMicros());
+
+            assertEquals(1, snapshot.getId(0));
+            assertEquals("Ada", snapshot.getFirstName(0));
+            assertEquals("Lovelace", snapshot.getLastName(0));
+            assertEquals("ada@example.com", snapshot.getEmail(0));
+            assertEquals(T1, snapshot.getCreatedAt(0));
+            assertEquals(T2, snapshot.getUpdatedAt(0));
+
+            assertEquals("Émile", snapshot.getFirstName(2));
+            assertEquals("émile@example.com", snapshot.getEmail(2));
+            assertNull(snapshot.getUpdatedAt(2));
+            // Names share one dictionary
+            assertEquals(snapshot.getLastNameCode(0), snapshot.getLastNameCode(2));
+
+            assertNull(snapshot.getFirstName(3));
+            assertNull(snapshot.getLastName(3));
+            assertEquals("", snapshot.getEmail(3));
+            assertNull(snapshot.getCreatedAt(3));
+        }
+    }
+
+    @Test
+    void findsRowsAndFilters() throws IOException {
+        SnapshotBuilder builder = new SnapshotBuilder();
+        add(builder, 1, "Ada", "Lovelace", "ada@example.com", T1, T1);
+        add(builder, 5, "Grace", "Hopper", "grace@navy.mil", T2, T2);
+        add(builder, 9, "Byron", "Lovelace", "byron@example.org", T3, T3);
+        Path file = directory.resolve("users.snap");
+        builder.writeTo(file);
+
+        try(UserSnapshot snapshot = UserSnapshot.open(file)){
+            assertEquals(0, snapshot.findRow(1));
+            assertEquals(2, snapshot.findRow(9));
+            assertEquals(-1, snapshot.findRow(4));
+            assertEquals(-1, snapshot.findRow(10));
+            assertEquals(-1, snapshot.findNameCode("Babbage"));
+
+            assertArrayEquals(new int[]{0, 2},
+                    snapshot.rows(snapshot.matching(UserFilter.none().lastName("Lovelace"))).toArray());
+            assertArrayEquals(new int[]{0},
+                    snapshot.rows(snapshot.matching(UserFilter.none().emailDomain("example.com"))).toArray());
+            assertArrayEquals(new int[]{1, 2},
+                    snapshot.rows(snapshot.matching(UserFilter.none().createdFrom(T2))).toArray());
+            assertEquals(0, snapshot.users(UserFilter.none().lastName("Babbage")).count());
+        }
+    }
+
+    @Test
+    void rejectsRowsOutOfIdOrder(){
+        SnapshotBuilder builder = new SnapshotBuilder();
+        add(builder, 5, "Ada", "Lovelace", "ada@example.com", T1, T1);
+        assertThrows(IllegalArgumentException.class, () -> add(builder, 5, "Ada", "Lovelace", "ada@example.com", T1, T1));
+        assertThrows(IllegalArgumentException.class, () -> add(builder, 3, "Ada", "Lovelace", "ada@example.com", T1, T1));
+    }
+
+    @Test
+    void rejectsFilesThatAreNoSnapshot() throws IOException {
+        Path file = directory.resolve("users.snap");
+        Files.write(file, new byte[UserSnapshot.HEADER_BYTES]);
+        assertThrows(IOException.class, () -> UserSnapshot.open(file));
+    }
+
+    @Test
+    void refreshMergesChangesAndDropsDeletedRows() throws IOException, SQLException {
+        SnapshotBuilder builder = new SnapshotBuilder();
+        add(builder, 1, "Ada", "Lovelace", "ada@example.com", T1, T1);
+        add(builder, 2, "Grace", "Hopper", "grace@navy.mil", T1, T1);
+        add(builder, 3, "Alan", "Turing", "alan@example.com", T1, T1);
+        add(builder, 5, "Edsger", "Dijkstra", "edsger@example.nl", T1, T1);
+        Path file = directory.resolve("users.snap");
+        builder.writeTo(file);
+
+        try(UserSnapshot current = UserSnapshot.open(file)){
+            UserRow updated = row(2, "Grace", "Hopper", "grace@example.com", T1, T3);
+            UserRow inserted = row(4, "Barbara", "Liskov", "barbara@example.com", T2, T2);
+            UserRow appended = row(7, "Donald", "Knuth", "don@example.com", T3, T3);
+            // 3 was deleted since the snapshot was taken
+            long[] liveIds = {1, 2, 4, 5, 7};
+
+            SnapshotBuilder merged = new SnapshotBuilder();
+            int changed = UserSnapshotExporter.merge(current, rows(updated, inserted, appended), liveIds, merged);
+            assertEquals(3, changed);
+            // The refreshed file replaces the one still mapped by current
+            merged.writeTo(file);
+
+            try(UserSnapshot refreshed = UserSnapshot.open(file)){
+                assertArrayEquals(new long[]{1, 2, 4, 5, 7}, refreshed.rows().mapToLong(refreshed::getId).toArray());
+                assertEquals(UserSnapshot.toMicros(T3), refreshed.getWatermarkMicros());
+                assertEquals("ada@example.com", refreshed.getEmail(0));
+                assertEquals("grace@example.com", refreshed.getEmail(1));
+                assertEquals(T3, refreshed.getUpdatedAt(1));
+                assertEquals("Liskov", refreshed.getLastName(2));
+                assertEquals("Dijkstra", refreshed.getLastName(3));
+                assertEquals("edsger@example.nl", refreshed.getEmail(3));
+                assertEquals("Knuth", refreshed.getLastName(4));
+                assertEquals(-1, refreshed.findRow(3));
+            }
+            // The old mapping is unaffected by the replacement
+            assertEquals(4, current.size());
+            assertEquals("alan@example.com", current.getEmail(2));
+        }
+    }
+
+    @Test
+    void refreshWithoutChangesOnlyDropsDeletedRows() throws IOException, SQLException {
+        SnapshotBuilder builder = new SnapshotBuilder();
+        add(builder, 1, "Ada", "Lovelace", "ada@example.com", T1, T1);
+        add(builder, 2, "Grace", "Hopper", "grace@navy.mil", T1, T2);
+        Path file = directory.resolve("users.snap");
+        builder.writeTo(file);
+
+        try(UserSnapshot current = UserSnapshot.open(file)){
+            SnapshotBuilder merged = new SnapshotBuilder();
+            assertEquals(0, UserSnapshotExporter.merge(current, rows(), new long[]{2}, merged));
+            assertEquals(1, merged.size());
+            Path target = directory.resolve("refreshed.snap");
+            merged.writeTo(target);
+            try(UserSnapshot refreshed = UserSnapshot.open(target)){
+                assertEquals(2, refreshed.getId(0));
+                assertEquals("grace@navy.mil", refreshed.getEmail(0));
+                assertTrue(refreshed.findNameCode("Lovelace") < 0);
+            }
+        }
+    }
+
+    private static void add(SnapshotBuilder builder, long id, String firstName, String lastName, String email,
+                            LocalDateTime createdAt, LocalDateTime updatedAt){
+        builder.add(id, firstName, lastName, email, UserSnapshot.toMicros(createdAt), UserSnapshot.toMicros(updatedAt));
+    }
+
+    private static UserRow row(long id, String firstName, String lastName, String email,
+                               LocalDateTime createdAt, LocalDateTime updatedAt){
+        UserRow row = new UserRow();
+        row.set(id, firstName, lastName, email, createdAt, updatedAt);
+        return row;
+    }
+
+    private static UserSnapshotExporter.ChangedRows rows(UserRow... rows){
+        Iterator<UserRow> iterator = List.of(rows).iterator();
+        return target -> {
+            if(!iterator.hasNext()){
+                return false;
+            }
+            UserRow next = iterator.next();
+            target.set(next.getId(), next.getFirstName(), next.getLastName(), next.getEmail(),
+                    next.getCreatedAt(), next.getUpdatedAt());
+            return true;
+        };
+    }
+}